@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.NamingException;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttributes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.muenchen.oss.ezldap.core.LdapBaseUserAttributesMapper;
+import de.muenchen.oss.ezldap.core.LdapBaseUserDTO;
+import de.muenchen.oss.ezldap.core.LdapOuAttributesMapper;
+import de.muenchen.oss.ezldap.core.LdapOuSearchResultDTO;
+import de.muenchen.oss.ezldap.core.LdapUserAttributesMapper;
+import de.muenchen.oss.ezldap.core.LdapUserDTO;
+
+/**
+ * Benchmarks für das Mapping von LDAP-Attributen auf die DTOs von lib-core.
+ *
+ * @author michael.prankl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttributesMapperBenchmark {
+
+    private final LdapBaseUserAttributesMapper baseUserMapper = new LdapBaseUserAttributesMapper();
+    private final LdapUserAttributesMapper userMapper = new LdapUserAttributesMapper(this.baseUserMapper);
+    private final LdapOuAttributesMapper ouMapper = new LdapOuAttributesMapper();
+
+    private Attributes person;
+    private Attributes ou;
+    private Attributes multiline;
+
+    @Setup
+    public void setup() {
+        this.person = LdapFixtures.person(1);
+        this.ou = LdapFixtures.ou(1);
+        this.multiline = new BasicAttributes(true);
+        this.multiline.put("lhmWorkHours", "Mo-Do 08:00-16:00%%Fr 08:00-12:00%%nach Vereinbarung");
+    }
+
+    @Benchmark
+    public LdapBaseUserDTO baseUser() throws NamingException {
+        return this.baseUserMapper.mapFromAttributes(this.person);
+    }
+
+    @Benchmark
+    public LdapUserDTO user() throws NamingException {
+        return this.userMapper.mapFromAttributes(this.person);
+    }
+
+    @Benchmark
+    public LdapOuSearchResultDTO ou() throws NamingException {
+        return this.ouMapper.mapFromAttributes(this.ou);
+    }
+
+    @Benchmark
+    public String safelyGet() {
+        return LdapBaseUserAttributesMapper.safelyGet("lhmWorkHours", this.person);
+    }
+
+    @Benchmark
+    public String safelyGetWithLineBreaks() {
+        return LdapBaseUserAttributesMapper.safelyGet("lhmWorkHours", this.multiline);
+    }
+
+    @Benchmark
+    public String safelyGetMissing() {
+        return LdapBaseUserAttributesMapper.safelyGet("lhmOUManager", this.person);
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.NamingException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.muenchen.oss.ezldap.core.DtoMapper;
+import de.muenchen.oss.ezldap.core.DtoMapperImpl;
+import de.muenchen.oss.ezldap.core.LdapBaseUserAttributesMapper;
+import de.muenchen.oss.ezldap.core.LdapOuSearchResultDTO;
+import de.muenchen.oss.ezldap.core.LdapUserAttributesMapper;
+import de.muenchen.oss.ezldap.spring.rest.v1.dto.LdapBaseUserDTO;
+import de.muenchen.oss.ezldap.spring.rest.v1.dto.LdapOuDTO;
+import de.muenchen.oss.ezldap.spring.rest.v1.dto.LdapUserDTO;
+import de.muenchen.oss.ezldap.spring.rest.v1.dto.WebMapper;
+import de.muenchen.oss.ezldap.spring.rest.v1.dto.WebMapperImpl;
+
+/**
+ * Benchmarks für die Konvertierung der DTOs (lib-core → REST) und deren Serialisierung mit Jackson.
+ *
+ * @author michael.prankl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    /**
+     * Anzahl der Personen für die Listen-Benchmarks.
+     */
+    @Param({ "10", "500" })
+    public int size;
+
+    private final DtoMapper dtoMapper = new DtoMapperImpl();
+    private final WebMapper webMapper = new WebMapperImpl();
+    // same defaults as the ObjectMapper of Spring Boot
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private LdapOuSearchResultDTO ouSearchResult;
+    private List<de.muenchen.oss.ezldap.core.LdapBaseUserDTO> coreUsers;
+    private LdapUserDTO webUser;
+    private LdapOuDTO webOu;
+    private List<LdapBaseUserDTO> webUsers;
+
+    @Setup
+    public void setup() throws NamingException {
+        final LdapBaseUserAttributesMapper baseUserMapper = new LdapBaseUserAttributesMapper();
+        final LdapUserAttributesMapper userMapper = new LdapUserAttributesMapper(baseUserMapper);
+        this.ouSearchResult = LdapFixtures.ouSearchResult(1);
+        this.coreUsers = new ArrayList<>();
+        for (int i = 0; i < this.size; i++) {
+            this.coreUsers.add(baseUserMapper.mapFromAttributes(LdapFixtures.person(i)));
+        }
+        final de.muenchen.oss.ezldap.core.LdapOuDTO coreOu = this.dtoMapper.toLdapOuDTO(this.ouSearchResult);
+        coreOu.setLeitung(userMapper.mapFromAttributes(LdapFixtures.person(0)));
+        coreOu.setStellvertretung(userMapper.mapFromAttributes(LdapFixtures.person(1)));
+        this.webUser = this.webMapper.toWebDto(userMapper.mapFromAttributes(LdapFixtures.person(2)));
+        this.webOu = this.webMapper.toWebDto(coreOu);
+        this.webUsers = this.webMapper.toWebDtoList(this.coreUsers);
+    }
+
+    @Benchmark
+    public de.muenchen.oss.ezldap.core.LdapOuDTO toLdapOuDTO() {
+        return this.dtoMapper.toLdapOuDTO(this.ouSearchResult);
+    }
+
+    @Benchmark
+    public List<LdapBaseUserDTO> toWebDtoList() {
+        return this.webMapper.toWebDtoList(this.coreUsers);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.webUser);
+    }
+
+    @Benchmark
+    public byte[] serializeOu() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.webOu);
+    }
+
+    @Benchmark
+    public byte[] serializeUserList() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.webUsers);
+    }
+
+}
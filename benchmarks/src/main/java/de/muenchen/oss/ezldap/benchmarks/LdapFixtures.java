@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.benchmarks;
+
+import javax.naming.NamingException;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttributes;
+
+import de.muenchen.oss.ezldap.core.LdapOuAttributesMapper;
+import de.muenchen.oss.ezldap.core.LdapOuSearchResultDTO;
+
+/**
+ * Synthetische LDAP-Einträge für die Benchmarks, angelehnt an die Einträge des LHM-Verzeichnisses.
+ *
+ * @author michael.prankl
+ */
+final class LdapFixtures {
+
+    private LdapFixtures() {
+    }
+
+    /**
+     * Erzeugt die Attribute einer Person mit allen Attributen, die der
+     * {@link de.muenchen.oss.ezldap.core.LdapUserAttributesMapper} liest.
+     *
+     * @param i laufende Nummer, macht die Werte eindeutig
+     * @return die Attribute
+     */
+    static Attributes person(final int i) {
+        final BasicAttributes attributes = new BasicAttributes(true);
+        attributes.put("objectClass", "lhmPerson");
+        attributes.put("lhmObjectId", String.valueOf(100_000_000 + i));
+        attributes.put("uid", "erika.musterfrau" + i);
+        attributes.put("lhmTitle", "Frau");
+        attributes.put("givenName", "Erika");
+        attributes.put("sn", "Musterfrau" + i);
+        attributes.put("cn", "Erika Musterfrau" + i);
+        attributes.put("ou", "ITM-KM21");
+        attributes.put("lhmOULongname", "Kompetenzfeld Middleware");
+        attributes.put("lhmObjectPath", "LHM/ITM/ITM-KM/ITM-KM2/ITM-KM21");
+        attributes.put("lhmOberOrga", "ITM-KM2");
+        attributes.put("lhmReferatName", "it@M");
+        attributes.put("lhmFunctionalTitle", "Sachbearbeiterin");
+        attributes.put("title", "Verwaltungsinspektorin");
+        attributes.put("lhmWorkHours", "Mo-Fr 08:00-16:00");
+        attributes.put("mail", "erika.musterfrau" + i + "@muenchen.de");
+        attributes.put("lhmOrgaMail", "itm-km21@muenchen.de");
+        attributes.put("telephoneNumber", "+49 89 233-" + i);
+        attributes.put("facsimileTelephoneNumber", "+49 89 233-99999");
+        attributes.put("mobile", "+49 160 1234567");
+        attributes.put("roomNumber", "4.0" + (i % 100));
+        attributes.put("personalTitle", "Dr.");
+        attributes.put("l", "München");
+        attributes.put("postalCode", "80331");
+        attributes.put("street", "Marienplatz 8");
+        attributes.put("lhmOfficeLocalityName", "München");
+        attributes.put("lhmOfficePostalCode", "80335");
+        attributes.put("lhmOfficeStreetAddress", "Agnes-Pockels-Bogen 21");
+        return attributes;
+    }
+
+    /**
+     * Erzeugt die Attribute einer OU mit allen Attributen, die der {@link LdapOuAttributesMapper}
+     * liest.
+     *
+     * @param i laufende Nummer, macht die Werte eindeutig
+     * @return die Attribute
+     */
+    static Attributes ou(final int i) {
+        final BasicAttributes attributes = new BasicAttributes(true);
+        attributes.put("objectClass", "lhmOrganizationalUnit");
+        attributes.put("lhmObjectId", String.valueOf(200_000_000 + i));
+        attributes.put("ou", "ITM-KM2" + i);
+        attributes.put("lhmOUKey", "1.2.3." + i);
+        attributes.put("lhmOULongname", "Kompetenzfeld Middleware " + i);
+        attributes.put("lhmOUShortname", "ITM-KM2" + i);
+        attributes.put("postalCode", "80335");
+        attributes.put("street", "Agnes-Pockels-Bogen 21");
+        attributes.put("mail", "itm-km2" + i + "@muenchen.de");
+        attributes.put("telephoneNumber", "+49 89 233-0");
+        attributes.put("facsimileTelephoneNumber", "+49 89 233-99999");
+        attributes.put("lhmOUManager", "max.mustermann" + i);
+        attributes.put("lhmOU2ndManager", "erika.musterfrau" + i);
+        return attributes;
+    }
+
+    /**
+     * Mappt {@link #ou(int)} auf ein {@link LdapOuSearchResultDTO}.
+     *
+     * @param i laufende Nummer
+     * @return das {@link LdapOuSearchResultDTO}
+     */
+    static LdapOuSearchResultDTO ouSearchResult(final int i) {
+        try {
+            return new LdapOuAttributesMapper().mapFromAttributes(ou(i));
+        } catch (final NamingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
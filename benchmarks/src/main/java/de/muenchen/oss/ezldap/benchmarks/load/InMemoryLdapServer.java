@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.benchmarks.load;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.ldif.LDIFException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-Process LDAP-Server (UnboundID In-Memory Directory) mit dem LHM-Schema und den Search-Bases
+ * für Personen und OUs, wie sie auch der Integrationstest von lib-core verwendet.
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+final class InMemoryLdapServer implements AutoCloseable {
+
+    static final String BASE_DN = "dc=example,dc=org";
+    static final String USER_BASE = "o=users," + BASE_DN;
+    static final String OU_BASE = "o=oubase," + BASE_DN;
+    static final String BIND_DN = "cn=admin," + BASE_DN;
+    static final String BIND_PASSWORD = "admin";
+
+    private static final String SCHEMA_RESOURCE = "ldap/lhm.schema";
+
+    private final InMemoryDirectoryServer server;
+
+    /**
+     * Startet den Server auf einem freien Port.
+     *
+     * @throws LDAPException wenn der Server nicht gestartet werden kann
+     * @throws LDIFException wenn die Basis-Einträge ungültig sind
+     */
+    InMemoryLdapServer() throws LDAPException, LDIFException {
+        final InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.addAdditionalBindCredentials(BIND_DN, BIND_PASSWORD);
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("ldap", 0));
+        config.setSchema(Schema.mergeSchemas(Schema.getDefaultStandardSchema(), lhmSchema()));
+        // the attributes ezLDAP searches by, as in the production directory
+        config.setEqualityIndexAttributes("uid", "cn", "ou", "lhmObjectID", "lhmOUShortname", "lhmObjectReference");
+        config.setAccessLogHandler(null);
+        config.setMaxChangeLogEntries(0);
+        this.server = new InMemoryDirectoryServer(config);
+        this.server.add("dn: " + BASE_DN, "objectClass: top", "objectClass: domain", "dc: example");
+        this.server.add("dn: " + USER_BASE, "objectClass: top", "objectClass: organization", "objectClass: lhmObject", "o: users");
+        this.server.add("dn: " + OU_BASE, "objectClass: top", "objectClass: organization", "objectClass: lhmObject",
+                "objectClass: lhmOrganizationalUnit", "o: oubase", "lhmObjectID: 342", "lhmOUShortname: lhm");
+        this.server.startListening();
+        log.info("In-memory LDAP server listening on {}.", this.getUrl());
+    }
+
+    /**
+     * Fügt Einträge hinzu.
+     *
+     * @param entries die Einträge
+     * @throws LDAPException wenn ein Eintrag nicht hinzugefügt werden kann
+     */
+    void add(final List<Entry> entries) throws LDAPException {
+        this.server.addEntries(entries);
+    }
+
+    /**
+     * @return die LDAP-URL des Servers
+     */
+    String getUrl() {
+        return "ldap://localhost:" + this.server.getListenPort();
+    }
+
+    @Override
+    public void close() {
+        this.server.shutDown(true);
+    }
+
+    /**
+     * Liest das LHM-Schema im OpenLDAP-Format (attributetype/objectclass, Fortsetzungszeilen
+     * eingerückt) und überführt es in einen Schema-Eintrag.
+     */
+    private static Schema lhmSchema() throws LDAPException {
+        final List<String> lines = new ArrayList<>();
+        lines.add("dn: cn=schema");
+        lines.add("objectClass: top");
+        lines.add("objectClass: ldapSubentry");
+        lines.add("objectClass: subschema");
+        lines.add("cn: schema");
+        try (InputStream in = InMemoryLdapServer.class.getClassLoader().getResourceAsStream(SCHEMA_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Schema " + SCHEMA_RESOURCE + " not found on classpath.");
+            }
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            StringBuilder definition = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                if (Character.isWhitespace(line.charAt(0)) && definition != null) {
+                    definition.append(' ').append(line.strip());
+                    continue;
+                }
+                addDefinition(lines, definition);
+                definition = new StringBuilder(line.strip());
+            }
+            addDefinition(lines, definition);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Schema " + SCHEMA_RESOURCE + " could not be read.", e);
+        }
+        try {
+            return new Schema(new Entry(lines.toArray(String[]::new)));
+        } catch (final LDIFException e) {
+            throw new IllegalStateException("Schema " + SCHEMA_RESOURCE + " could not be converted.", e);
+        }
+    }
+
+    private static void addDefinition(final List<String> lines, final StringBuilder definition) {
+        if (definition == null) {
+            return;
+        }
+        final String value = definition.toString();
+        if (value.regionMatches(true, 0, "attributetype", 0, "attributetype".length())) {
+            lines.add("attributeTypes: " + value.substring("attributetype".length()).strip());
+        } else if (value.regionMatches(true, 0, "objectclass", 0, "objectclass".length())) {
+            lines.add("objectClasses: " + value.substring("objectclass".length()).strip());
+        }
+    }
+
+}
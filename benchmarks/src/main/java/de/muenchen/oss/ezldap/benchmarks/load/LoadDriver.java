@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.benchmarks.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Belastet einen Endpunkt für eine feste Dauer mit einer festen Anzahl paralleler Clients
+ * (geschlossenes Modell: jeder Client schickt die nächste Anfrage, sobald die Antwort da ist) und
+ * misst Durchsatz und Latenzen.
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+final class LoadDriver {
+
+    private final URI baseUri;
+    private final int clients;
+    private final Duration warmup;
+    private final Duration duration;
+    private final HttpClient httpClient;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param baseUri Basis-URI der REST-API, z.B. http://localhost:8080/v1/ldap
+     * @param clients Anzahl paralleler Clients
+     * @param warmup Dauer der nicht gemessenen Aufwärmphase je Endpunkt
+     * @param duration Dauer der Messung je Endpunkt
+     */
+    LoadDriver(final URI baseUri, final int clients, final Duration warmup, final Duration duration) {
+        this.baseUri = baseUri;
+        this.clients = clients;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    /**
+     * Belastet einen Endpunkt.
+     *
+     * @param endpoint Name des Endpunkts im Bericht
+     * @param request erzeugt je Aufruf eine Anfrage, erhält die Basis-URI
+     * @return das {@link Result}
+     * @throws InterruptedException wenn der Aufrufer unterbrochen wird
+     */
+    Result run(final String endpoint, final Function<URI, HttpRequest> request) throws InterruptedException {
+        log.info("Running {} for {} (warmup {}) with {} clients ...", endpoint, this.duration, this.warmup, this.clients);
+        // microseconds, 3 significant digits
+        final Histogram latencies = new ConcurrentHistogram(3);
+        final LongAdder errors = new LongAdder();
+        final long measureFrom = System.nanoTime() + this.warmup.toNanos();
+        final long end = measureFrom + this.duration.toNanos();
+        // virtual threads, so that the number of clients is not limited by the driver
+        final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < this.clients; i++) {
+            workers.execute(() -> {
+                long now = System.nanoTime();
+                while (now < end && !Thread.currentThread().isInterrupted()) {
+                    boolean failed;
+                    try {
+                        final int status = this.httpClient.send(request.apply(this.baseUri), HttpResponse.BodyHandlers.discarding())
+                                .statusCode();
+                        failed = status >= 500 || status >= 400 && status != 404;
+                    } catch (final IOException e) {
+                        failed = true;
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    final long done = System.nanoTime();
+                    if (now >= measureFrom) {
+                        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(done - now));
+                        if (failed) {
+                            errors.increment();
+                        }
+                    }
+                    now = done;
+                }
+            });
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(this.warmup.plus(this.duration).toSeconds() + 60, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        return new Result(endpoint, latencies, errors.sum(), this.duration);
+    }
+
+    /**
+     * Schreibt die Ergebnisse als Tabelle.
+     *
+     * @param results die Ergebnisse
+     * @param out Ziel der Ausgabe
+     */
+    static void print(final List<Result> results, final PrintStream out) {
+        out.printf("%-28s %10s %10s %8s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms",
+                "p99.9 ms", "max ms");
+        for (final Result result : results) {
+            final Histogram latencies = result.latencies();
+            out.printf("%-28s %10d %10.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", result.endpoint(), latencies.getTotalCount(),
+                    latencies.getTotalCount() / (result.duration().toMillis() / 1000d), result.errors(),
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                    millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()));
+        }
+    }
+
+    private static double millis(final long micros) {
+        return micros / 1000d;
+    }
+
+    /**
+     * Ergebnis der Belastung eines Endpunkts.
+     *
+     * @param endpoint Name des Endpunkts
+     * @param latencies Latenzen in Mikrosekunden
+     * @param errors Anzahl fehlgeschlagener Anfragen (Verbindungsfehler, Status 4xx außer 404, 5xx)
+     * @param duration Dauer der Messung
+     */
+    record Result(String endpoint, Histogram latencies, long errors, Duration duration) {
+    }
+
+}
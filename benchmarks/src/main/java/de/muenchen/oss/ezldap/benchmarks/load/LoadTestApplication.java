@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.benchmarks.load;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import de.muenchen.oss.ezldap.spring.EnableEzLDAP;
+
+/**
+ * Lasttest gegen den vollständigen REST-Stack (lib-spring mit {@link EnableEzLDAP}) und einen
+ * In-Process LDAP-Server mit einem synthetischen Verzeichnis, ohne Docker und Netzwerk.
+ * <p>
+ * Optionen (zusätzlich zu allen <code>ezldap.*</code> Properties, z.B.
+ * <code>--ezldap.cache.enabled=true</code>):
+ * <ul>
+ * <li><code>--load.persons</code>: Anzahl der Personen (default 10000)</li>
+ * <li><code>--load.depth</code>: Tiefe des OU-Baums (default 5)</li>
+ * <li><code>--load.ous</code>: Anzahl der OUs (default persons / 25)</li>
+ * <li><code>--load.clients</code>: parallele Clients (default 16)</li>
+ * <li><code>--load.warmup</code>, <code>--load.duration</code>: Dauer je Endpunkt (default 10s,
+ * 30s)</li>
+ * <li><code>--load.endpoints</code>: kommagetrennte Auswahl der Endpunkte (default alle)</li>
+ * <li><code>--load.seed</code>: Seed für den OU-Baum (default 42)</li>
+ * <li><code>--load.pinned-threshold</code>: mit <code>--spring.threads.virtual.enabled=true</code>
+ * werden Pinnings virtueller Threads ab dieser Dauer gezählt (default 20ms)</li>
+ * </ul>
+ *
+ * @author michael.prankl
+ */
+@SpringBootApplication
+@EnableEzLDAP
+public class LoadTestApplication {
+
+    private static final int BATCH_SIZE = 50;
+
+    public static void main(final String[] args) throws Exception {
+        final SimpleCommandLinePropertySource options = new SimpleCommandLinePropertySource(args);
+        final int persons = intOption(options, "load.persons", 10_000);
+        final int depth = intOption(options, "load.depth", 5);
+        final int ous = intOption(options, "load.ous", Math.max(depth, persons / 25));
+        final int clients = intOption(options, "load.clients", 16);
+        final Duration warmup = DurationStyle.detectAndParse(option(options, "load.warmup", "10s"));
+        final Duration duration = DurationStyle.detectAndParse(option(options, "load.duration", "30s"));
+        final long seed = Long.parseLong(option(options, "load.seed", "42"));
+        final String endpointSelection = option(options, "load.endpoints", "");
+        final Duration pinnedThreshold = DurationStyle.detectAndParse(option(options, "load.pinned-threshold", "20ms"));
+
+        try (InMemoryLdapServer ldap = new InMemoryLdapServer()) {
+            final SyntheticDirectory directory = SyntheticDirectory.generate(ldap, persons, ous, depth, seed);
+            final SpringApplication application = new SpringApplication(LoadTestApplication.class);
+            application.setDefaultProperties(Map.of(
+                    "server.port", "0",
+                    "ezldap.ldap.url", ldap.getUrl(),
+                    "ezldap.ldap.user-dn", InMemoryLdapServer.BIND_DN,
+                    "ezldap.ldap.password", InMemoryLdapServer.BIND_PASSWORD,
+                    "ezldap.ldap.user-search-base", InMemoryLdapServer.USER_BASE,
+                    "ezldap.ldap.ou-search-base", InMemoryLdapServer.OU_BASE));
+            try (ConfigurableApplicationContext context = application.run(args)) {
+                final URI baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                        + context.getEnvironment().getProperty("ezldap.api-path", "") + "/v1/ldap");
+                final Map<String, Function<URI, HttpRequest>> endpoints = endpoints(directory);
+                if (!endpointSelection.isBlank()) {
+                    final Set<String> selected = Set.of(endpointSelection.split(","));
+                    endpoints.keySet().retainAll(selected);
+                }
+                final boolean virtualThreads = Threading.VIRTUAL.isActive(context.getEnvironment());
+                final LoadDriver driver = new LoadDriver(baseUri, clients, warmup, duration);
+                final List<LoadDriver.Result> results = new ArrayList<>();
+                try (PinnedThreadMonitor pinned = virtualThreads ? new PinnedThreadMonitor(pinnedThreshold) : null) {
+                    for (final Map.Entry<String, Function<URI, HttpRequest>> endpoint : endpoints.entrySet()) {
+                        results.add(driver.run(endpoint.getKey(), endpoint.getValue()));
+                    }
+                    System.out.printf("%n%d persons, %d ous (depth %d), %d clients, %s threads, %s per endpoint%n%n", persons,
+                            Math.max(ous, depth), depth, clients, virtualThreads ? "virtual" : "platform", duration);
+                    LoadDriver.print(results, System.out);
+                    if (pinned != null) {
+                        pinned.print(System.out);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Die Endpunkte der REST-API mit zufällig gewählten, existierenden Schlüsseln.
+     */
+    private static Map<String, Function<URI, HttpRequest>> endpoints(final SyntheticDirectory directory) {
+        final Map<String, Function<URI, HttpRequest>> endpoints = new LinkedHashMap<>();
+        endpoints.put("user", uri -> get(uri, "/user/" + random(directory.getPersonIds())));
+        endpoints.put("user-by-uid", uri -> get(uri, "/search/findByUid?uid=" + encode(random(directory.getUids()))));
+        endpoints.put("user-wildcard", uri -> {
+            final String uid = random(directory.getUids());
+            return get(uri, "/search/findByUidWildcard?uid=" + encode(uid.substring(0, uid.indexOf('.') + 3) + "*"));
+        });
+        endpoints.put("user-outree", uri -> get(uri, "/user/outree/" + random(directory.getPersonIds())));
+        endpoints.put("users-by-ou", uri -> get(uri, "/search/findByOu?ou=" + encode(random(directory.getOuShortcodes()))));
+        endpoints.put("users-batch",
+                uri -> post(uri, "/users/batch", "{\"lhmObjectIds\":" + randomJsonArray(directory.getPersonIds()) + "}"));
+        endpoints.put("ou", uri -> get(uri, "/ou/" + random(directory.getOuIds())));
+        endpoints.put("ou-by-shortcode", uri -> get(uri, "/ou/search/findByOu?ou=" + encode(random(directory.getOuShortcodes()))));
+        endpoints.put("outree", uri -> get(uri, "/outree/" + random(directory.getOuShortcodes())));
+        endpoints.put("ous-batch", uri -> post(uri, "/ou/batch", "{\"lhmObjectIds\":" + randomJsonArray(directory.getOuIds()) + "}"));
+        return endpoints;
+    }
+
+    private static HttpRequest get(final URI baseUri, final String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path)).GET().build();
+    }
+
+    private static HttpRequest post(final URI baseUri, final String path, final String json) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static String random(final List<String> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+    private static String randomJsonArray(final List<String> values) {
+        return IntStream.range(0, BATCH_SIZE).mapToObj(i -> "\"" + random(values) + "\"").collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static String encode(final String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String option(final SimpleCommandLinePropertySource options, final String name, final String defaultValue) {
+        final String value = options.getProperty(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static int intOption(final SimpleCommandLinePropertySource options, final String name, final int defaultValue) {
+        return Integer.parseInt(option(options, name, String.valueOf(defaultValue)));
+    }
+
+}
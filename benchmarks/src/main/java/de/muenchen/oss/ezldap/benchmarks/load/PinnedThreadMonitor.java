@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.benchmarks.load;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Zeichnet über JFR auf, wie oft virtuelle Threads ihren Carrier-Thread blockiert haben (Pinning,
+ * z.B. beim Warten auf eine LDAP-Antwort innerhalb eines <code>synchronized</code> Blocks), und
+ * fasst die Stellen zusammen.
+ *
+ * @author michael.prankl
+ */
+final class PinnedThreadMonitor implements AutoCloseable {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int FRAMES = 6;
+
+    private final RecordingStream stream = new RecordingStream();
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+    private final LongAdder events = new LongAdder();
+    private final Duration threshold;
+
+    /**
+     * Startet die Aufzeichnung.
+     *
+     * @param threshold Ereignisse ab dieser Dauer werden gezählt
+     */
+    PinnedThreadMonitor(final Duration threshold) {
+        this.threshold = threshold;
+        this.stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        this.stream.onEvent(EVENT, this::record);
+        this.stream.startAsync();
+    }
+
+    private void record(final RecordedEvent event) {
+        this.events.increment();
+        this.sites.computeIfAbsent(site(event), key -> new LongAdder()).increment();
+    }
+
+    private static String site(final RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "(no stack trace)";
+        }
+        final StringBuilder site = new StringBuilder();
+        final List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        for (int i = 0; i < Math.min(FRAMES, frames.size()); i++) {
+            final RecordedFrame frame = frames.get(i);
+            site.append("\n    at ").append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber());
+        }
+        return site.toString();
+    }
+
+    /**
+     * Schreibt die Anzahl der Ereignisse und die häufigsten Stellen.
+     *
+     * @param out Ziel der Ausgabe
+     */
+    void print(final PrintStream out) {
+        out.printf("%n%d pinned virtual threads (>= %d ms)%n", this.events.sum(), this.threshold.toMillis());
+        this.sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> site) -> site.getValue().sum()).reversed())
+                .limit(5)
+                .forEach(site -> out.printf("%n%d x%s%n", site.getValue().sum(), site.getKey()));
+    }
+
+    @Override
+    public void close() {
+        this.stream.close();
+    }
+
+}
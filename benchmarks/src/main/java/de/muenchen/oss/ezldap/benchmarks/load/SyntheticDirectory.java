@@ -0,0 +1,185 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.benchmarks.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Erzeugt ein synthetisches Verzeichnis: einen OU-Baum mit vorgegebener Tiefe unterhalb der OU
+ * Search-Base und Personen unterhalb der User Search-Base, die gleichmäßig auf die OUs verteilt
+ * sind.
+ * <p>
+ * Wie im LHM-Verzeichnis ist bei der Hälfte der OUs die Leitung/Stellvertretung über lhmOUManager
+ * und lhmOU2ndManager gesetzt, bei der anderen Hälfte über lhmRankInOu 01/03 und
+ * lhmObjectReference der Personen.
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+@Getter
+final class SyntheticDirectory {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final String[] GIVEN_NAMES = { "erika", "max", "anna", "lukas", "maria", "felix", "sophie", "paul", "lena", "jonas" };
+    private static final String[] SURNAMES = { "mustermann", "huber", "bauer", "wagner", "maier", "schmid", "fischer", "weber", "gruber",
+            "hofmann" };
+
+    private final List<String> personIds = new ArrayList<>();
+    private final List<String> uids = new ArrayList<>();
+    private final List<String> ouIds = new ArrayList<>();
+    private final List<String> ouShortcodes = new ArrayList<>();
+
+    private SyntheticDirectory() {
+    }
+
+    /**
+     * Erzeugt das Verzeichnis im {@link InMemoryLdapServer}.
+     *
+     * @param server der {@link InMemoryLdapServer}
+     * @param persons Anzahl der Personen
+     * @param ous Anzahl der OUs, mindestens die Tiefe
+     * @param depth Tiefe des OU-Baums
+     * @param seed Seed für die Verteilung der OUs im Baum
+     * @return die Schlüssel der erzeugten Einträge
+     * @throws LDAPException wenn Einträge nicht hinzugefügt werden können
+     */
+    static SyntheticDirectory generate(final InMemoryLdapServer server, final int persons, final int ous, final int depth,
+            final long seed) throws LDAPException {
+        final SyntheticDirectory directory = new SyntheticDirectory();
+        final long start = System.nanoTime();
+        final Random random = new Random(seed);
+        final int ouCount = Math.max(ous, depth);
+        final List<Ou> tree = new ArrayList<>(ouCount);
+        final List<Ou> expandable = new ArrayList<>();
+        final List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < ouCount; i++) {
+            // a chain of depth OUs first, so that the tree reaches the requested depth
+            final Ou parent = i < depth ? (i == 0 ? null : tree.get(i - 1)) : expandable.get(random.nextInt(expandable.size()));
+            final Ou ou = new Ou(i, "ou=Einheit " + i + "," + (parent != null ? parent.dn() : InMemoryLdapServer.OU_BASE),
+                    String.valueOf(40_000_000 + i), "OU-" + i, parent != null ? parent.level() + 1 : 1);
+            tree.add(ou);
+            if (ou.level() < depth) {
+                expandable.add(ou);
+            }
+            directory.ouIds.add(ou.id());
+            directory.ouShortcodes.add(ou.shortcode());
+            batch.add(ouEntry(ou, ouCount, persons));
+            flush(server, batch, false);
+        }
+        flush(server, batch, true);
+        for (int p = 0; p < persons; p++) {
+            final Ou ou = tree.get(p % ouCount);
+            final Entry person = personEntry(p, ou);
+            // first and second person of an ou without manager attributes are Leitung/Stellvertretung
+            final int rank = p / ouCount;
+            if (!hasManagerAttributes(ou) && rank < 2) {
+                person.addAttribute("lhmObjectReference", ou.id());
+                person.addAttribute("lhmRankInOu", rank == 0 ? "01" : "03");
+            }
+            directory.personIds.add(person.getAttributeValue("lhmObjectID"));
+            directory.uids.add(person.getAttributeValue("uid"));
+            batch.add(person);
+            flush(server, batch, false);
+        }
+        flush(server, batch, true);
+        log.info("Generated {} ous (depth {}) and {} persons in {} ms.", ouCount, depth, persons,
+                (System.nanoTime() - start) / 1_000_000);
+        return directory;
+    }
+
+    private static void flush(final InMemoryLdapServer server, final List<Entry> batch, final boolean force) throws LDAPException {
+        if (!batch.isEmpty() && (force || batch.size() >= BATCH_SIZE)) {
+            server.add(batch);
+            batch.clear();
+        }
+    }
+
+    private static boolean hasManagerAttributes(final Ou ou) {
+        return ou.index() % 2 == 0;
+    }
+
+    private static Entry ouEntry(final Ou ou, final int ouCount, final int persons) {
+        final Entry entry = new Entry(ou.dn());
+        entry.addAttribute("objectClass", "top", "organizationalUnit", "lhmObject", "lhmOrganizationalUnit");
+        entry.addAttribute("ou", "Einheit " + ou.index());
+        entry.addAttribute("lhmObjectID", ou.id());
+        entry.addAttribute("lhmOUShortname", ou.shortcode());
+        entry.addAttribute("lhmOULongname", "Einheit " + ou.index() + " der Ebene " + ou.level());
+        entry.addAttribute("mail", ou.shortcode().toLowerCase() + "@example.org");
+        entry.addAttribute("telephoneNumber", "+49 89 233-" + ou.index());
+        if (hasManagerAttributes(ou)) {
+            // persons are assigned round-robin, the first two persons of this ou are ou.index() and ouCount + ou.index()
+            if (ou.index() < persons) {
+                entry.addAttribute("lhmOUManager", uid(ou.index()));
+            }
+            if (ouCount + ou.index() < persons) {
+                entry.addAttribute("lhmOU2ndManager", uid(ouCount + ou.index()));
+            }
+        }
+        return entry;
+    }
+
+    private static Entry personEntry(final int p, final Ou ou) {
+        final String givenName = GIVEN_NAMES[p % GIVEN_NAMES.length];
+        final String surname = SURNAMES[(p / GIVEN_NAMES.length) % SURNAMES.length];
+        final Entry entry = new Entry("cn=Person " + p + "," + InMemoryLdapServer.USER_BASE);
+        entry.addAttribute("objectClass", "top", "person", "inetOrgPerson", "lhmObject", "lhmPerson");
+        entry.addAttribute("cn", capitalize(givenName) + " " + capitalize(surname) + " " + p);
+        entry.addAttribute("givenName", capitalize(givenName));
+        entry.addAttribute("sn", capitalize(surname));
+        entry.addAttribute("uid", uid(p));
+        entry.addAttribute("lhmObjectID", String.valueOf(10_000_000 + p));
+        entry.addAttribute("lhmTitle", p % 2 == 0 ? "Frau" : "Herr");
+        entry.addAttribute("ou", ou.shortcode());
+        entry.addAttribute("mail", uid(p) + "@example.org");
+        entry.addAttribute("telephoneNumber", "+49 89 233-" + p);
+        entry.addAttribute("roomNumber", String.valueOf(p % 500));
+        entry.addAttribute("title", "Sachbearbeitung");
+        entry.addAttribute("l", "München");
+        entry.addAttribute("postalCode", "80331");
+        entry.addAttribute("street", "Marienplatz 8");
+        entry.addAttribute("lhmOfficePostalCode", "80335");
+        entry.addAttribute("lhmOfficeStreetAddress", "Agnes-Pockels-Bogen 21");
+        return entry;
+    }
+
+    private static String uid(final int p) {
+        return GIVEN_NAMES[p % GIVEN_NAMES.length] + "." + SURNAMES[(p / GIVEN_NAMES.length) % SURNAMES.length] + p;
+    }
+
+    private static String capitalize(final String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    private record Ou(int index, String dn, String id, String shortcode, int level) {
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+
+/**
+ * Zuordnung von LDAP-Attribut-IDs zu den Settern eines DTOs, einmal je Mapper aufgebaut.
+ * <p>
+ * {@link #apply(Attributes, Object)} durchläuft die gelieferten Attribute eines Treffers genau
+ * einmal und ruft je bekanntem Attribut den Setter mit dem ersten Wert auf, '%%' wird dabei wie in
+ * {@link LdapBaseUserAttributesMapper#safelyGet(String, Attributes)} durch Zeilenumbrüche ersetzt.
+ * Attribut-IDs werden zunächst exakt (Schreibweise des Schemas), dann ohne Beachtung der
+ * Groß-/Kleinschreibung gesucht.
+ *
+ * @param <T> Typ des DTOs
+ * @author michael.prankl
+ */
+final class AttributeTable<T> {
+
+    private final Map<String, BiConsumer<? super T, String>> exact = new LinkedHashMap<>();
+    private final Map<String, BiConsumer<? super T, String>> ignoreCase = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Ordnet einem Attribut einen Setter zu.
+     *
+     * @param attributeId die Attribut-ID
+     * @param setter der Setter
+     * @return diese {@link AttributeTable}
+     */
+    AttributeTable<T> map(final String attributeId, final BiConsumer<? super T, String> setter) {
+        this.exact.put(attributeId, setter);
+        this.ignoreCase.put(attributeId, setter);
+        return this;
+    }
+
+    /**
+     * Übernimmt alle Zuordnungen einer anderen {@link AttributeTable}, z.B. eines Basis-DTOs.
+     *
+     * @param other die andere {@link AttributeTable}
+     * @return diese {@link AttributeTable}
+     */
+    AttributeTable<T> mapAll(final AttributeTable<? super T> other) {
+        other.exact.forEach(this::map);
+        return this;
+    }
+
+    /**
+     * @return die Attribut-IDs, in der Reihenfolge der Zuordnung
+     */
+    String[] getAttributeIds() {
+        return this.exact.keySet().toArray(String[]::new);
+    }
+
+    /**
+     * Setzt die Werte der Attribute eines Treffers im DTO.
+     *
+     * @param attributes die Attribute des Treffers
+     * @param target das DTO
+     * @return das DTO
+     * @throws NamingException wenn die Attribute nicht gelesen werden können
+     */
+    T apply(final Attributes attributes, final T target) throws NamingException {
+        final NamingEnumeration<? extends Attribute> all = attributes.getAll();
+        while (all.hasMore()) {
+            final Attribute attribute = all.next();
+            BiConsumer<? super T, String> setter = this.exact.get(attribute.getID());
+            if (setter == null) {
+                setter = this.ignoreCase.get(attribute.getID());
+                if (setter == null) {
+                    continue;
+                }
+            }
+            if (attribute.size() > 0 && attribute.get() instanceof String value) {
+                setter.accept(target, value.indexOf("%%") < 0 ? value : value.replace("%%", "\n"));
+            }
+        }
+        return target;
+    }
+
+}
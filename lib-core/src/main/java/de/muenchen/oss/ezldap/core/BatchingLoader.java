@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sammelt einzelne Lookups, die innerhalb eines Zeitfensters eintreffen, und lädt sie gemeinsam mit
+ * einem Batch-Lookup. Gleiche Schlüssel innerhalb eines Fensters werden nur einmal geladen.
+ * <p>
+ * Ein Batch wird ausgeführt, sobald das Zeitfenster seit dem ersten Lookup abgelaufen ist oder die
+ * maximale Batch-Größe erreicht wurde, immer auf dem Scheduler und damit ohne die
+ * {@link LdapDeadline} eines Aufrufers. Jeder Aufrufer wartet höchstens bis zu seiner eigenen
+ * Deadline.
+ *
+ * @author michael.prankl
+ * @param <V> Typ der geladenen Werte
+ */
+@Slf4j
+final class BatchingLoader<V> {
+
+    private final String name;
+    private final Function<Collection<String>, Map<String, V>> batchLookup;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    private final Set<CompletableFuture<V>> incomplete = ConcurrentHashMap.newKeySet();
+    private Map<String, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private boolean closed;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param name Name für Logging
+     * @param batchLookup lädt die Werte je Schlüssel, nicht gefundene Schlüssel fehlen
+     * @param window Zeitfenster, in dem Lookups gesammelt werden
+     * @param maxBatchSize maximale Anzahl an Schlüsseln je Batch
+     * @param scheduler führt die Batches aus
+     */
+    BatchingLoader(final String name, final Function<Collection<String>, Map<String, V>> batchLookup, final Duration window,
+            final int maxBatchSize, final ScheduledExecutorService scheduler) {
+        this.name = name;
+        this.batchLookup = batchLookup;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Lädt den Wert zum Schlüssel und wartet, bis der Batch ausgeführt wurde, bei gesetzter
+     * {@link LdapDeadline} höchstens bis zur Deadline.
+     *
+     * @param key der Schlüssel
+     * @return der Wert oder {@link Optional#empty()}, wenn nicht gefunden
+     * @throws LdapDeadlineExceededException wenn die Deadline vor dem Batch abläuft
+     * @throws IllegalStateException wenn der Loader geschlossen ist
+     */
+    Optional<V> load(final String key) {
+        CompletableFuture<V> future;
+        Map<String, CompletableFuture<V>> fullBatch = null;
+        synchronized (this.lock) {
+            if (this.closed) {
+                throw this.closedException();
+            }
+            future = this.pending.get(key);
+            if (future == null) {
+                final CompletableFuture<V> created = new CompletableFuture<>();
+                this.incomplete.add(created);
+                created.whenComplete((value, e) -> this.incomplete.remove(created));
+                future = created;
+                this.pending.put(key, future);
+                if (this.pending.size() == 1) {
+                    final Map<String, CompletableFuture<V>> batch = this.pending;
+                    this.scheduler.schedule(() -> this.dispatchIfPending(batch), this.window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                if (this.pending.size() >= this.maxBatchSize) {
+                    fullBatch = this.pending;
+                    this.pending = new LinkedHashMap<>();
+                }
+            }
+        }
+        if (fullBatch != null) {
+            this.dispatchOnScheduler(fullBatch);
+        }
+        final Optional<Duration> remaining = LdapDeadline.remaining();
+        if (remaining.isEmpty()) {
+            try {
+                return Optional.ofNullable(future.join());
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        try {
+            return Optional.ofNullable(future.get(remaining.get().toNanos(), TimeUnit.NANOSECONDS));
+        } catch (final TimeoutException e) {
+            throw new LdapDeadlineExceededException("Request deadline exceeded while waiting for " + this.name + " batch", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LdapDeadlineExceededException("Interrupted while waiting for " + this.name + " batch", e);
+        }
+    }
+
+    /**
+     * Schließt den Loader. Alle noch wartenden Aufrufer erhalten eine {@link IllegalStateException},
+     * weitere Lookups werden abgelehnt.
+     */
+    void close() {
+        synchronized (this.lock) {
+            this.closed = true;
+            this.pending = new LinkedHashMap<>();
+        }
+        final IllegalStateException closedException = this.closedException();
+        this.incomplete.forEach(future -> future.completeExceptionally(closedException));
+    }
+
+    private IllegalStateException closedException() {
+        return new IllegalStateException(this.name + " loader is closed");
+    }
+
+    private void dispatchOnScheduler(final Map<String, CompletableFuture<V>> batch) {
+        try {
+            this.scheduler.execute(() -> this.dispatch(batch));
+        } catch (final RejectedExecutionException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void dispatchIfPending(final Map<String, CompletableFuture<V>> batch) {
+        synchronized (this.lock) {
+            if (this.pending != batch) {
+                // already dispatched because the max batch size was reached
+                return;
+            }
+            this.pending = new LinkedHashMap<>();
+        }
+        this.dispatch(batch);
+    }
+
+    private void dispatch(final Map<String, CompletableFuture<V>> batch) {
+        log.debug("Dispatching {} batch with {} keys.", this.name, batch.size());
+        try {
+            final Map<String, V> results = this.batchLookup.apply(batch.keySet());
+            batch.forEach((key, future) -> future.complete(results.get(key)));
+        } catch (final RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+}
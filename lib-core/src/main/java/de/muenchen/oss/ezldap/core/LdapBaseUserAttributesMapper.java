@@ -22,8 +22,6 @@
  */
 package de.muenchen.oss.ezldap.core;
 
-import java.util.regex.Pattern;
-
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
 import javax.naming.directory.Attributes;
@@ -39,23 +37,37 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class LdapBaseUserAttributesMapper implements AttributesMapper<LdapBaseUserDTO> {
 
-    private static final Pattern DOUBLE_PERCENTAGE_PATTERN = Pattern.compile("\\%\\%");
+    /**
+     * Die von {@link #mapFromAttributes(Attributes)} gelesenen LDAP-Attribute und ihre Setter.
+     */
+    static final AttributeTable<LdapBaseUserDTO> TABLE = new AttributeTable<LdapBaseUserDTO>()
+            .map("lhmObjectId", LdapBaseUserDTO::setLhmObjectId)
+            .map("uid", LdapBaseUserDTO::setUid)
+            .map("lhmTitle", LdapBaseUserDTO::setAnrede)
+            .map("givenName", LdapBaseUserDTO::setVorname)
+            .map("sn", LdapBaseUserDTO::setNachname)
+            .map("cn", LdapBaseUserDTO::setCn)
+            .map("ou", LdapBaseUserDTO::setOu);
+
+    private static final String[] ATTRIBUTES = TABLE.getAttributeIds();
 
     @Override
     public LdapBaseUserDTO mapFromAttributes(Attributes attributes) throws NamingException {
-        LdapBaseUserDTO u = new LdapBaseUserDTO();
-
-        u.setLhmObjectId(safelyGet("lhmObjectId", attributes));
-        u.setUid(safelyGet("uid", attributes));
-        u.setAnrede(safelyGet("lhmTitle", attributes));
-        u.setVorname(safelyGet("givenName", attributes));
-        u.setNachname(safelyGet("sn", attributes));
-        u.setCn(safelyGet("cn", attributes));
-        u.setOu(safelyGet("ou", attributes));
+        LdapBaseUserDTO u = TABLE.apply(attributes, new LdapBaseUserDTO());
         log.debug("Mapped user {}.", u);
         return u;
     }
 
+    /**
+     * Liefert die LDAP-Attribute, die dieser Mapper liest. Suchen können damit auf diese Attribute
+     * beschränkt werden.
+     *
+     * @return die Attribut-IDs
+     */
+    public String[] getAttributes() {
+        return ATTRIBUTES.clone();
+    }
+
     /**
      * Liest den Value zu Attribut und ersetzt '%%' mit Line-Breaks.
      *
@@ -69,15 +81,13 @@ public class LdapBaseUserAttributesMapper implements AttributesMapper<LdapBaseUs
         if (a != null) {
             try {
                 value = (String) a.get();
-                if (value != null && value.contains("%%")) {
-                    log.debug("Replacing '%%' in value {} with line-breaks", value);
-                    value = DOUBLE_PERCENTAGE_PATTERN.matcher(value).replaceAll("\n");
+                if (value != null && value.indexOf("%%") >= 0) {
+                    value = value.replace("%%", "\n");
                 }
             } catch (NamingException e) {
-                log.debug(String.format("Exception while accessing attribute '%s'"), key);
+                log.debug("Exception while accessing attribute '{}'", key, e);
             }
         }
-        log.debug("Resolved attribute['{}']: {}", key, value);
         return value;
     }
 
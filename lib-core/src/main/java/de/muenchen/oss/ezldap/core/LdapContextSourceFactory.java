@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.pool2.factory.PoolConfig;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+import org.springframework.ldap.pool2.validation.DefaultDirContextValidator;
+
+/**
+ * Erzeugt {@link ContextSource}s für den LDAP-Zugriff, wahlweise mit gepoolten Verbindungen.
+ *
+ * @author michael.prankl
+ */
+public final class LdapContextSourceFactory {
+
+    private static final String CONNECT_TIMEOUT = "com.sun.jndi.ldap.connect.timeout";
+    private static final String READ_TIMEOUT = "com.sun.jndi.ldap.read.timeout";
+
+    private LdapContextSourceFactory() {
+    }
+
+    /**
+     * Erzeugt eine (ungepoolte) {@link LdapContextSource}.
+     *
+     * @param ldapUrl die LDAP-URL (z.B. 'ldaps://ldap.example.org:636')
+     * @param ldapUserDn LDAP-Zugangsuser (DN)
+     * @param ldapPassword LDAP-Zugangsuser Passwort
+     * @return die initialisierte {@link LdapContextSource}
+     */
+    public static LdapContextSource createContextSource(final String ldapUrl, final String ldapUserDn, final String ldapPassword) {
+        return createContextSource(ldapUrl, ldapUserDn, ldapPassword, null, null);
+    }
+
+    /**
+     * Erzeugt eine (ungepoolte) {@link LdapContextSource} mit Timeouts.
+     *
+     * @param ldapUrl die LDAP-URL (z.B. 'ldaps://ldap.example.org:636')
+     * @param ldapUserDn LDAP-Zugangsuser (DN)
+     * @param ldapPassword LDAP-Zugangsuser Passwort
+     * @param connectTimeout Timeout für den Verbindungsaufbau, <code>null</code> für keinen
+     * @param readTimeout Timeout für das Warten auf eine Antwort, <code>null</code> für keinen
+     * @return die initialisierte {@link LdapContextSource}
+     */
+    public static LdapContextSource createContextSource(final String ldapUrl, final String ldapUserDn, final String ldapPassword,
+            final Duration connectTimeout, final Duration readTimeout) {
+        final LdapContextSource ldapContextSource = new LdapContextSource();
+        ldapContextSource.setUrl(ldapUrl);
+        ldapContextSource.setUserDn(ldapUserDn);
+        ldapContextSource.setPassword(ldapPassword);
+        ldapContextSource.setBaseEnvironmentProperties(timeoutEnvironment(connectTimeout, readTimeout));
+        // we need to call this manually if no Spring context present
+        ldapContextSource.afterPropertiesSet();
+        return ldapContextSource;
+    }
+
+    /**
+     * Liefert die JNDI-Umgebung für Connect- und Read-Timeout, z.B. für
+     * {@link LdapContextSource#setBaseEnvironmentProperties(Map)}.
+     *
+     * @param connectTimeout Timeout für den Verbindungsaufbau, <code>null</code> für keinen
+     * @param readTimeout Timeout für das Warten auf eine Antwort, <code>null</code> für keinen
+     * @return die JNDI-Umgebung
+     */
+    public static Map<String, Object> timeoutEnvironment(final Duration connectTimeout, final Duration readTimeout) {
+        final Map<String, Object> environment = new HashMap<>();
+        if (connectTimeout != null && connectTimeout.isPositive()) {
+            environment.put(CONNECT_TIMEOUT, String.valueOf(connectTimeout.toMillis()));
+        }
+        if (readTimeout != null && readTimeout.isPositive()) {
+            environment.put(READ_TIMEOUT, String.valueOf(readTimeout.toMillis()));
+        }
+        return environment;
+    }
+
+    /**
+     * Legt einen Connection-Pool um die angegebene {@link ContextSource}. Ausgeliehene Verbindungen
+     * werden über den {@link DefaultDirContextValidator} geprüft, sofern in der {@link PoolConfig}
+     * "test-on-borrow" bzw. "test-while-idle" aktiviert ist.
+     *
+     * @param target die {@link ContextSource}, über die neue Verbindungen aufgebaut werden
+     * @param poolConfig die Konfiguration des Pools
+     * @return die gepoolte {@link ContextSource}
+     */
+    public static PooledContextSource createPooledContextSource(final ContextSource target, final PoolConfig poolConfig) {
+        final PooledContextSource pooledContextSource = new PooledContextSource(poolConfig);
+        pooledContextSource.setContextSource(target);
+        pooledContextSource.setDirContextValidator(new DefaultDirContextValidator());
+        return pooledContextSource;
+    }
+
+}
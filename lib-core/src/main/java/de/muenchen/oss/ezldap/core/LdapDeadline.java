@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Deadline des aktuellen Requests (je Thread). Der {@link LdapService} übergibt die verbleibende
+ * Zeit als Time Limit an jede LDAP-Suche, wartet höchstens bis zur Deadline auf das Ergebnis und
+ * bricht mit einer {@link LdapDeadlineExceededException} ab, sobald sie überschritten ist.
+ * <p>
+ * Die Deadline gilt nur für den Thread, der sie gesetzt hat, nach Abschluss des Requests ist sie
+ * mit {@link #clear()} zu entfernen.
+ *
+ * @author michael.prankl
+ */
+public final class LdapDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private LdapDeadline() {
+    }
+
+    /**
+     * Setzt die Deadline des aktuellen Threads.
+     *
+     * @param budget verbleibende Zeit ab jetzt
+     */
+    public static void set(final Duration budget) {
+        DEADLINE_NANOS.set(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * Entfernt die Deadline des aktuellen Threads.
+     */
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /**
+     * @return verbleibende Zeit bis zur Deadline (negativ, wenn überschritten), leer ohne Deadline
+     */
+    public static Optional<Duration> remaining() {
+        final Long deadline = DEADLINE_NANOS.get();
+        return deadline == null ? Optional.empty() : Optional.of(Duration.ofNanos(deadline - System.nanoTime()));
+    }
+
+    /**
+     * @return <code>true</code>, wenn eine Deadline gesetzt und überschritten ist
+     */
+    static boolean isExceeded() {
+        final Long deadline = DEADLINE_NANOS.get();
+        return deadline != null && deadline - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Überträgt die Deadline des aktuellen Threads auf den Thread, der die Aufgabe ausführt.
+     *
+     * @param task die Aufgabe
+     * @param <T> Typ des Ergebnisses
+     * @return die Aufgabe mit der Deadline des aktuellen Threads
+     */
+    static <T> Supplier<T> propagate(final Supplier<T> task) {
+        final Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            final Long previous = DEADLINE_NANOS.get();
+            DEADLINE_NANOS.set(deadline);
+            try {
+                return task.get();
+            } finally {
+                if (previous != null) {
+                    DEADLINE_NANOS.set(previous);
+                } else {
+                    DEADLINE_NANOS.remove();
+                }
+            }
+        };
+    }
+
+}
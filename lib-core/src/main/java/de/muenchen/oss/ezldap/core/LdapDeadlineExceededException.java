@@ -0,0 +1,54 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import org.springframework.ldap.TimeLimitExceededException;
+
+/**
+ * Die {@link LdapDeadline} des Requests ist überschritten. Anders als das Time Limit einer
+ * {@link LdapOperation} weist das nicht auf ein nicht verfügbares LDAP hin und zählt deshalb nicht
+ * als Fehler für Circuit Breaker oder Stale-Fallback, siehe {@link LdapFailures#isUnavailable(Throwable)}.
+ *
+ * @author michael.prankl
+ */
+public class LdapDeadlineExceededException extends TimeLimitExceededException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param message die Meldung
+     * @param cause die Ursache, kann <code>null</code> sein
+     */
+    public LdapDeadlineExceededException(final String message, final Throwable cause) {
+        super(timeLimitExceeded(message, cause));
+    }
+
+    private static javax.naming.TimeLimitExceededException timeLimitExceeded(final String message, final Throwable cause) {
+        final javax.naming.TimeLimitExceededException exception = new javax.naming.TimeLimitExceededException(message);
+        exception.setRootCause(cause);
+        return exception;
+    }
+
+}
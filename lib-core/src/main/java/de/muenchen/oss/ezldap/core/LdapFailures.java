@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.net.SocketTimeoutException;
+import java.util.List;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.ldap.CommunicationException;
+import org.springframework.ldap.ServiceUnavailableException;
+import org.springframework.ldap.TimeLimitExceededException;
+
+/**
+ * Klassifizierung von Fehlern bei LDAP-Zugriffen.
+ *
+ * @author michael.prankl
+ */
+public final class LdapFailures {
+
+    private static final List<Class<? extends Throwable>> UNAVAILABLE_EXCEPTIONS = List.of(
+            CommunicationException.class,
+            ServiceUnavailableException.class,
+            TimeLimitExceededException.class,
+            DataAccessResourceFailureException.class,
+            SocketTimeoutException.class,
+            javax.naming.CommunicationException.class,
+            javax.naming.ServiceUnavailableException.class);
+    /**
+     * Offener Circuit Breaker, über den Namen erkannt, da Resilience4j optional ist.
+     */
+    private static final String CALL_NOT_PERMITTED_EXCEPTION = "io.github.resilience4j.circuitbreaker.CallNotPermittedException";
+
+    private LdapFailures() {
+    }
+
+    /**
+     * Prüft, ob die Exception (oder eine ihrer Ursachen) darauf hinweist, dass das LDAP nicht
+     * erreichbar ist, nicht rechtzeitig antwortet oder der Circuit Breaker offen ist. Eine
+     * überschrittene {@link LdapDeadline} des Requests zählt nicht dazu.
+     *
+     * @param throwable die Exception
+     * @return <code>true</code>, wenn das LDAP nicht verfügbar ist
+     */
+    public static boolean isUnavailable(final Throwable throwable) {
+        if (isDeadlineExceeded(throwable)) {
+            return false;
+        }
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (CALL_NOT_PERMITTED_EXCEPTION.equals(cause.getClass().getName())) {
+                return true;
+            }
+            for (final Class<? extends Throwable> type : UNAVAILABLE_EXCEPTIONS) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Prüft, ob die Exception (oder eine ihrer Ursachen) auf die überschrittene
+     * {@link LdapDeadline} des Requests zurückgeht.
+     *
+     * @param throwable die Exception
+     * @return <code>true</code>, wenn die Deadline überschritten ist
+     */
+    public static boolean isDeadlineExceeded(final Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LdapDeadlineExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
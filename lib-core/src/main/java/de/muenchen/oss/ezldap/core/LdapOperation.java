@@ -0,0 +1,66 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+/**
+ * Arten von LDAP-Suchen des {@link LdapService}, z.B. für Circuit Breaker und Metriken.
+ *
+ * @author michael.prankl
+ */
+public enum LdapOperation {
+
+    /**
+     * Lookup von Personen über lhmObjectId/uid (einzeln oder im Batch), inkl. Leitung einer OU.
+     */
+    PERSON_LOOKUP("person-lookup"),
+    /**
+     * Wildcard-Suche nach Personen.
+     */
+    PERSON_SEARCH("person-search"),
+    /**
+     * Lookup von OUs über lhmObjectId/Kurzbezeichnung (einzeln oder im Batch).
+     */
+    OU_LOOKUP("ou-lookup"),
+    /**
+     * Suche der Personen einer OU.
+     */
+    OU_MEMBERS("ou-members"),
+    /**
+     * Auflösung von OU-Bäumen.
+     */
+    OU_TREE("ou-tree");
+
+    private final String name;
+
+    LdapOperation(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return Name der Operation (z.B. "person-lookup")
+     */
+    public String getName() {
+        return this.name;
+    }
+
+}
@@ -22,8 +22,6 @@
  */
 package de.muenchen.oss.ezldap.core;
 
-import static de.muenchen.oss.ezldap.core.LdapBaseUserAttributesMapper.safelyGet;
-
 import javax.naming.NamingException;
 import javax.naming.directory.Attributes;
 
@@ -37,27 +35,38 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class LdapOuAttributesMapper implements AttributesMapper<LdapOuSearchResultDTO> {
 
-    @Override
-    public LdapOuSearchResultDTO mapFromAttributes(Attributes attributes) throws NamingException {
-        LdapOuSearchResultDTO ou = new LdapOuSearchResultDTO();
-
-        ou.setLhmObjectId(safelyGet("lhmObjectId", attributes));
-        ou.setOu(safelyGet("ou", attributes));
-
-        ou.setLhmOUKey(safelyGet("lhmOUKey", attributes));
-        ou.setLhmOULongname(safelyGet("lhmOULongname", attributes));
-        ou.setLhmOUShortname(safelyGet("lhmOUShortname", attributes));
+    /**
+     * Die von {@link #mapFromAttributes(Attributes)} gelesenen LDAP-Attribute und ihre Setter.
+     */
+    private static final AttributeTable<LdapOuSearchResultDTO> TABLE = new AttributeTable<LdapOuSearchResultDTO>()
+            .map("lhmObjectId", LdapOuSearchResultDTO::setLhmObjectId)
+            .map("ou", LdapOuSearchResultDTO::setOu)
+            .map("lhmOUKey", LdapOuSearchResultDTO::setLhmOUKey)
+            .map("lhmOULongname", LdapOuSearchResultDTO::setLhmOULongname)
+            .map("lhmOUShortname", LdapOuSearchResultDTO::setLhmOUShortname)
+            .map("postalCode", LdapOuSearchResultDTO::setPostalCode)
+            .map("street", LdapOuSearchResultDTO::setStreet)
+            .map("mail", LdapOuSearchResultDTO::setMail)
+            .map("telephoneNumber", LdapOuSearchResultDTO::setTelephoneNumber)
+            .map("facsimileTelephoneNumber", LdapOuSearchResultDTO::setFacsimileTelephoneNumber)
+            .map("lhmOUManager", LdapOuSearchResultDTO::setLhmOUManager)
+            .map("lhmOU2ndManager", LdapOuSearchResultDTO::setLhmOU2ndManager);
 
-        ou.setPostalCode(safelyGet("postalCode", attributes));
-        ou.setStreet(safelyGet("street", attributes));
+    private static final String[] ATTRIBUTES = TABLE.getAttributeIds();
 
-        ou.setMail(safelyGet("mail", attributes));
-        ou.setTelephoneNumber(safelyGet("telephoneNumber", attributes));
-        ou.setFacsimileTelephoneNumber(safelyGet("facsimileTelephoneNumber", attributes));
-
-        ou.setLhmOUManager(safelyGet("lhmOUManager", attributes));
-        ou.setLhmOU2ndManager(safelyGet("lhmOU2ndManager", attributes));
+    /**
+     * Liefert die LDAP-Attribute, die dieser Mapper liest. Suchen können damit auf diese Attribute
+     * beschränkt werden.
+     *
+     * @return die Attribut-IDs
+     */
+    public String[] getAttributes() {
+        return ATTRIBUTES.clone();
+    }
 
+    @Override
+    public LdapOuSearchResultDTO mapFromAttributes(Attributes attributes) throws NamingException {
+        LdapOuSearchResultDTO ou = TABLE.apply(attributes, new LdapOuSearchResultDTO());
         log.debug("Mapped ou {}.", ou);
         return ou;
     }
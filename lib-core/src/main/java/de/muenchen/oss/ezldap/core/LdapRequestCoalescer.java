@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Fasst gleichzeitige Einzel-Lookups von Personen und OUs zu Batch-Lookups zusammen
+ * (DataLoader-Prinzip). Lookups, die innerhalb des Zeitfensters eintreffen, werden mit einer
+ * ODER-verknüpften Suche aufgelöst, die Ergebnisse an die wartenden Aufrufer verteilt.
+ * <p>
+ * Aufrufer warten höchstens das Zeitfenster plus die Dauer des Batch-Lookups, bei gesetzter
+ * {@link LdapDeadline} höchstens bis zur Deadline. Die Batch-Lookups selbst laufen ohne die
+ * Deadline eines einzelnen Aufrufers.
+ *
+ * @author michael.prankl
+ */
+public class LdapRequestCoalescer implements AutoCloseable {
+
+    private final ScheduledExecutorService scheduler;
+    private final BatchingLoader<LdapUserDTO> personsByLhmObjectId;
+    private final BatchingLoader<LdapUserDTO> personsByUid;
+    private final BatchingLoader<LdapOuDTO> ousByLhmObjectId;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param ldapService der {@link LdapService}
+     * @param window Zeitfenster, in dem Lookups gesammelt werden (z.B. 2ms)
+     * @param maxBatchSize maximale Anzahl an Lookups je Batch
+     * @param threads Anzahl Threads, die Batches ausführen
+     */
+    public LdapRequestCoalescer(final LdapService ldapService, final Duration window, final int maxBatchSize, final int threads) {
+        this(ldapService, window, maxBatchSize, threads, LdapThreads.factory("ezldap-coalescer-", false));
+    }
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param ldapService der {@link LdapService}
+     * @param window Zeitfenster, in dem Lookups gesammelt werden (z.B. 2ms)
+     * @param maxBatchSize maximale Anzahl an Lookups je Batch
+     * @param threads Anzahl Threads, die Batches ausführen
+     * @param threadFactory erzeugt die Threads, z.B. {@link LdapThreads#factory(String, boolean)}
+     */
+    public LdapRequestCoalescer(final LdapService ldapService, final Duration window, final int maxBatchSize, final int threads,
+            final ThreadFactory threadFactory) {
+        this.scheduler = Executors.newScheduledThreadPool(threads, threadFactory);
+        this.personsByLhmObjectId = new BatchingLoader<>("personsByLhmObjectId", ldapService::getPersons, window, maxBatchSize,
+                this.scheduler);
+        this.personsByUid = new BatchingLoader<>("personsByUid", ldapService::getPersonsWithUID, window, maxBatchSize, this.scheduler);
+        this.ousByLhmObjectId = new BatchingLoader<>("ousByLhmObjectId", ldapService::getOus, window, maxBatchSize, this.scheduler);
+    }
+
+    /**
+     * @see LdapService#getPerson(String)
+     */
+    public Optional<LdapUserDTO> getPerson(final String lhmObjectId) {
+        return this.personsByLhmObjectId.load(lhmObjectId);
+    }
+
+    /**
+     * @see LdapService#getPersonWithUID(String)
+     */
+    public Optional<LdapUserDTO> getPersonWithUID(final String uid) {
+        return this.personsByUid.load(uid);
+    }
+
+    /**
+     * @see LdapService#getOu(String)
+     */
+    public Optional<LdapOuDTO> getOu(final String lhmObjectId) {
+        return this.ousByLhmObjectId.load(lhmObjectId);
+    }
+
+    /**
+     * Beendet die Threads. Noch wartende Aufrufer erhalten eine {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        this.personsByLhmObjectId.close();
+        this.personsByUid.close();
+        this.ousByLhmObjectId.close();
+        this.scheduler.shutdownNow();
+    }
+
+}
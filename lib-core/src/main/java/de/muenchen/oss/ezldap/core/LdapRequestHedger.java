@@ -0,0 +1,280 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Verschickt eine LDAP-Suche ein zweites Mal (Hedged Request), wenn sie nicht innerhalb eines
+ * Perzentils der zuletzt gemessenen Antwortzeiten dieser {@link LdapOperation} abgeschlossen ist.
+ * Es gilt die zuerst eingetroffene Antwort, die andere Suche wird abgebrochen.
+ * <p>
+ * Die zweite Suche öffnet eine neue Verbindung. Mit einer {@link LoadBalancingContextSource} geht
+ * sie in der Regel an ein anderes Replikat, da die erste Suche dort noch als offen zählt.
+ * <p>
+ * Gehedged wird erst, wenn genügend Antwortzeiten gemessen wurden. Sind alle Threads belegt, wird
+ * ohne Hedging gesucht, siehe {@link #getUnhedgedRequests()}.
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+public class LdapRequestHedger implements AutoCloseable {
+
+    private static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final int UPDATE_EVERY = 16;
+
+    private final long minDelayNanos;
+    private final ThreadPoolExecutor executor;
+    private final Map<LdapOperation, LatencyWindow> latencies = new EnumMap<>(LdapOperation.class);
+    private final LongAdder hedgedRequests = new LongAdder();
+    private final LongAdder unhedgedRequests = new LongAdder();
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param percentile Perzentil der Antwortzeiten, nach dem gehedged wird (z.B. 0.95)
+     * @param minDelay minimale Wartezeit vor dem Hedging
+     * @param threads maximale Anzahl gleichzeitig ausgeführter Suchen
+     */
+    public LdapRequestHedger(final double percentile, final Duration minDelay, final int threads) {
+        this(percentile, minDelay, threads, LdapThreads.factory("ezldap-hedger-", false));
+    }
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param percentile Perzentil der Antwortzeiten, nach dem gehedged wird (z.B. 0.95)
+     * @param minDelay minimale Wartezeit vor dem Hedging
+     * @param threads maximale Anzahl gleichzeitig ausgeführter Suchen
+     * @param threadFactory erzeugt die Threads, z.B. {@link LdapThreads#factory(String, boolean)}
+     */
+    public LdapRequestHedger(final double percentile, final Duration minDelay, final int threads, final ThreadFactory threadFactory) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+        this.minDelayNanos = minDelay.toNanos();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+        for (final LdapOperation operation : LdapOperation.values()) {
+            this.latencies.put(operation, new LatencyWindow(percentile));
+        }
+    }
+
+    /**
+     * Führt die Suche aus und hedged sie bei Bedarf.
+     *
+     * @param operation die {@link LdapOperation}
+     * @param search die Suche, darf keine Seiteneffekte haben, da sie ggf. zweimal ausgeführt wird
+     * @param <T> Typ des Ergebnisses
+     * @return das Ergebnis der zuerst erfolgreichen Suche
+     */
+    public <T> T execute(final LdapOperation operation, final Supplier<T> search) {
+        final LatencyWindow window = this.latencies.get(operation);
+        final long threshold = window.thresholdNanos();
+        if (threshold < 0) {
+            return window.timed(search);
+        }
+        final Attempt<T> primary = this.submit(search, window);
+        if (primary == null) {
+            this.rejected(operation);
+            return window.timed(search);
+        }
+        final long delay = Math.max(threshold, this.minDelayNanos);
+        try {
+            return primary.result().get(delay, TimeUnit.NANOSECONDS);
+        } catch (final TimeoutException e) {
+            // send hedged request below
+        } catch (final ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (final InterruptedException e) {
+            primary.task().cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for LDAP search", e);
+        }
+        final Attempt<T> hedge = this.submit(search, window);
+        if (hedge == null) {
+            this.rejected(operation);
+            return join(primary.result());
+        }
+        log.debug("{} search did not complete within {} ms, sending hedged request.", operation.getName(),
+                TimeUnit.NANOSECONDS.toMillis(delay));
+        this.hedgedRequests.increment();
+        final CompletableFuture<T> first = firstSuccessful(primary.result(), hedge.result());
+        first.whenComplete((value, failure) -> {
+            // abandon the slower search
+            primary.task().cancel(true);
+            hedge.task().cancel(true);
+        });
+        return join(first);
+    }
+
+    /**
+     * @param operation die {@link LdapOperation}
+     * @return aktuelle Wartezeit vor dem Hedging, leer solange zu wenige Antwortzeiten gemessen wurden
+     */
+    public Optional<Duration> getHedgeDelay(final LdapOperation operation) {
+        final long threshold = this.latencies.get(operation).thresholdNanos();
+        return threshold < 0 ? Optional.empty() : Optional.of(Duration.ofNanos(Math.max(threshold, this.minDelayNanos)));
+    }
+
+    /**
+     * @return Anzahl der bisher gehedgten Suchen
+     */
+    public long getHedgedRequests() {
+        return this.hedgedRequests.sum();
+    }
+
+    /**
+     * @return Anzahl der Suchen, die ohne Hedging ausgeführt wurden, weil alle Threads belegt waren
+     */
+    public long getUnhedgedRequests() {
+        return this.unhedgedRequests.sum();
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private <T> Attempt<T> submit(final Supplier<T> search, final LatencyWindow window) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            final Future<?> task = this.executor.submit(() -> {
+                try {
+                    result.complete(window.timed(search));
+                } catch (final RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            return new Attempt<>(result, task);
+        } catch (final RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    private void rejected(final LdapOperation operation) {
+        this.unhedgedRequests.increment();
+        log.debug("All {} hedging threads busy, {} search runs without hedging.", this.executor.getMaximumPoolSize(), operation.getName());
+    }
+
+    /**
+     * @return Future mit dem ersten erfolgreichen Ergebnis, oder dem zuletzt eingetroffenen Fehler,
+     *         wenn beide Suchen fehlschlagen
+     */
+    static <T> CompletableFuture<T> firstSuccessful(final CompletableFuture<T> primary, final CompletableFuture<T> hedge) {
+        final CompletableFuture<T> first = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+        final BiConsumer<T, Throwable> completion = (value, failure) -> {
+            if (failure == null) {
+                first.complete(value);
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(failure);
+            }
+        };
+        primary.whenComplete(completion);
+        hedge.whenComplete(completion);
+        return first;
+    }
+
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(final Throwable failure) {
+        if (failure instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new CompletionException(failure);
+    }
+
+    private record Attempt<T>(CompletableFuture<T> result, Future<?> task) {
+    }
+
+    /**
+     * Die zuletzt gemessenen Antwortzeiten erfolgreicher Suchen einer {@link LdapOperation}, das
+     * Perzentil wird nur alle {@value #UPDATE_EVERY} Messungen neu berechnet.
+     */
+    private static final class LatencyWindow {
+
+        private final double percentile;
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int next;
+        private int count;
+        private int sinceUpdate;
+        private volatile long thresholdNanos = -1;
+
+        private LatencyWindow(final double percentile) {
+            this.percentile = percentile;
+        }
+
+        private long thresholdNanos() {
+            return this.thresholdNanos;
+        }
+
+        private <T> T timed(final Supplier<T> search) {
+            final long start = System.nanoTime();
+            final T result = search.get();
+            this.record(System.nanoTime() - start);
+            return result;
+        }
+
+        private synchronized void record(final long nanos) {
+            this.samples[this.next] = nanos;
+            this.next = (this.next + 1) % WINDOW_SIZE;
+            this.count = Math.min(this.count + 1, WINDOW_SIZE);
+            if (++this.sinceUpdate >= UPDATE_EVERY && this.count >= MIN_SAMPLES) {
+                this.sinceUpdate = 0;
+                final long[] sorted = Arrays.copyOf(this.samples, this.count);
+                Arrays.sort(sorted);
+                this.thresholdNanos = sorted[(int) Math.ceil(this.percentile * this.count) - 1];
+            }
+        }
+
+    }
+
+}
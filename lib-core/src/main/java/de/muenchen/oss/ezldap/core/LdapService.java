@@ -24,22 +24,61 @@ package de.muenchen.oss.ezldap.core;
 
 import static org.springframework.ldap.query.LdapQueryBuilder.query;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.naming.Name;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
 import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
 
 import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.TimeLimitExceededException;
 import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextOperations;
 import org.springframework.ldap.core.LdapTemplate;
 import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.EqualsFilter;
+import org.springframework.ldap.filter.Filter;
+import org.springframework.ldap.filter.OrFilter;
+import org.springframework.ldap.filter.PresentFilter;
+import org.springframework.ldap.pool2.factory.PoolConfig;
 import org.springframework.ldap.query.LdapQuery;
 import org.springframework.ldap.query.LdapQueryBuilder;
 import org.springframework.ldap.query.SearchScope;
+import org.springframework.ldap.support.LdapUtils;
 
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -50,6 +89,9 @@ import lombok.extern.slf4j.Slf4j;
 public class LdapService {
 
     public static final int MAX_SEARCH_RESULTS = 100;
+    public static final int MAX_BATCH_SIZE = 500;
+
+    private static final int BATCH_CHUNK_SIZE = 50;
 
     private static final String ATTRIBUTE_UID = "uid";
     private static final String ATTRIBUTE_OU = "ou";
@@ -60,6 +102,12 @@ public class LdapService {
     private static final String LHM_PERSON = "lhmPerson";
     private static final String LHM_OBJECT_PATH = "lhmObjectPath";
     private static final String PERSON = "person";
+    private static final String LHM_OBJECT_REFERENCE = "lhmObjectReference";
+    private static final String LHM_RANK_IN_OU = "lhmRankInOu";
+    private static final String RANK_LEITUNG = "01";
+    private static final String RANK_STELLVERTRETUNG = "03";
+    private static final ThreadFactory ASYNC_THREADS = LdapThreads.factory("ezldap-async-", true);
+    private static final Executor ASYNC_EXECUTOR = runnable -> ASYNC_THREADS.newThread(runnable).start();
 
     private final LdapTemplate ldapTemplate;
     private final LdapUserAttributesMapper ldapUserAttributesMapper;
@@ -68,6 +116,22 @@ public class LdapService {
     private final DtoMapper mapper;
     private final String userSearchBase;
     private final String ouSearchBase;
+    private final String[] userAttributes;
+    private final String[] baseUserAttributes;
+    private final String[] ouAttributes;
+    private final LdapName ouSearchBaseName;
+    private OuHierarchyIndex ouHierarchyIndex;
+    private int pageSize = PagedSearchSupport.DEFAULT_PAGE_SIZE;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private LdapRequestHedger requestHedger;
+    private MeterRegistry meterRegistry;
+    private ObservationRegistry observationRegistry;
+    private LdapServiceMetrics metrics = new LdapServiceMetrics(null, null);
+    private SlowQueryLog slowQueryLog = SlowQueryLog.DISABLED;
+    private Executor executor;
+    private boolean parallelSubLookups;
+    private final Map<LdapOperation, Duration> timeLimits = new EnumMap<>(LdapOperation.class);
+    private final Map<LdapOperation, Integer> countLimits = new EnumMap<>(LdapOperation.class);
 
     /**
      * Erzeugt eine neue Instanz.
@@ -94,6 +158,10 @@ public class LdapService {
         this.mapper = modelMapper;
         this.userSearchBase = userSearchBase;
         this.ouSearchBase = ouSearchBase;
+        this.userAttributes = this.ldapUserAttributesMapper.getAttributes();
+        this.baseUserAttributes = this.ldapBaseUserAttributesMapper.getAttributes();
+        this.ouAttributes = this.ldapOuAttributesMapper.getAttributes();
+        this.ouSearchBaseName = LdapUtils.newLdapName(ouSearchBase);
     }
 
     /**
@@ -107,18 +175,173 @@ public class LdapService {
      */
     public LdapService(final String ldapUrl, final String ldapUserDn, final String ldapPassword, final String userSearchBase,
             final String ouSearchBase) {
-        final LdapContextSource ldapContextSource = new LdapContextSource();
-        ldapContextSource.setUrl(ldapUrl);
-        ldapContextSource.setUserDn(ldapUserDn);
-        ldapContextSource.setPassword(ldapPassword);
-        ldapContextSource.afterPropertiesSet();
-        this.ldapTemplate = new LdapTemplate(ldapContextSource);
+        this(ldapUrl, ldapUserDn, ldapPassword, userSearchBase, ouSearchBase, null);
+    }
+
+    /**
+     * Erzeugt eine Instanz mit gepoolten LDAP-Verbindungen.
+     *
+     * @param ldapUrl die LDAP-URL (z.B. 'ldaps://ldap.example.org:636')
+     * @param ldapUserDn LDAP-Zugangsuser (DN)
+     * @param ldapPassword LDAP-Zugangsuser Passwort
+     * @param userSearchBase die Search-Base für User (z.B. 'o=example,c=org')
+     * @param ouSearchBase die Search-Base für OU's (z.B. 'o=example,c=org')
+     * @param poolConfig Konfiguration des Connection-Pools, <code>null</code> für ungepoolte
+     *            Verbindungen
+     */
+    public LdapService(final String ldapUrl, final String ldapUserDn, final String ldapPassword, final String userSearchBase,
+            final String ouSearchBase, final PoolConfig poolConfig) {
+        final LdapContextSource ldapContextSource = LdapContextSourceFactory.createContextSource(ldapUrl, ldapUserDn, ldapPassword);
+        if (poolConfig != null) {
+            this.ldapTemplate = new LdapTemplate(LdapContextSourceFactory.createPooledContextSource(ldapContextSource, poolConfig));
+        } else {
+            this.ldapTemplate = new LdapTemplate(ldapContextSource);
+        }
         this.ldapBaseUserAttributesMapper = new LdapBaseUserAttributesMapper();
         this.ldapOuAttributesMapper = new LdapOuAttributesMapper();
         this.ldapUserAttributesMapper = new LdapUserAttributesMapper(this.ldapBaseUserAttributesMapper);
         this.mapper = new DtoMapperImpl();
         this.userSearchBase = userSearchBase;
         this.ouSearchBase = ouSearchBase;
+        this.userAttributes = this.ldapUserAttributesMapper.getAttributes();
+        this.baseUserAttributes = this.ldapBaseUserAttributesMapper.getAttributes();
+        this.ouAttributes = this.ldapOuAttributesMapper.getAttributes();
+        this.ouSearchBaseName = LdapUtils.newLdapName(ouSearchBase);
+    }
+
+    /**
+     * Setzt einen {@link OuHierarchyIndex}. Ist der Index geladen, werden OUs und OU-Bäume aus dem
+     * Index gelesen, für im Index unbekannte OUs wird weiterhin das LDAP abgefragt.
+     *
+     * @param ouHierarchyIndex der {@link OuHierarchyIndex}, <code>null</code> deaktiviert den Index
+     */
+    public void setOuHierarchyIndex(final OuHierarchyIndex ouHierarchyIndex) {
+        this.ouHierarchyIndex = ouHierarchyIndex;
+    }
+
+    /**
+     * Setzt die Seitengröße für seitenweise Suchen (Paged Results Control), Default 500.
+     *
+     * @param pageSize die Seitengröße
+     */
+    public void setPageSize(final int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be greater than 0");
+        }
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Setzt eine {@link CircuitBreakerRegistry}. Alle LDAP-Suchen laufen dann über einen Circuit
+     * Breaker je {@link LdapOperation} (Name "ezldap-" + {@link LdapOperation#getName()}), bei
+     * offenem Circuit Breaker wird sofort mit einer
+     * {@link io.github.resilience4j.circuitbreaker.CallNotPermittedException} abgebrochen.
+     *
+     * @param circuitBreakerRegistry die {@link CircuitBreakerRegistry}, <code>null</code> deaktiviert
+     *            die Circuit Breaker
+     */
+    public void setCircuitBreakerRegistry(final CircuitBreakerRegistry circuitBreakerRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+    }
+
+    /**
+     * Setzt eine {@link MeterRegistry}, in der Dauer, Ergebnisanzahl und LDAP-Suchen je Aufruf sowie
+     * die Dauer jeder LDAP-Suche erfasst werden, siehe {@link LdapServiceMetrics}.
+     *
+     * @param meterRegistry die {@link MeterRegistry}, <code>null</code> deaktiviert die Metriken
+     */
+    public void setMeterRegistry(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.metrics = new LdapServiceMetrics(this.meterRegistry, this.observationRegistry);
+    }
+
+    /**
+     * Setzt eine {@link ObservationRegistry}, mit der Aufrufe, LDAP-Suchen und Mapping-Schritte als
+     * Observations (z.B. Spans für Tracing) erfasst werden, siehe {@link LdapServiceMetrics}.
+     *
+     * @param observationRegistry die {@link ObservationRegistry}, <code>null</code> deaktiviert die
+     *            Observations
+     */
+    public void setObservationRegistry(final ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.metrics = new LdapServiceMetrics(this.meterRegistry, this.observationRegistry);
+    }
+
+    /**
+     * Setzt den Schwellwert, ab dem LDAP-Suchen mit operation, filter, base, scope, countLimit, Dauer,
+     * Anzahl und Größe der Treffer protokolliert werden, siehe {@link SlowQueryLog}.
+     *
+     * @param threshold der Schwellwert, <code>null</code> deaktiviert die Protokollierung
+     */
+    public void setSlowQueryThreshold(final Duration threshold) {
+        this.slowQueryLog = threshold != null ? new SlowQueryLog(threshold) : SlowQueryLog.DISABLED;
+    }
+
+    /**
+     * Setzt einen {@link LdapRequestHedger}. Suchen, die nicht innerhalb der üblichen Antwortzeit
+     * abgeschlossen sind, werden dann ein zweites Mal verschickt. Ausgenommen sind seitenweise
+     * Suchen, siehe {@link #streamPersonsByOuShortcode(String, Consumer)}.
+     *
+     * @param requestHedger der {@link LdapRequestHedger}, <code>null</code> deaktiviert das Hedging
+     */
+    public void setRequestHedger(final LdapRequestHedger requestHedger) {
+        this.requestHedger = requestHedger;
+    }
+
+    /**
+     * Setzt den {@link Executor} für die asynchronen Methoden (z.B. {@link #getOuAsync(String)}).
+     * Teilsuchen laufen nie auf diesem Executor, siehe {@link #setParallelSubLookups(boolean)}.
+     *
+     * @param executor der {@link Executor}, <code>null</code> für je einen virtuellen Thread je
+     *            asynchronem Aufruf
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Führt voneinander unabhängige Teilsuchen eines Aufrufs, z.B. Leitung und Stellvertretung
+     * einer OU, parallel auf je einem virtuellen Thread aus. Da sie nicht auf dem
+     * {@link #setExecutor(Executor) Executor} laufen, kann ein asynchroner Aufruf, der auf seine
+     * Teilsuchen wartet, den Executor nicht blockieren.
+     *
+     * @param parallelSubLookups <code>true</code> für parallele, <code>false</code> (Default) für
+     *            sequentielle Teilsuchen
+     */
+    public void setParallelSubLookups(final boolean parallelSubLookups) {
+        this.parallelSubLookups = parallelSubLookups;
+    }
+
+    /**
+     * Setzt das Time Limit für eine Art von LDAP-Suche. Ist für den aktuellen Thread eine
+     * {@link LdapDeadline} gesetzt, gilt die kürzere der beiden Zeiten. LDAP-Server werten Time
+     * Limits in ganzen Sekunden aus, es wird deshalb auf Sekunden aufgerundet. Auf das Ergebnis
+     * wird trotzdem höchstens bis zur Deadline gewartet.
+     *
+     * @param operation die {@link LdapOperation}
+     * @param timeLimit das Time Limit, <code>null</code> für keines
+     */
+    public void setTimeLimit(final LdapOperation operation, final Duration timeLimit) {
+        if (timeLimit == null || timeLimit.isZero()) {
+            this.timeLimits.remove(operation);
+        } else {
+            this.timeLimits.put(operation, timeLimit);
+        }
+    }
+
+    /**
+     * Setzt das Count Limit (maximale Anzahl an Treffern) für eine Art von LDAP-Suche, bei
+     * Batch-Lookups je Block. Treffer über dem Limit werden verworfen.
+     *
+     * @param operation die {@link LdapOperation}
+     * @param countLimit das Count Limit, <code>null</code> für keines
+     */
+    public void setCountLimit(final LdapOperation operation, final Integer countLimit) {
+        if (countLimit == null || countLimit < 1) {
+            this.countLimits.remove(operation);
+        } else {
+            this.countLimits.put(operation, countLimit);
+        }
     }
 
     /**
@@ -128,17 +351,20 @@ public class LdapService {
      * @return den Mitarbeiter als {@link LdapUserDTO}
      */
     public Optional<LdapUserDTO> getPerson(final String lhmObjectId) {
-        log.info("Searching LDAP for Person[lhmObjectId={}]...", lhmObjectId);
-        final LdapQuery query = LdapQueryBuilder.query().base(this.userSearchBase).countLimit(1).searchScope(SearchScope.SUBTREE)
-                .where(ATTRIBUTE_OBJECT_CLASS).is(PERSON)
-                .and(ATTRIBUTE_OBJECT_CLASS).is(LHM_PERSON)
-                .and(ATTRIBUTE_LHM_OBJECT_ID).is(lhmObjectId);
-        final List<LdapUserDTO> searchResults = this.ldapTemplate.search(query, this.ldapUserAttributesMapper);
-        if (searchResults.size() == 1) {
-            return Optional.of(searchResults.get(0));
-        } else {
-            return Optional.empty();
-        }
+        return this.metrics.call("getPerson", () -> {
+            log.debug("Searching LDAP for Person[lhmObjectId={}]...", lhmObjectId);
+            final LdapQuery query = LdapQueryBuilder.query().base(this.userSearchBase).countLimit(1).searchScope(SearchScope.SUBTREE)
+                    .attributes(this.userAttributes)
+                    .where(ATTRIBUTE_OBJECT_CLASS).is(PERSON)
+                    .and(ATTRIBUTE_OBJECT_CLASS).is(LHM_PERSON)
+                    .and(ATTRIBUTE_LHM_OBJECT_ID).is(lhmObjectId);
+            final List<LdapUserDTO> searchResults = this.search(LdapOperation.PERSON_LOOKUP, query, this.ldapUserAttributesMapper);
+            if (searchResults.size() == 1) {
+                return Optional.of(searchResults.get(0));
+            } else {
+                return Optional.empty();
+            }
+        });
     }
 
     /**
@@ -148,17 +374,151 @@ public class LdapService {
      * @return den Mitarbeiter als {@link LdapUserDTO}
      */
     public Optional<LdapUserDTO> getPersonWithUID(final String uid) {
-        log.info("Searching LDAP for Person[uid={}]...", uid);
-        final LdapQuery query = LdapQueryBuilder.query().base(this.userSearchBase).countLimit(1).searchScope(SearchScope.SUBTREE)
-                .where(ATTRIBUTE_OBJECT_CLASS).is(PERSON)
-                .and(ATTRIBUTE_OBJECT_CLASS).is(LHM_PERSON)
-                .and(ATTRIBUTE_LHM_OBJECT_ID).isPresent() // es gibt Personen ohne lhmObjectId ¯\_(ツ)_/¯
-                .and(ATTRIBUTE_UID).is(uid);
-        final List<LdapUserDTO> searchResults = this.ldapTemplate.search(query, this.ldapUserAttributesMapper);
-        if (searchResults.size() == 1) {
-            return Optional.of(searchResults.get(0));
-        } else {
-            return Optional.empty();
+        return this.metrics.call("getPersonWithUID", () -> {
+            log.debug("Searching LDAP for Person[uid={}]...", uid);
+            // countLimit 2, damit eine mehrdeutige uid erkannt wird
+            final LdapQuery query = LdapQueryBuilder.query().base(this.userSearchBase).countLimit(2).searchScope(SearchScope.SUBTREE)
+                    .attributes(this.userAttributes)
+                    .where(ATTRIBUTE_OBJECT_CLASS).is(PERSON)
+                    .and(ATTRIBUTE_OBJECT_CLASS).is(LHM_PERSON)
+                    .and(ATTRIBUTE_LHM_OBJECT_ID).isPresent() // es gibt Personen ohne lhmObjectId ¯\_(ツ)_/¯
+                    .and(ATTRIBUTE_UID).is(uid);
+            final List<LdapUserDTO> searchResults = this.search(LdapOperation.PERSON_LOOKUP, query, this.ldapUserAttributesMapper);
+            if (searchResults.size() == 1) {
+                return Optional.of(searchResults.get(0));
+            } else {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Ruft mehrere Personen anhand ihrer lhmObjectIDs ab. Gesucht wird blockweise mit jeweils einer
+     * ODER-verknüpften Suche statt einer Suche je Person.
+     *
+     * @param lhmObjectIds die LHM Object IDs
+     * @return die gefundenen Personen je angefragter lhmObjectId, nicht gefundene und mehrdeutige fehlen
+     */
+    public Map<String, LdapUserDTO> getPersons(final Collection<String> lhmObjectIds) {
+        return this.metrics.call("getPersons", () -> {
+            log.debug("Searching LDAP for {} persons by lhmObjectId...", lhmObjectIds.size());
+            return this.findPersonsBy(ATTRIBUTE_LHM_OBJECT_ID, lhmObjectIds, LdapUserDTO::getLhmObjectId);
+        });
+    }
+
+    /**
+     * Ruft mehrere Personen anhand ihrer UIDs ab. Gesucht wird blockweise mit jeweils einer
+     * ODER-verknüpften Suche statt einer Suche je Person.
+     *
+     * @param uids die UIDs ("vorname.nachname")
+     * @return die gefundenen Personen je angefragter UID, nicht gefundene und mehrdeutige fehlen
+     */
+    public Map<String, LdapUserDTO> getPersonsWithUID(final Collection<String> uids) {
+        return this.metrics.call("getPersonsWithUID", () -> {
+            log.debug("Searching LDAP for {} persons by uid...", uids.size());
+            return this.findPersonsBy(ATTRIBUTE_UID, uids, LdapUserDTO::getUid);
+        });
+    }
+
+    private Map<String, LdapUserDTO> findPersonsBy(final String attribute, final Collection<String> values,
+            final Function<LdapUserDTO, String> keyExtractor) {
+        final Map<String, String> requested = requestedIgnoringCase(values);
+        final Map<String, LdapUserDTO> persons = new LinkedHashMap<>();
+        final Set<String> ambiguous = new HashSet<>();
+        final AndFilter personFilter = new AndFilter()
+                .and(new EqualsFilter(ATTRIBUTE_OBJECT_CLASS, PERSON))
+                .and(new EqualsFilter(ATTRIBUTE_OBJECT_CLASS, LHM_PERSON))
+                .and(new PresentFilter(ATTRIBUTE_LHM_OBJECT_ID)); // es gibt Personen ohne lhmObjectId ¯\_(ツ)_/¯
+        for (final LdapUserDTO person : this.searchInChunks(LdapOperation.PERSON_LOOKUP, this.userSearchBase, this.userAttributes,
+                personFilter, attribute, requested.values(), this.ldapUserAttributesMapper)) {
+            final String key = keyExtractor.apply(person);
+            final String requestedValue = key != null ? requested.get(key.toLowerCase(Locale.ROOT)) : null;
+            if (requestedValue != null && persons.putIfAbsent(requestedValue, person) != null) {
+                ambiguous.add(requestedValue);
+            }
+        }
+        // wie bei den Einzelabfragen: mehrdeutige Werte liefern keine Person
+        persons.keySet().removeAll(ambiguous);
+        log.debug("Found {} of {} persons by {}.", persons.size(), requested.size(), attribute);
+        return withRequestedKeys(values, requested, persons);
+    }
+
+    /**
+     * Sucht blockweise nach Einträgen, deren Attribut einem der angegebenen Werte entspricht, mit
+     * jeweils einer ODER-verknüpften Suche je Block.
+     *
+     * @param operation die {@link LdapOperation}
+     * @param base Search-Base
+     * @param attributes die zu lesenden Attribute
+     * @param filter Filter, der zusätzlich für alle Einträge gelten muss
+     * @param attribute das Attribut, nach dem gesucht wird
+     * @param values die gesuchten Werte
+     * @param attributesMapper Mapper für einen Treffer
+     * @return alle Treffer
+     */
+    private <T> List<T> searchInChunks(final LdapOperation operation, final String base, final String[] attributes, final Filter filter,
+            final String attribute, final Collection<String> values, final AttributesMapper<T> attributesMapper) {
+        final List<String> valueList = new ArrayList<>(values);
+        final List<T> results = new ArrayList<>();
+        for (int i = 0; i < valueList.size(); i += BATCH_CHUNK_SIZE) {
+            final OrFilter valueFilter = new OrFilter();
+            for (final String value : valueList.subList(i, Math.min(i + BATCH_CHUNK_SIZE, valueList.size()))) {
+                valueFilter.or(new EqualsFilter(attribute, value));
+            }
+            final LdapQuery query = LdapQueryBuilder.query().base(base)
+                    .searchScope(SearchScope.SUBTREE)
+                    .attributes(attributes)
+                    .filter(new AndFilter().and(filter).and(valueFilter));
+            results.addAll(this.search(operation, query, attributesMapper));
+        }
+        return results;
+    }
+
+    /**
+     * LDAP vergleicht lhmObjectId, uid und Kurzbezeichnungen ohne Beachtung der Groß-/Kleinschreibung,
+     * Treffer werden deshalb über den kleingeschriebenen Wert dem angefragten Wert zugeordnet.
+     *
+     * @param values die angefragten Werte
+     * @return angefragter Wert je kleingeschriebenem Wert, ohne Duplikate und <code>null</code>
+     */
+    private static Map<String, String> requestedIgnoringCase(final Collection<String> values) {
+        final Map<String, String> requested = new LinkedHashMap<>();
+        for (final String value : values) {
+            if (value != null) {
+                requested.putIfAbsent(value.toLowerCase(Locale.ROOT), value);
+            }
+        }
+        return requested;
+    }
+
+    /**
+     * Ordnet die Ergebnisse allen angefragten Schreibweisen eines Werts zu.
+     *
+     * @param values die angefragten Werte
+     * @param requested siehe {@link #requestedIgnoringCase(Collection)}
+     * @param results Ergebnisse je angefragtem Wert aus <code>requested</code>
+     * @return Ergebnisse je angefragtem Wert aus <code>values</code>
+     */
+    private static <T> Map<String, T> withRequestedKeys(final Collection<String> values, final Map<String, String> requested,
+            final Map<String, T> results) {
+        if (requested.size() == values.size()) {
+            return results;
+        }
+        final Map<String, T> all = new LinkedHashMap<>();
+        for (final String value : values) {
+            final T result = value != null ? results.get(requested.get(value.toLowerCase(Locale.ROOT))) : null;
+            if (result != null) {
+                all.put(value, result);
+            }
+        }
+        return all;
+    }
+
+    private static <T> void putIfRequested(final Map<String, T> results, final Map<String, String> requested, final String key,
+            final T value) {
+        final String requestedValue = key != null ? requested.get(key.toLowerCase(Locale.ROOT)) : null;
+        if (requestedValue != null) {
+            results.putIfAbsent(requestedValue, value);
         }
     }
 
@@ -170,27 +530,67 @@ public class LdapService {
      *         existiert
      */
     public Optional<List<LdapBaseUserDTO>> findPersonsByOuShortcode(final String ou) {
-        log.info("Performing LDAP lookup for persons in ou='{}' ...", ou);
-        // check if OU exists before searching for users
-        final LdapQuery queryForOu = LdapQueryBuilder.query().base(this.ouSearchBase)
-                .searchScope(SearchScope.SUBTREE)
-                .where(ATTRIBUTE_OBJECT_CLASS).is(LHM_ORGANIZATIONAL_UNIT)
-                .and(LHM_OU_SHORTNAME).is(ou);
-        final List<String> foundOus = this.ldapTemplate.search(queryForOu,
-                (AttributesMapper<String>) attributes -> (String) attributes.get(LHM_OU_SHORTNAME).get());
-        log.debug("Found OUs for shortcode '{}': {}", ou, foundOus);
-        if (foundOus.isEmpty()) {
-            return Optional.empty();
-        } else {
+        return this.metrics.call("findPersonsByOuShortcode", () -> {
+            log.debug("Performing LDAP lookup for persons in ou='{}' ...", ou);
+            if (!this.existsOuWithShortcode(ou)) {
+                return Optional.empty();
+            }
+            final List<LdapBaseUserDTO> persons = new ArrayList<>();
+            this.streamPersonsByOuShortcode(ou, persons::add);
+            return Optional.of(persons);
+        });
+    }
+
+    /**
+     * Prüft, ob eine OU mit der angegebenen Kurzbezeichnung existiert.
+     *
+     * @param ou OU-Shortcode der Organisationseinheit (z.B. "ITM-KM21")
+     * @return <code>true</code>, wenn die OU existiert
+     */
+    public boolean existsOuWithShortcode(final String ou) {
+        return this.metrics.call("existsOuWithShortcode", () -> {
+            if (this.isOuHierarchyIndexLoaded() && this.ouHierarchyIndex.findByShortname(ou).isPresent()) {
+                return true;
+            }
+            final LdapQuery queryForOu = LdapQueryBuilder.query().base(this.ouSearchBase)
+                    .searchScope(SearchScope.SUBTREE)
+                    .attributes(LHM_OU_SHORTNAME)
+                    .where(ATTRIBUTE_OBJECT_CLASS).is(LHM_ORGANIZATIONAL_UNIT)
+                    .and(LHM_OU_SHORTNAME).is(ou);
+            final List<String> foundOus = this.search(LdapOperation.OU_LOOKUP, queryForOu,
+                    (AttributesMapper<String>) attributes -> (String) attributes.get(LHM_OU_SHORTNAME).get());
+            log.debug("Found OUs for shortcode '{}': {}", ou, foundOus);
+            return !foundOus.isEmpty();
+        });
+    }
+
+    /**
+     * Sucht alle Personen einer OU seitenweise (Paged Results Control) und übergibt sie einzeln an
+     * den {@link Consumer}, ohne das gesamte Ergebnis im Speicher zu halten. Die Existenz der OU
+     * wird nicht geprüft, siehe {@link #existsOuWithShortcode(String)}.
+     *
+     * @param ou OU-Shortcode der Organisationseinheit (z.B. "ITM-KM21")
+     * @param consumer erhält die gefundenen Personen
+     * @return Anzahl der gefundenen Personen
+     */
+    public long streamPersonsByOuShortcode(final String ou, final Consumer<? super LdapBaseUserDTO> consumer) {
+        return this.metrics.call("streamPersonsByOuShortcode", () -> {
             final LdapQuery query = LdapQueryBuilder.query().base(this.userSearchBase)
                     .searchScope(SearchScope.SUBTREE)
+                    .attributes(this.baseUserAttributes)
                     .where(ATTRIBUTE_OBJECT_CLASS).is(PERSON)
                     .and(ATTRIBUTE_OBJECT_CLASS).is(LHM_PERSON)
                     .and(ATTRIBUTE_LHM_OBJECT_ID).isPresent() // es gibt Personen ohne lhmObjectId ¯\_(ツ)_/¯
                     .and(ATTRIBUTE_OU).is(ou);
-            return Optional.of(this.ldapTemplate.search(query, this.ldapBaseUserAttributesMapper));
-        }
-
+            final LdapQuery limitedQuery = this.withLimits(LdapOperation.OU_MEMBERS, query);
+            final SlowQueryLog.Search slowQuery = this.slowQueryLog.start(LdapOperation.OU_MEMBERS, limitedQuery);
+            final ContextMapper<LdapBaseUserDTO> mapper = slowQuery.measure((ContextMapper<LdapBaseUserDTO>) ctx -> this
+                    .ldapBaseUserAttributesMapper.mapFromAttributes(((DirContextOperations) ctx).getAttributes()));
+            final long count = slowQuery.run(() -> this.execute(LdapOperation.OU_MEMBERS, limitedQuery,
+                    () -> PagedSearchSupport.search(this.ldapTemplate, limitedQuery, this.pageSize, mapper, consumer)), Long::longValue);
+            log.debug("Found {} persons in ou='{}'.", count, ou);
+            return count;
+        });
     }
 
     /**
@@ -201,22 +601,24 @@ public class LdapService {
      * @return die Ergebnisliste
      * @throws IllegalArgumentException wenn die Suchphrase zu kurz ist
      */
-    public List<LdapBaseUserDTO> searchFor(final String searchPhrase, int resultLimit) {
-        if (searchPhrase == null || searchPhrase.replace("*", "").trim().length() < 3) {
-            throw new IllegalArgumentException("Keine Suchphrase angegeben bzw. die Suchphrase ist zu kurz");
-        }
-        log.info("Performing LDAP lookup for uid like {}...", searchPhrase);
-        if (resultLimit > MAX_SEARCH_RESULTS) {
-            log.warn("Angegebenes Result-Limit ist größer als das erlaubte Maximallimit.");
-            resultLimit = MAX_SEARCH_RESULTS;
-        }
-        final LdapQuery query = LdapQueryBuilder.query().base(this.userSearchBase).countLimit(resultLimit)
-                .searchScope(SearchScope.SUBTREE)
-                .where(ATTRIBUTE_OBJECT_CLASS).is(PERSON)
-                .and(ATTRIBUTE_OBJECT_CLASS).is(LHM_PERSON)
-                .and(ATTRIBUTE_LHM_OBJECT_ID).isPresent() // es gibt Personen ohne lhmObjectId ¯\_(ツ)_/¯
-                .and(ATTRIBUTE_UID).like(searchPhrase);
-        return this.ldapTemplate.search(query, this.ldapBaseUserAttributesMapper);
+    public List<LdapBaseUserDTO> searchFor(final String searchPhrase, final int resultLimit) {
+        return this.metrics.call("searchFor", () -> {
+            if (searchPhrase == null || searchPhrase.replace("*", "").trim().length() < 3) {
+                throw new IllegalArgumentException("Keine Suchphrase angegeben bzw. die Suchphrase ist zu kurz");
+            }
+            log.debug("Performing LDAP lookup for uid like {}...", searchPhrase);
+            if (resultLimit > MAX_SEARCH_RESULTS) {
+                log.warn("Angegebenes Result-Limit ist größer als das erlaubte Maximallimit.");
+            }
+            final LdapQuery query = LdapQueryBuilder.query().base(this.userSearchBase).countLimit(Math.min(resultLimit, MAX_SEARCH_RESULTS))
+                    .searchScope(SearchScope.SUBTREE)
+                    .attributes(this.baseUserAttributes)
+                    .where(ATTRIBUTE_OBJECT_CLASS).is(PERSON)
+                    .and(ATTRIBUTE_OBJECT_CLASS).is(LHM_PERSON)
+                    .and(ATTRIBUTE_LHM_OBJECT_ID).isPresent() // es gibt Personen ohne lhmObjectId ¯\_(ツ)_/¯
+                    .and(ATTRIBUTE_UID).like(searchPhrase);
+            return this.search(LdapOperation.PERSON_SEARCH, query, this.ldapBaseUserAttributesMapper);
+        });
     }
 
     /**
@@ -226,19 +628,29 @@ public class LdapService {
      * @return Daten der Ou
      */
     public Optional<LdapOuDTO> getOu(final String lhmObjectId) {
-        log.info("Searching LDAP for Ou[lhmObjectId={}]...", lhmObjectId);
-        final LdapQuery query = LdapQueryBuilder.query().base(this.ouSearchBase).countLimit(1).searchScope(SearchScope.SUBTREE)
-                .where(ATTRIBUTE_OBJECT_CLASS).is(LHM_ORGANIZATIONAL_UNIT)
-                .and(ATTRIBUTE_LHM_OBJECT_ID).is(lhmObjectId);
-        final List<LdapOuSearchResultDTO> searchResults = this.ldapTemplate.search(query, this.ldapOuAttributesMapper);
-        if (searchResults.size() == 1) {
-            final LdapOuSearchResultDTO searchResultDTO = searchResults.get(0);
-            log.debug("Found OU with [lhmObjectId={}]: {}", lhmObjectId, searchResultDTO);
-            return this.resolveManagersForOu(searchResultDTO);
-        } else {
-            log.debug("Found no OU with [lhmObjectId={}].", lhmObjectId);
-            return Optional.empty();
-        }
+        return this.metrics.call("getOu", () -> {
+            if (this.isOuHierarchyIndexLoaded()) {
+                final Optional<LdapOuSearchResultDTO> indexed = this.ouHierarchyIndex.findByLhmObjectId(lhmObjectId);
+                if (indexed.isPresent()) {
+                    log.debug("Found OU with [lhmObjectId={}] in ou index.", lhmObjectId);
+                    return this.resolveManagersForOu(indexed.get());
+                }
+            }
+            log.debug("Searching LDAP for Ou[lhmObjectId={}]...", lhmObjectId);
+            final LdapQuery query = LdapQueryBuilder.query().base(this.ouSearchBase).countLimit(1).searchScope(SearchScope.SUBTREE)
+                    .attributes(this.ouAttributes)
+                    .where(ATTRIBUTE_OBJECT_CLASS).is(LHM_ORGANIZATIONAL_UNIT)
+                    .and(ATTRIBUTE_LHM_OBJECT_ID).is(lhmObjectId);
+            final List<LdapOuSearchResultDTO> searchResults = this.search(LdapOperation.OU_LOOKUP, query, this.ldapOuAttributesMapper);
+            if (searchResults.size() == 1) {
+                final LdapOuSearchResultDTO searchResultDTO = searchResults.get(0);
+                log.debug("Found OU with [lhmObjectId={}]: {}", lhmObjectId, searchResultDTO);
+                return this.resolveManagersForOu(searchResultDTO);
+            } else {
+                log.debug("Found no OU with [lhmObjectId={}].", lhmObjectId);
+                return Optional.empty();
+            }
+        });
     }
 
     /**
@@ -248,19 +660,84 @@ public class LdapService {
      * @return Daten der Ou
      */
     public Optional<LdapOuDTO> findOuByShortcode(final String ou) {
-        log.info("Searching LDAP for ou[lhmOUShortname={}]...", ou);
-        final LdapQuery query = LdapQueryBuilder.query().base(this.ouSearchBase).countLimit(1).searchScope(SearchScope.SUBTREE)
-                .where(ATTRIBUTE_OBJECT_CLASS).is(LHM_ORGANIZATIONAL_UNIT)
-                .and(LHM_OU_SHORTNAME).is(ou);
-        final List<LdapOuSearchResultDTO> searchResults = this.ldapTemplate.search(query, this.ldapOuAttributesMapper);
-        if (searchResults.size() == 1) {
-            final LdapOuSearchResultDTO searchResultDTO = searchResults.get(0);
-            log.debug("Found OU with [lhmOUShortname={}]: {}", ou, searchResultDTO);
-            return this.resolveManagersForOu(searchResultDTO);
-        } else {
-            log.debug("Found no OU with [lhmOUShortname={}].", ou);
-            return Optional.empty();
+        return this.metrics.call("findOuByShortcode", () -> {
+            if (this.isOuHierarchyIndexLoaded()) {
+                final Optional<LdapOuSearchResultDTO> indexed = this.ouHierarchyIndex.findByShortname(ou);
+                if (indexed.isPresent()) {
+                    log.debug("Found OU with [lhmOUShortname={}] in ou index.", ou);
+                    return this.resolveManagersForOu(indexed.get());
+                }
+            }
+            log.debug("Searching LDAP for ou[lhmOUShortname={}]...", ou);
+            final LdapQuery query = LdapQueryBuilder.query().base(this.ouSearchBase).countLimit(1).searchScope(SearchScope.SUBTREE)
+                    .attributes(this.ouAttributes)
+                    .where(ATTRIBUTE_OBJECT_CLASS).is(LHM_ORGANIZATIONAL_UNIT)
+                    .and(LHM_OU_SHORTNAME).is(ou);
+            final List<LdapOuSearchResultDTO> searchResults = this.search(LdapOperation.OU_LOOKUP, query, this.ldapOuAttributesMapper);
+            if (searchResults.size() == 1) {
+                final LdapOuSearchResultDTO searchResultDTO = searchResults.get(0);
+                log.debug("Found OU with [lhmOUShortname={}]: {}", ou, searchResultDTO);
+                return this.resolveManagersForOu(searchResultDTO);
+            } else {
+                log.debug("Found no OU with [lhmOUShortname={}].", ou);
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Holt die Daten zu mehreren OUs. OUs werden blockweise mit ODER-verknüpften Suchen (bzw. aus dem
+     * {@link OuHierarchyIndex}) gelesen, Leitung/Stellvertretung für alle OUs gesammelt ermittelt.
+     *
+     * @param lhmObjectIds lhmObjectIds der gewünschten OUs
+     * @return Daten der OUs je angefragter lhmObjectId, nicht gefundene fehlen
+     */
+    public Map<String, LdapOuDTO> getOus(final Collection<String> lhmObjectIds) {
+        return this.metrics.call("getOus", () -> {
+            log.debug("Searching LDAP for {} ous by lhmObjectId...", lhmObjectIds.size());
+            return this.findOusBy(ATTRIBUTE_LHM_OBJECT_ID, lhmObjectIds, LdapOuSearchResultDTO::getLhmObjectId,
+                    lhmObjectId -> this.ouHierarchyIndex.findByLhmObjectId(lhmObjectId));
+        });
+    }
+
+    /**
+     * Holt die Daten zu mehreren OUs. OUs werden blockweise mit ODER-verknüpften Suchen (bzw. aus dem
+     * {@link OuHierarchyIndex}) gelesen, Leitung/Stellvertretung für alle OUs gesammelt ermittelt.
+     *
+     * @param ous OU-Shortcodes der Organisationseinheiten (z.B. "ITM-KM21")
+     * @return Daten der OUs je angefragtem OU-Shortcode, nicht gefundene fehlen
+     */
+    public Map<String, LdapOuDTO> findOusByShortcode(final Collection<String> ous) {
+        return this.metrics.call("findOusByShortcode", () -> {
+            log.debug("Searching LDAP for {} ous by lhmOUShortname...", ous.size());
+            return this.findOusBy(LHM_OU_SHORTNAME, ous, LdapOuSearchResultDTO::getLhmOUShortname,
+                    ou -> this.ouHierarchyIndex.findByShortname(ou));
+        });
+    }
+
+    private Map<String, LdapOuDTO> findOusBy(final String attribute, final Collection<String> values,
+            final Function<LdapOuSearchResultDTO, String> keyExtractor,
+            final Function<String, Optional<LdapOuSearchResultDTO>> indexLookup) {
+        final Map<String, String> requested = requestedIgnoringCase(values);
+        final Map<String, LdapOuSearchResultDTO> searchResults = new LinkedHashMap<>();
+        final List<String> misses = new ArrayList<>();
+        for (final String value : requested.values()) {
+            final Optional<LdapOuSearchResultDTO> indexed = this.isOuHierarchyIndexLoaded() ? indexLookup.apply(value) : Optional.empty();
+            if (indexed.isPresent()) {
+                searchResults.put(value, indexed.get());
+            } else {
+                misses.add(value);
+            }
+        }
+        for (final LdapOuSearchResultDTO ou : this.searchInChunks(LdapOperation.OU_LOOKUP, this.ouSearchBase, this.ouAttributes,
+                new EqualsFilter(ATTRIBUTE_OBJECT_CLASS, LHM_ORGANIZATIONAL_UNIT), attribute, misses, this.ldapOuAttributesMapper)) {
+            putIfRequested(searchResults, requested, keyExtractor.apply(ou), ou);
         }
+        log.debug("Found {} of {} ous by {}.", searchResults.size(), requested.size(), attribute);
+        final Map<LdapOuSearchResultDTO, LdapOuDTO> resolved = this.resolveManagersForOus(searchResults.values());
+        final Map<String, LdapOuDTO> ous = new LinkedHashMap<>();
+        searchResults.forEach((value, ou) -> ous.put(value, resolved.get(ou)));
+        return withRequestedKeys(values, requested, ous);
     }
 
     /**
@@ -270,12 +747,15 @@ public class LdapService {
      * @return OU Tree
      */
     public Optional<List<String>> findOuTreeByUserId(final String lhmObjectId) {
-        log.debug("Get LDAP ou tree for user {}.", lhmObjectId);
-        final LdapQuery query = query()
-                .searchScope(SearchScope.SUBTREE)
-                .base(this.userSearchBase)
-                .where(ATTRIBUTE_LHM_OBJECT_ID).is(lhmObjectId);
-        return this.findOuTree(query);
+        return this.metrics.call("findOuTreeByUserId", () -> {
+            log.debug("Get LDAP ou tree for user {}.", lhmObjectId);
+            final LdapQuery query = query()
+                    .searchScope(SearchScope.SUBTREE)
+                    .base(this.userSearchBase)
+                    .attributes(LHM_OBJECT_PATH)
+                    .where(ATTRIBUTE_LHM_OBJECT_ID).is(lhmObjectId);
+            return this.findOuTree(query);
+        });
     }
 
     /**
@@ -285,17 +765,216 @@ public class LdapService {
      * @return OU Tree
      */
     public Optional<List<String>> findOuTreeByOuShortCode(final String ouShortCode) {
-        log.debug("Get LDAP ou tree for ou {}.", ouShortCode);
-        final LdapQuery ouQuery = query()
-                .searchScope(SearchScope.SUBTREE)
-                .base(this.userSearchBase)
-                .countLimit(1)
-                .where("cn").is(ouShortCode);
-        return this.findOuTree(ouQuery);
+        return this.metrics.call("findOuTreeByOuShortCode", () -> {
+            log.debug("Get LDAP ou tree for ou {}.", ouShortCode);
+            if (this.isOuHierarchyIndexLoaded()) {
+                final Optional<List<String>> indexed = this.ouHierarchyIndex.findOuTreeByShortname(ouShortCode);
+                if (indexed.isPresent()) {
+                    return indexed;
+                }
+            }
+            final LdapQuery ouQuery = query()
+                    .searchScope(SearchScope.SUBTREE)
+                    .base(this.userSearchBase)
+                    .countLimit(1)
+                    .attributes(LHM_OBJECT_PATH)
+                    .where("cn").is(ouShortCode);
+            return this.findOuTree(ouQuery);
+        });
+    }
+
+    /**
+     * Liest die OU Trees (Abteilungsbäume) mehrerer OUs ein. Die OUs und alle OUs ihrer Pfade
+     * werden gesammelt mit wenigen Suchen ermittelt.
+     *
+     * @param ouShortCodes Shortcodes der OUs (z.B. ITM-KM21)
+     * @return OU Tree je angefragtem Shortcode, nicht gefundene fehlen
+     */
+    public Map<String, List<String>> findOuTreesByOuShortCode(final Collection<String> ouShortCodes) {
+        return this.metrics.call("findOuTreesByOuShortCode", () -> {
+            log.debug("Get LDAP ou trees for {} ous.", ouShortCodes.size());
+            final Map<String, String> requested = requestedIgnoringCase(ouShortCodes);
+            final Map<String, List<String>> ouTrees = new LinkedHashMap<>();
+            final List<String> misses = new ArrayList<>();
+            for (final String ouShortCode : requested.values()) {
+                final Optional<List<String>> indexed = this.isOuHierarchyIndexLoaded()
+                        ? this.ouHierarchyIndex.findOuTreeByShortname(ouShortCode)
+                        : Optional.empty();
+                if (indexed.isPresent()) {
+                    ouTrees.put(ouShortCode, indexed.get());
+                } else {
+                    misses.add(ouShortCode);
+                }
+            }
+            if (misses.isEmpty()) {
+                return withRequestedKeys(ouShortCodes, requested, ouTrees);
+            }
+            final Map<String, LdapName> objectPaths = new LinkedHashMap<>();
+            for (final Map.Entry<LdapName, List<String>> objectPathWithCns : this.searchInChunks(LdapOperation.OU_TREE, this.userSearchBase,
+                    new String[] { "cn", LHM_OBJECT_PATH }, new PresentFilter(LHM_OBJECT_PATH), "cn", misses,
+                    (AttributesMapper<Map.Entry<LdapName, List<String>>>) attrs -> Map.entry(
+                            new LdapName((String) attrs.get(LHM_OBJECT_PATH).get()), values(attrs.get("cn").getAll())))) {
+                for (final String cn : objectPathWithCns.getValue()) {
+                    putIfRequested(objectPaths, requested, cn, objectPathWithCns.getKey());
+                }
+            }
+            final Set<LdapName> ouDns = new HashSet<>();
+            objectPaths.values().stream().filter(objectPath -> objectPath.startsWith(this.ouSearchBaseName))
+                    .forEach(objectPath -> ouDns.addAll(this.ancestorsWithinOuSearchBase(objectPath)));
+            final List<String> aboveOuSearchBase = ouDns.isEmpty() ? List.of() : this.resolveOuTreeAboveOuSearchBase();
+            final Map<LdapName, String> shortnames = this.resolveOuShortnames(ouDns);
+            objectPaths.forEach((ouShortCode, objectPath) -> {
+                final List<String> ouTree;
+                if (objectPath.startsWith(this.ouSearchBaseName)) {
+                    ouTree = new ArrayList<>(aboveOuSearchBase);
+                    ouTree.addAll(buildOuTree(objectPath, shortnames));
+                } else {
+                    ouTree = this.resolveOuTreePerDn(objectPath);
+                }
+                ouTree.replaceAll(String::toUpperCase);
+                ouTrees.put(ouShortCode, ouTree);
+            });
+            return withRequestedKeys(ouShortCodes, requested, ouTrees);
+        });
+    }
+
+    /**
+     * Asynchrone Variante von {@link #getPerson(String)}.
+     *
+     * @param lhmObjectId siehe {@link #getPerson(String)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Optional<LdapUserDTO>> getPersonAsync(final String lhmObjectId) {
+        return this.async(() -> this.getPerson(lhmObjectId));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #getPersonWithUID(String)}.
+     *
+     * @param uid siehe {@link #getPersonWithUID(String)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Optional<LdapUserDTO>> getPersonWithUIDAsync(final String uid) {
+        return this.async(() -> this.getPersonWithUID(uid));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #getPersons(Collection)}.
+     *
+     * @param lhmObjectIds siehe {@link #getPersons(Collection)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Map<String, LdapUserDTO>> getPersonsAsync(final Collection<String> lhmObjectIds) {
+        return this.async(() -> this.getPersons(lhmObjectIds));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #getPersonsWithUID(Collection)}.
+     *
+     * @param uids siehe {@link #getPersonsWithUID(Collection)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Map<String, LdapUserDTO>> getPersonsWithUIDAsync(final Collection<String> uids) {
+        return this.async(() -> this.getPersonsWithUID(uids));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #findPersonsByOuShortcode(String)}.
+     *
+     * @param ou siehe {@link #findPersonsByOuShortcode(String)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Optional<List<LdapBaseUserDTO>>> findPersonsByOuShortcodeAsync(final String ou) {
+        return this.async(() -> this.findPersonsByOuShortcode(ou));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #searchFor(String, int)}.
+     *
+     * @param searchPhrase siehe {@link #searchFor(String, int)}
+     * @param resultLimit siehe {@link #searchFor(String, int)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<List<LdapBaseUserDTO>> searchForAsync(final String searchPhrase, final int resultLimit) {
+        return this.async(() -> this.searchFor(searchPhrase, resultLimit));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #getOu(String)}.
+     *
+     * @param lhmObjectId siehe {@link #getOu(String)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Optional<LdapOuDTO>> getOuAsync(final String lhmObjectId) {
+        return this.async(() -> this.getOu(lhmObjectId));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #findOuByShortcode(String)}.
+     *
+     * @param ou siehe {@link #findOuByShortcode(String)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Optional<LdapOuDTO>> findOuByShortcodeAsync(final String ou) {
+        return this.async(() -> this.findOuByShortcode(ou));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #getOus(Collection)}.
+     *
+     * @param lhmObjectIds siehe {@link #getOus(Collection)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Map<String, LdapOuDTO>> getOusAsync(final Collection<String> lhmObjectIds) {
+        return this.async(() -> this.getOus(lhmObjectIds));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #findOusByShortcode(Collection)}.
+     *
+     * @param ous siehe {@link #findOusByShortcode(Collection)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Map<String, LdapOuDTO>> findOusByShortcodeAsync(final Collection<String> ous) {
+        return this.async(() -> this.findOusByShortcode(ous));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #findOuTreeByUserId(String)}.
+     *
+     * @param lhmObjectId siehe {@link #findOuTreeByUserId(String)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Optional<List<String>>> findOuTreeByUserIdAsync(final String lhmObjectId) {
+        return this.async(() -> this.findOuTreeByUserId(lhmObjectId));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #findOuTreeByOuShortCode(String)}.
+     *
+     * @param ouShortCode siehe {@link #findOuTreeByOuShortCode(String)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Optional<List<String>>> findOuTreeByOuShortCodeAsync(final String ouShortCode) {
+        return this.async(() -> this.findOuTreeByOuShortCode(ouShortCode));
+    }
+
+    /**
+     * Asynchrone Variante von {@link #findOuTreesByOuShortCode(Collection)}.
+     *
+     * @param ouShortCodes siehe {@link #findOuTreesByOuShortCode(Collection)}
+     * @return das Ergebnis, wird auf dem {@link #setExecutor(Executor) Executor} ermittelt
+     */
+    public CompletableFuture<Map<String, List<String>>> findOuTreesByOuShortCodeAsync(final Collection<String> ouShortCodes) {
+        return this.async(() -> this.findOuTreesByOuShortCode(ouShortCodes));
     }
 
     /**
      * Helper method to find the ou tree for a given query. The query can be a user or ou query.
+     * <p>
+     * All OUs of the resulting lhmObjectPath that are located below the ou search base are resolved
+     * with a single LDAP search (or from the {@link OuHierarchyIndex}, if it knows the OU), OUs above the ou
+     * search base with one search per dn.
      *
      * @see #findOuTreeByUserId
      * @see #findOuTreeByOuShortCode
@@ -304,7 +983,7 @@ public class LdapService {
      * @return OU Tree
      */
     private Optional<List<String>> findOuTree(final LdapQuery query) {
-        List<LdapName> ldapNames = this.ldapTemplate.search(query, (AttributesMapper<LdapName>) attrs -> {
+        List<LdapName> ldapNames = this.search(LdapOperation.OU_TREE, query, (AttributesMapper<LdapName>) attrs -> {
             if (null != attrs.get(LHM_OBJECT_PATH)) {
                 return new LdapName((String) attrs.get(LHM_OBJECT_PATH).get());
             }
@@ -318,42 +997,383 @@ public class LdapService {
         }
 
         final LdapName ldapName = ldapNames.get(0);
+        final Optional<List<String>> indexed = this.isOuHierarchyIndexLoaded() && ldapName.startsWith(this.ouSearchBaseName)
+                ? this.ouHierarchyIndex.findOuTree(ldapName)
+                : Optional.empty();
+        final List<String> ouTree;
+        if (indexed.isPresent()) {
+            ouTree = new ArrayList<>(indexed.get());
+        } else if (ldapName.startsWith(this.ouSearchBaseName)) {
+            // index not loaded or ou created after its last refresh
+            ouTree = this.resolveOuTreeAboveOuSearchBase();
+            ouTree.addAll(buildOuTree(ldapName, this.resolveOuShortnames(this.ancestorsWithinOuSearchBase(ldapName))));
+        } else {
+            log.debug("lhmObjectPath '{}' is not located below ou search base, resolving ou tree per dn.", ldapName);
+            ouTree = this.resolveOuTreePerDn(ldapName);
+        }
+        ouTree.replaceAll(String::toUpperCase);
+        return Optional.of(ouTree);
+    }
+
+    /**
+     * Liefert alle DNs des Pfads, die innerhalb der OU Search-Base liegen (inkl. der Search-Base
+     * selbst und des Pfads).
+     *
+     * @param objectPath der DN einer OU (z.B. lhmObjectPath einer Person)
+     * @return die DNs
+     */
+    private List<LdapName> ancestorsWithinOuSearchBase(final LdapName objectPath) {
+        final List<LdapName> ancestors = new ArrayList<>();
+        for (int i = this.ouSearchBaseName.size(); i <= objectPath.size(); i++) {
+            ancestors.add((LdapName) objectPath.getPrefix(i));
+        }
+        return ancestors;
+    }
+
+    /**
+     * Löst die OUs oberhalb der OU Search-Base mit einer Suche je DN-Präfix auf, sie sind für alle
+     * Pfade unterhalb der Search-Base gleich.
+     *
+     * @return OU Tree oberhalb der Search-Base
+     */
+    private List<String> resolveOuTreeAboveOuSearchBase() {
+        if (this.ouSearchBaseName.size() < 2) {
+            return new ArrayList<>();
+        }
+        return this.resolveOuTreePerDn((LdapName) this.ouSearchBaseName.getPrefix(this.ouSearchBaseName.size() - 1));
+    }
+
+    /**
+     * Ermittelt die Kurzbezeichnungen (lhmOUShortname) der OUs zu den angegebenen DNs mit einer
+     * einzigen Suche (bzw. einer Suche je Block bei vielen DNs) unterhalb der OU Search-Base. Gesucht
+     * wird nach OUs, deren RDN einem der RDNs der angegebenen DNs entspricht, die Treffer werden
+     * anschließend anhand des vollständigen DNs zugeordnet.
+     *
+     * @param ouDns DNs innerhalb der OU Search-Base
+     * @return Kurzbezeichnung je DN, DNs ohne OU bzw. ohne Kurzbezeichnung fehlen
+     */
+    private Map<LdapName, String> resolveOuShortnames(final Collection<LdapName> ouDns) {
+        if (ouDns.isEmpty()) {
+            return Map.of();
+        }
+        final Set<LdapName> wanted = new HashSet<>(ouDns);
+        final Set<Rdn> rdns = new LinkedHashSet<>();
+        for (final LdapName dn : wanted) {
+            rdns.add(dn.getRdn(dn.size() - 1));
+        }
+        log.debug("Searching for {} ou dns below '{}' ...", wanted.size(), this.ouSearchBase);
+        final List<Rdn> rdnList = new ArrayList<>(rdns);
+        final Map<LdapName, String> shortnames = new HashMap<>();
+        for (int i = 0; i < rdnList.size(); i += BATCH_CHUNK_SIZE) {
+            final OrFilter rdnFilter = new OrFilter();
+            for (final Rdn rdn : rdnList.subList(i, Math.min(i + BATCH_CHUNK_SIZE, rdnList.size()))) {
+                rdnFilter.or(new EqualsFilter(rdn.getType(), rdn.getValue().toString()));
+            }
+            final LdapQuery query = LdapQueryBuilder.query().base(this.ouSearchBase)
+                    .searchScope(SearchScope.SUBTREE)
+                    .attributes(LHM_OU_SHORTNAME)
+                    .filter(new AndFilter().and(new EqualsFilter(ATTRIBUTE_OBJECT_CLASS, LHM_ORGANIZATIONAL_UNIT)).and(rdnFilter));
+            for (final Map.Entry<LdapName, String> dnWithShortname : this.search(LdapOperation.OU_TREE, query,
+                    (ContextMapper<Map.Entry<LdapName, String>>) ctx -> {
+                        final DirContextOperations entry = (DirContextOperations) ctx;
+                        final String shortname = entry.getStringAttribute(LHM_OU_SHORTNAME);
+                        return shortname != null ? Map.entry(LdapUtils.newLdapName(entry.getNameInNamespace()), shortname) : null;
+                    })) {
+                if (dnWithShortname != null && wanted.contains(dnWithShortname.getKey())) {
+                    shortnames.put(dnWithShortname.getKey(), dnWithShortname.getValue());
+                }
+            }
+        }
+        return shortnames;
+    }
 
+    /**
+     * Baut den OU-Baum (von oben nach unten) zum angegebenen Pfad aus bereits aufgelösten
+     * Kurzbezeichnungen.
+     *
+     * @param objectPath der DN der untersten OU
+     * @param shortnames Kurzbezeichnung je DN
+     * @return OU Tree
+     */
+    private static List<String> buildOuTree(final LdapName objectPath, final Map<LdapName, String> shortnames) {
         final List<String> ouTree = new ArrayList<>();
+        for (int i = 1; i <= objectPath.size(); i++) {
+            final String shortname = shortnames.get((LdapName) objectPath.getPrefix(i));
+            if (shortname != null) {
+                ouTree.add(shortname);
+            }
+        }
+        return ouTree;
+    }
 
+    /**
+     * Löst den OU-Baum mit einer Suche je DN-Präfix auf. Wird für Pfade verwendet, die nicht
+     * unterhalb der OU Search-Base liegen, und für die OUs oberhalb der Search-Base.
+     *
+     * @param ldapName der DN der untersten OU
+     * @return OU Tree
+     */
+    private List<String> resolveOuTreePerDn(final LdapName ldapName) {
+        final List<Supplier<List<String>>> lookups = new ArrayList<>();
         for (int i = 1; i <= ldapName.getRdns().size(); i++) {
             final Name partialDN = ldapName.getPrefix(i);
+            lookups.add(() -> this.lookupOuShortname(partialDN));
+        }
+        // die Präfixe sind voneinander unabhängig
+        final List<String> ouTree = new ArrayList<>();
+        this.forkJoin(lookups).forEach(ouTree::addAll);
+        return ouTree;
+    }
 
+    private List<String> lookupOuShortname(final Name partialDN) {
+        try {
+            log.debug("Searching for dn='{} & objectClass='{}' ...", partialDN, LHM_ORGANIZATIONAL_UNIT);
+            final LdapQuery ouObjectReferenceQuery = query()
+                    .searchScope(SearchScope.OBJECT)
+                    .base(partialDN)
+                    .countLimit(1)
+                    .attributes(LHM_OU_SHORTNAME)
+                    .where(ATTRIBUTE_OBJECT_CLASS).is(LHM_ORGANIZATIONAL_UNIT);
+            List<String> ouShortnames = this.search(LdapOperation.OU_TREE, ouObjectReferenceQuery, (AttributesMapper<String>) attrs -> {
+                if (null != attrs.get(LHM_OU_SHORTNAME)) {
+                    return (String) attrs.get(LHM_OU_SHORTNAME).get();
+                }
+                return null;
+            });
+            return ouShortnames.stream().filter(Objects::nonNull).toList();
+        } catch (final NameNotFoundException ex) {
+            log.warn("No shortCode found for dn {}. Query failed with {} exception", partialDN, ex.getClass().getName());
+            return List.of();
+        }
+    }
+
+    private <T> List<T> search(final LdapOperation operation, final LdapQuery query, final AttributesMapper<T> attributesMapper) {
+        final LdapQuery limitedQuery = this.withLimits(operation, query);
+        final SlowQueryLog.Search slowQuery = this.slowQueryLog.start(operation, limitedQuery);
+        final AttributesMapper<T> mapper = slowQuery.measure(attributesMapper);
+        return slowQuery.run(() -> this.withinDeadline(() -> this.execute(operation, limitedQuery,
+                this.hedged(operation, () -> this.ldapTemplate.search(limitedQuery, mapper)))), List::size);
+    }
+
+    private <T> List<T> search(final LdapOperation operation, final LdapQuery query, final ContextMapper<T> contextMapper) {
+        final LdapQuery limitedQuery = this.withLimits(operation, query);
+        final SlowQueryLog.Search slowQuery = this.slowQueryLog.start(operation, limitedQuery);
+        final ContextMapper<T> mapper = slowQuery.measure(contextMapper);
+        return slowQuery.run(() -> this.withinDeadline(() -> this.execute(operation, limitedQuery,
+                this.hedged(operation, () -> this.ldapTemplate.search(limitedQuery, mapper)))), List::size);
+    }
+
+    /**
+     * Ergänzt die Suche um Time Limit und Count Limit der {@link LdapOperation} und die verbleibende
+     * Zeit der {@link LdapDeadline}.
+     *
+     * @throws LdapDeadlineExceededException wenn die {@link LdapDeadline} bereits überschritten ist
+     */
+    private LdapQuery withLimits(final LdapOperation operation, final LdapQuery query) {
+        Duration timeLimit = this.timeLimits.get(operation);
+        final Optional<Duration> remaining = LdapDeadline.remaining();
+        if (remaining.isPresent()) {
+            if (!remaining.get().isPositive()) {
+                throw new LdapDeadlineExceededException("Request deadline exceeded before " + operation.getName() + " search", null);
+            }
+            if (timeLimit == null || remaining.get().compareTo(timeLimit) < 0) {
+                timeLimit = remaining.get();
+            }
+        }
+        Integer countLimit = this.countLimits.get(operation);
+        if (query.countLimit() != null && (countLimit == null || query.countLimit() < countLimit)) {
+            countLimit = query.countLimit();
+        }
+        if (timeLimit == null && Objects.equals(countLimit, query.countLimit())) {
+            return query;
+        }
+        // ldap time limits have a resolution of whole seconds
+        final Integer timeLimitMillis = timeLimit != null
+                ? (int) Math.max(1, (timeLimit.toMillis() + 999) / 1000) * 1000
+                : query.timeLimit();
+        return new LimitedLdapQuery(query, timeLimitMillis, countLimit);
+    }
+
+    /**
+     * Führt die Suche bei gesetzter {@link LdapDeadline} in einem eigenen virtuellen Thread aus und
+     * wartet höchstens bis zur Deadline. Das auf Sekunden aufgerundete Time Limit der Suche würde
+     * die Deadline sonst um bis zu eine Sekunde überschreiten. Die abgebrochene Suche endet
+     * spätestens mit ihrem Time Limit.
+     *
+     * @throws LdapDeadlineExceededException wenn die Suche bis zur Deadline nicht abgeschlossen ist
+     */
+    private <T> T withinDeadline(final Supplier<T> search) {
+        final Optional<Duration> remaining = LdapDeadline.remaining();
+        if (remaining.isEmpty()) {
+            return search.get();
+        }
+        final CompletableFuture<T> result = CompletableFuture.supplyAsync(this.propagate(search), ASYNC_EXECUTOR);
+        try {
+            return result.get(remaining.get().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (final TimeoutException e) {
+            throw new LdapDeadlineExceededException("Request deadline exceeded during search", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LdapDeadlineExceededException("Interrupted while waiting for search", e);
+        }
+    }
+
+    private <T> Supplier<T> hedged(final LdapOperation operation, final Supplier<T> search) {
+        final LdapRequestHedger hedger = this.requestHedger;
+        return hedger != null ? () -> hedger.execute(operation, search) : search;
+    }
+
+    /**
+     * Führt einen LDAP-Zugriff aus, bei gesetzter {@link CircuitBreakerRegistry} über den Circuit
+     * Breaker der {@link LdapOperation}. Ein Time Limit, das erst nach Ablauf der
+     * {@link LdapDeadline} eintritt, wird als {@link LdapDeadlineExceededException} geworfen und
+     * zählt damit nicht als Fehler des Circuit Breakers.
+     *
+     * @param operation die {@link LdapOperation}
+     * @param query die Suche
+     * @param access der LDAP-Zugriff
+     * @return Ergebnis des Zugriffs
+     */
+    private <T> T execute(final LdapOperation operation, final LdapQuery query, final Supplier<T> access) {
+        final Supplier<T> deadlineAware = () -> {
             try {
-                log.debug("Searching for dn='{} & objectClass='{}' ...", partialDN, LHM_ORGANIZATIONAL_UNIT);
-                final LdapQuery ouObjectReferenceQuery = query()
-                        .searchScope(SearchScope.OBJECT)
-                        .base(partialDN)
-                        .countLimit(1)
-                        .where(ATTRIBUTE_OBJECT_CLASS).is(LHM_ORGANIZATIONAL_UNIT);
-                List<String> ouShortnames = this.ldapTemplate.search(ouObjectReferenceQuery, (AttributesMapper<String>) attrs -> {
-                    if (null != attrs.get(LHM_OU_SHORTNAME)) {
-                        return (String) attrs.get(LHM_OU_SHORTNAME).get();
+                return access.get();
+            } catch (final TimeLimitExceededException e) {
+                if (e instanceof LdapDeadlineExceededException || !LdapDeadline.isExceeded()) {
+                    throw e;
+                }
+                throw new LdapDeadlineExceededException("Request deadline exceeded during " + operation.getName() + " search", e);
+            }
+        };
+        return this.metrics.search(operation, query, () -> {
+            if (this.circuitBreakerRegistry == null) {
+                return deadlineAware.get();
+            }
+            return this.circuitBreakerRegistry.circuitBreaker("ezldap-" + operation.getName()).executeSupplier(deadlineAware);
+        });
+    }
+
+    private boolean isOuHierarchyIndexLoaded() {
+        return this.ouHierarchyIndex != null && this.ouHierarchyIndex.isLoaded();
+    }
+
+    /**
+     * Ermittelt Leitung/Stellvertretung für mehrere OUs gesammelt: Personen aus den Manager
+     * Attributen werden mit einer Batch-Suche über die uid gelesen, Personen mit lhmRankInOU
+     * 01/03 mit einer Batch-Suche über lhmObjectReference.
+     *
+     * @param searchResults die OUs
+     * @return das gemappte {@link LdapOuDTO} je OU
+     */
+    private Map<LdapOuSearchResultDTO, LdapOuDTO> resolveManagersForOus(final Collection<LdapOuSearchResultDTO> searchResults) {
+        return this.metrics.call("resolveManagers", () -> {
+            final Set<String> managerUids = new LinkedHashSet<>();
+            final Set<String> ouIdsWithoutManagers = new LinkedHashSet<>();
+            for (final LdapOuSearchResultDTO searchResult : searchResults) {
+                if (searchResult.getLhmOUManager() != null || searchResult.getLhmOU2ndManager() != null) {
+                    Optional.ofNullable(searchResult.getLhmOUManager()).ifPresent(managerUids::add);
+                    Optional.ofNullable(searchResult.getLhmOU2ndManager()).ifPresent(managerUids::add);
+                } else if (searchResult.getLhmObjectId() != null) {
+                    ouIdsWithoutManagers.add(searchResult.getLhmObjectId());
+                }
+            }
+            final Map<String, LdapUserDTO> managers = managerUids.isEmpty() ? Map.of() : this.getPersonsWithUID(managerUids);
+            final Map<String, LdapUserDTO> rankedPersons = this.lookupPersonsInOusWithRank(ouIdsWithoutManagers);
+            return this.metrics.mapping("toLdapOuDTOs", () -> {
+                final Map<LdapOuSearchResultDTO, LdapOuDTO> ous = new IdentityHashMap<>();
+                for (final LdapOuSearchResultDTO searchResult : searchResults) {
+                    final LdapOuDTO ouDTO = this.mapper.toLdapOuDTO(searchResult);
+                    if (searchResult.getLhmOUManager() != null || searchResult.getLhmOU2ndManager() != null) {
+                        ouDTO.setLeitung(searchResult.getLhmOUManager() != null ? managers.get(searchResult.getLhmOUManager()) : null);
+                        ouDTO.setStellvertretung(
+                                searchResult.getLhmOU2ndManager() != null ? managers.get(searchResult.getLhmOU2ndManager()) : null);
+                    } else {
+                        ouDTO.setLeitung(rankedPersons.get(rankKey(searchResult.getLhmObjectId(), RANK_LEITUNG)));
+                        ouDTO.setStellvertretung(rankedPersons.get(rankKey(searchResult.getLhmObjectId(), RANK_STELLVERTRETUNG)));
+                    }
+                    ous.put(searchResult, ouDTO);
+                }
+                return ous;
+            });
+        });
+    }
+
+    /**
+     * Sucht die Personen mit lhmRankInOU 01 (Leitung) bzw. 03 (Stellvertretung) in mehreren OUs.
+     *
+     * @param lhmObjectIdsOfOus lhmObjectIds der OUs
+     * @return die Personen je {@link #rankKey(String, String)}
+     */
+    private Map<String, LdapUserDTO> lookupPersonsInOusWithRank(final Collection<String> lhmObjectIdsOfOus) {
+        if (lhmObjectIdsOfOus.isEmpty()) {
+            return Map.of();
+        }
+        final String[] attributes = Arrays.copyOf(this.userAttributes, this.userAttributes.length + 2);
+        attributes[attributes.length - 2] = LHM_OBJECT_REFERENCE;
+        attributes[attributes.length - 1] = LHM_RANK_IN_OU;
+        final AndFilter rankFilter = new AndFilter()
+                .and(new EqualsFilter(ATTRIBUTE_OBJECT_CLASS, PERSON))
+                .and(new EqualsFilter(ATTRIBUTE_OBJECT_CLASS, LHM_PERSON))
+                .and(new PresentFilter(ATTRIBUTE_LHM_OBJECT_ID)) // es gibt Personen ohne lhmObjectId ¯\_(ツ)_/¯
+                .and(new OrFilter()
+                        .or(new EqualsFilter(LHM_RANK_IN_OU, RANK_LEITUNG))
+                        .or(new EqualsFilter(LHM_RANK_IN_OU, RANK_STELLVERTRETUNG)));
+        final Set<String> wanted = new HashSet<>(lhmObjectIdsOfOus);
+        final Map<String, LdapUserDTO> rankedPersons = new HashMap<>();
+        final List<RankedPerson> searchResults = this.searchInChunks(LdapOperation.PERSON_LOOKUP, this.userSearchBase, attributes,
+                rankFilter, LHM_OBJECT_REFERENCE, lhmObjectIdsOfOus, (AttributesMapper<RankedPerson>) attrs -> {
+                    if (attrs.get(LHM_RANK_IN_OU) == null) {
+                        return null;
                     }
-                    return null;
+                    return new RankedPerson((String) attrs.get(LHM_RANK_IN_OU).get(),
+                            this.ldapUserAttributesMapper.mapFromAttributes(attrs), values(attrs.get(LHM_OBJECT_REFERENCE).getAll()));
                 });
-                ouTree.addAll(ouShortnames.stream().filter(Objects::nonNull).toList());
-            } catch (final NameNotFoundException ex) {
-                log.warn("No shortCode found for dn {}. Query failed with {} exception", partialDN, ex.getClass().getName());
+        for (final RankedPerson rankedPerson : searchResults) {
+            if (rankedPerson == null) {
+                continue;
+            }
+            for (final String reference : rankedPerson.references()) {
+                if (wanted.contains(reference)) {
+                    rankedPersons.putIfAbsent(rankKey(reference, rankedPerson.rank()), rankedPerson.person());
+                }
             }
         }
-        ouTree.replaceAll(String::toUpperCase);
-        return Optional.of(ouTree);
+        return rankedPersons;
     }
 
-    private Optional<LdapOuDTO> resolveManagersForOu(final LdapOuSearchResultDTO searchResultDTO) {
-        if (searchResultDTO.getLhmOUManager() != null || searchResultDTO.getLhmOU2ndManager() != null) {
-            // Manager Attribute sind gesetzt, ermittle Leitung/Stvt. darüber
-            return Optional.of(this.ermittleLeitungByManagerAttributes(searchResultDTO));
-        } else {
-            // suche Personen in der OU mit lhmRankInOu = 01 / 03 (Leitung / Stellvertretung)
-            return Optional.of(this.ermittleLeitungByRankInOu(searchResultDTO));
+    private static String rankKey(final String lhmObjectIdOfOu, final String rankMarker) {
+        return lhmObjectIdOfOu + "/" + rankMarker;
+    }
+
+    private static List<String> values(final NamingEnumeration<?> values) throws NamingException {
+        final List<String> result = new ArrayList<>();
+        while (values.hasMore()) {
+            result.add((String) values.next());
         }
+        return result;
+    }
+
+    /**
+     * Person mit lhmRankInOu und den OUs (lhmObjectReference), für die der Rang gilt.
+     */
+    private record RankedPerson(String rank, LdapUserDTO person, List<String> references) {
+    }
+
+    private Optional<LdapOuDTO> resolveManagersForOu(final LdapOuSearchResultDTO searchResultDTO) {
+        return this.metrics.call("resolveManagers", () -> {
+            if (searchResultDTO.getLhmOUManager() != null || searchResultDTO.getLhmOU2ndManager() != null) {
+                // Manager Attribute sind gesetzt, ermittle Leitung/Stvt. darüber
+                return Optional.of(this.ermittleLeitungByManagerAttributes(searchResultDTO));
+            } else {
+                // suche Personen in der OU mit lhmRankInOu = 01 / 03 (Leitung / Stellvertretung)
+                return Optional.of(this.ermittleLeitungByRankInOu(searchResultDTO));
+            }
+        });
     }
 
     /**
@@ -364,15 +1384,18 @@ public class LdapService {
      * @return das gemappte {@link LdapOuDTO}
      */
     private LdapOuDTO ermittleLeitungByRankInOu(final LdapOuSearchResultDTO searchResultDTO) {
-        final LdapOuDTO ouDTO = this.mapper.toLdapOuDTO(searchResultDTO);
-        final Optional<LdapUserDTO> leitung = this.lookupPersonInOuWithRank(searchResultDTO.getLhmObjectId(), "01");
+        final LdapOuDTO ouDTO = this.metrics.mapping("toLdapOuDTO", () -> this.mapper.toLdapOuDTO(searchResultDTO));
+        final List<Optional<LdapUserDTO>> leitungen = this.forkJoin(List.of(
+                () -> this.lookupPersonInOuWithRank(searchResultDTO.getLhmObjectId(), RANK_LEITUNG),
+                () -> this.lookupPersonInOuWithRank(searchResultDTO.getLhmObjectId(), RANK_STELLVERTRETUNG)));
+        final Optional<LdapUserDTO> leitung = leitungen.get(0);
         if (leitung.isPresent()) {
             log.debug("Found Leitung (lhmRankInOU=01): {}", leitung.get().getUid());
             ouDTO.setLeitung(leitung.get());
         } else {
             log.debug("No Leitung found (no person in OU with lhmRankInOu=01).");
         }
-        final Optional<LdapUserDTO> stellvertretung = this.lookupPersonInOuWithRank(searchResultDTO.getLhmObjectId(), "03");
+        final Optional<LdapUserDTO> stellvertretung = leitungen.get(1);
         if (stellvertretung.isPresent()) {
             log.debug("Found Stellvertretung (lhmRankInOu=03): {}", stellvertretung.get().getUid());
             ouDTO.setStellvertretung(stellvertretung.get());
@@ -385,12 +1408,13 @@ public class LdapService {
     private Optional<LdapUserDTO> lookupPersonInOuWithRank(final String lhmObjectIdOfOu, final String rankMarker) {
         final LdapQuery query = LdapQueryBuilder.query().base(this.userSearchBase).countLimit(1)
                 .searchScope(SearchScope.SUBTREE)
+                .attributes(this.userAttributes)
                 .where(ATTRIBUTE_OBJECT_CLASS).is(PERSON)
                 .and(ATTRIBUTE_OBJECT_CLASS).is(LHM_PERSON)
                 .and(ATTRIBUTE_LHM_OBJECT_ID).isPresent() // es gibt Personen ohne lhmObjectId ¯\_(ツ)_/¯
-                .and("lhmObjectReference").is(lhmObjectIdOfOu)
-                .and("lhmRankInOu").is(rankMarker);
-        final List<LdapUserDTO> searchResult = this.ldapTemplate.search(query, this.ldapUserAttributesMapper);
+                .and(LHM_OBJECT_REFERENCE).is(lhmObjectIdOfOu)
+                .and(LHM_RANK_IN_OU).is(rankMarker);
+        final List<LdapUserDTO> searchResult = this.search(LdapOperation.PERSON_LOOKUP, query, this.ldapUserAttributesMapper);
         if (searchResult.size() == 1) {
             return Optional.of(searchResult.get(0));
         } else {
@@ -406,10 +1430,12 @@ public class LdapService {
      * @return das gemappte {@link LdapOuDTO}
      */
     private LdapOuDTO ermittleLeitungByManagerAttributes(final LdapOuSearchResultDTO searchResultDTO) {
-        final LdapOuDTO ouDTO = this.mapper.toLdapOuDTO(searchResultDTO);
+        final LdapOuDTO ouDTO = this.metrics.mapping("toLdapOuDTO", () -> this.mapper.toLdapOuDTO(searchResultDTO));
+        final List<Optional<LdapUserDTO>> managers = this.forkJoin(List.of(
+                () -> this.lookupManager(searchResultDTO.getLhmOUManager()),
+                () -> this.lookupManager(searchResultDTO.getLhmOU2ndManager())));
         if (searchResultDTO.getLhmOUManager() != null) {
-            log.debug("Looking up lhmOUManager = {} ...", searchResultDTO.getLhmOUManager());
-            final Optional<LdapUserDTO> manager = this.getPersonWithUID(searchResultDTO.getLhmOUManager());
+            final Optional<LdapUserDTO> manager = managers.get(0);
             if (manager.isPresent()) {
                 log.debug("Found lhmOUManager person: {}", manager.get());
                 ouDTO.setLeitung(manager.get());
@@ -418,8 +1444,7 @@ public class LdapService {
             }
         }
         if (searchResultDTO.getLhmOU2ndManager() != null) {
-            log.debug("Looking up lhmOU2ndManager = {} ...", searchResultDTO.getLhmOU2ndManager());
-            final Optional<LdapUserDTO> manager = this.getPersonWithUID(searchResultDTO.getLhmOU2ndManager());
+            final Optional<LdapUserDTO> manager = managers.get(1);
             if (manager.isPresent()) {
                 log.debug("Found lhmOU2ndManager person: {}", manager.get());
                 ouDTO.setStellvertretung(manager.get());
@@ -430,4 +1455,63 @@ public class LdapService {
         return ouDTO;
     }
 
+    private Optional<LdapUserDTO> lookupManager(final String uid) {
+        if (uid == null) {
+            return Optional.empty();
+        }
+        log.debug("Looking up manager uid = {} ...", uid);
+        return this.getPersonWithUID(uid);
+    }
+
+    private <T> CompletableFuture<T> async(final Supplier<T> call) {
+        return CompletableFuture.supplyAsync(this.propagate(call), this.executor != null ? this.executor : ASYNC_EXECUTOR);
+    }
+
+    /**
+     * Führt voneinander unabhängige Teilsuchen aus, bei {@link #setParallelSubLookups(boolean)}
+     * parallel auf je einem virtuellen Thread. Die erste Teilsuche läuft im aufrufenden Thread.
+     * Schlägt eine Teilsuche fehl, werden die noch laufenden Teilsuchen unterbrochen.
+     *
+     * @param lookups die Teilsuchen
+     * @param <T> Typ der Ergebnisse
+     * @return die Ergebnisse in der Reihenfolge der Teilsuchen
+     */
+    private <T> List<T> forkJoin(final List<Supplier<T>> lookups) {
+        if (!this.parallelSubLookups || lookups.size() < 2) {
+            return lookups.stream().map(Supplier::get).toList();
+        }
+        // FutureTask instead of CompletableFuture, only its cancel(true) interrupts the running sub-lookup
+        final List<FutureTask<T>> forked = new ArrayList<>(lookups.size() - 1);
+        for (final Supplier<T> lookup : lookups.subList(1, lookups.size())) {
+            final FutureTask<T> task = new FutureTask<>(this.propagate(lookup)::get);
+            forked.add(task);
+            ASYNC_EXECUTOR.execute(task);
+        }
+        final List<T> results = new ArrayList<>(lookups.size());
+        try {
+            results.add(lookups.get(0).get());
+            for (final FutureTask<T> task : forked) {
+                results.add(task.get());
+            }
+        } catch (final ExecutionException e) {
+            forked.forEach(task -> task.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (final InterruptedException e) {
+            forked.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (final RuntimeException e) {
+            forked.forEach(task -> task.cancel(true));
+            throw e;
+        }
+        return results;
+    }
+
+    private <T> Supplier<T> propagate(final Supplier<T> task) {
+        return LdapDeadline.propagate(this.metrics.propagate(task));
+    }
+
 }
@@ -0,0 +1,282 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.SearchScope;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Micrometer-Metriken des {@link LdapService}:
+ * <ul>
+ * <li><code>ezldap.service.calls</code>: Dauer je Methode (Tags <code>method</code>,
+ * <code>exception</code>)</li>
+ * <li><code>ezldap.service.results</code>: Anzahl der Ergebnisse je Methode</li>
+ * <li><code>ezldap.service.roundtrips</code>: Anzahl der LDAP-Suchen je Aufruf, gezählt für den
+ * äußersten Aufruf (z.B. inkl. der Suchen nach Leitung/Stellvertretung bei getOu)</li>
+ * <li><code>ezldap.ldap.searches</code>: Dauer je LDAP-Suche (Tags <code>operation</code>,
+ * <code>exception</code>)</li>
+ * </ul>
+ * Ohne {@link MeterRegistry} werden keine Metriken erfasst. Ohne beide Registries werden keine
+ * Micrometer-Klassen geladen, Micrometer ist dann nicht erforderlich.
+ * <p>
+ * Mit einer {@link ObservationRegistry} werden zusätzlich Observations (z.B. Spans für Tracing)
+ * erzeugt: <code>ezldap.service.call</code> je Methode, <code>ezldap.ldap.search</code> je
+ * LDAP-Suche (Tags <code>operation</code>, <code>base</code>, <code>scope</code> und
+ * <code>filter</code> als Vorlage ohne Werte) und <code>ezldap.mapping</code> für das Mapping der
+ * DTOs. So wird sichtbar, in welche LDAP-Suchen sich ein Aufruf auffächert.
+ *
+ * @author michael.prankl
+ */
+final class LdapServiceMetrics {
+
+    private static final String NONE = "none";
+    private static final ThreadLocal<AtomicInteger> ROUNDTRIPS = new ThreadLocal<>();
+    /**
+     * Ein einfacher Filter-Ausdruck, z.B. <code>(uid=abc*)</code>.
+     */
+    private static final Pattern FILTER_ITEM = Pattern.compile("\\(([^()=~<>]+)(=|~=|>=|<=)([^()]*)\\)");
+    /**
+     * Direkt wiederholte, gleiche Ausdrücke, z.B. aus Batch-Suchen <code>(|(uid=?)(uid=?)...)</code>.
+     */
+    private static final Pattern REPEATED_ITEMS = Pattern.compile("(\\([^()]+\\))\\1+");
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param meterRegistry die {@link MeterRegistry}, <code>null</code> für keine Metriken
+     * @param observationRegistry die {@link ObservationRegistry}, <code>null</code> für keine
+     *            Observations
+     */
+    LdapServiceMetrics(final MeterRegistry meterRegistry, final ObservationRegistry observationRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Misst einen Aufruf einer Methode des {@link LdapService}.
+     *
+     * @param method Name der Methode
+     * @param call der Aufruf
+     * @param <T> Typ des Ergebnisses
+     * @return das Ergebnis des Aufrufs
+     */
+    <T> T call(final String method, final Supplier<T> call) {
+        if (this.observationRegistry == null) {
+            return this.timedCall(method, call);
+        }
+        return Observation.createNotStarted("ezldap.service.call", this.observationRegistry)
+                .contextualName("ezldap " + method)
+                .lowCardinalityKeyValue("method", method)
+                .observe(() -> this.timedCall(method, call));
+    }
+
+    private <T> T timedCall(final String method, final Supplier<T> call) {
+        if (this.meterRegistry == null) {
+            return call.get();
+        }
+        final boolean outermost = ROUNDTRIPS.get() == null;
+        if (outermost) {
+            ROUNDTRIPS.set(new AtomicInteger());
+        }
+        final Timer.Sample sample = Timer.start(this.meterRegistry);
+        String exception = NONE;
+        try {
+            final T result = call.get();
+            DistributionSummary.builder("ezldap.service.results")
+                    .description("Anzahl der Ergebnisse je Aufruf")
+                    .tag("method", method)
+                    .register(this.meterRegistry)
+                    .record(resultCount(result));
+            return result;
+        } catch (final RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("ezldap.service.calls")
+                    .description("Dauer der Aufrufe des LdapService")
+                    .tags("method", method, "exception", exception)
+                    .publishPercentileHistogram()
+                    .register(this.meterRegistry));
+            if (outermost) {
+                DistributionSummary.builder("ezldap.service.roundtrips")
+                        .description("Anzahl der LDAP-Suchen je Aufruf")
+                        .tag("method", method)
+                        .register(this.meterRegistry)
+                        .record(ROUNDTRIPS.get().get());
+                ROUNDTRIPS.remove();
+            }
+        }
+    }
+
+    /**
+     * Misst eine LDAP-Suche.
+     *
+     * @param operation die {@link LdapOperation}
+     * @param query die Suche, liefert base, scope und filter der Observation
+     * @param search die Suche
+     * @param <T> Typ des Ergebnisses
+     * @return das Ergebnis der Suche
+     */
+    <T> T search(final LdapOperation operation, final LdapQuery query, final Supplier<T> search) {
+        if (this.observationRegistry == null || this.observationRegistry.isNoop()) {
+            return this.timedSearch(operation, search);
+        }
+        final SearchScope scope = query.searchScope() != null ? query.searchScope() : SearchScope.SUBTREE;
+        return Observation.createNotStarted("ezldap.ldap.search", this.observationRegistry)
+                .contextualName("ldap search " + operation.getName())
+                .lowCardinalityKeyValue("operation", operation.getName())
+                // bei Objekt-Suchen ist die base selbst der gesuchte Wert
+                .lowCardinalityKeyValue("base", scope == SearchScope.OBJECT ? "?" : query.base().toString())
+                .lowCardinalityKeyValue("scope", scope.name())
+                .lowCardinalityKeyValue("filter", filterTemplate(query.filter().encode()))
+                .observe(() -> this.timedSearch(operation, search));
+    }
+
+    /**
+     * Beobachtet einen Mapping-Schritt.
+     *
+     * @param step Name des Schritts
+     * @param mapping das Mapping
+     * @param <T> Typ des Ergebnisses
+     * @return das Ergebnis des Mappings
+     */
+    <T> T mapping(final String step, final Supplier<T> mapping) {
+        if (this.observationRegistry == null) {
+            return mapping.get();
+        }
+        return Observation.createNotStarted("ezldap.mapping", this.observationRegistry)
+                .contextualName("ezldap mapping " + step)
+                .lowCardinalityKeyValue("step", step)
+                .observe(mapping);
+    }
+
+    /**
+     * Überträgt die aktuelle Observation und den Zähler der LDAP-Suchen des laufenden Aufrufs auf
+     * den Thread, der eine Teilsuche ausführt.
+     *
+     * @param task die Teilsuche
+     * @param <T> Typ des Ergebnisses
+     * @return die Teilsuche im Kontext des aktuellen Threads
+     */
+    <T> Supplier<T> propagate(final Supplier<T> task) {
+        final AtomicInteger roundtrips = ROUNDTRIPS.get();
+        final Supplier<T> scoped = this.observationRegistry != null ? this.scoped(task) : task;
+        if (roundtrips == null) {
+            return scoped;
+        }
+        return () -> {
+            final AtomicInteger previous = ROUNDTRIPS.get();
+            ROUNDTRIPS.set(roundtrips);
+            try {
+                return scoped.get();
+            } finally {
+                if (previous != null) {
+                    ROUNDTRIPS.set(previous);
+                } else {
+                    ROUNDTRIPS.remove();
+                }
+            }
+        };
+    }
+
+    private <T> Supplier<T> scoped(final Supplier<T> task) {
+        final Observation parent = this.observationRegistry.getCurrentObservation();
+        return parent != null ? () -> parent.scoped(task) : task;
+    }
+
+    private <T> T timedSearch(final LdapOperation operation, final Supplier<T> search) {
+        if (this.meterRegistry == null) {
+            return search.get();
+        }
+        final AtomicInteger roundtrips = ROUNDTRIPS.get();
+        if (roundtrips != null) {
+            roundtrips.incrementAndGet();
+        }
+        final Timer.Sample sample = Timer.start(this.meterRegistry);
+        String exception = NONE;
+        try {
+            return search.get();
+        } catch (final RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("ezldap.ldap.searches")
+                    .description("Dauer der LDAP-Suchen")
+                    .tags("operation", operation.getName(), "exception", exception)
+                    .publishPercentileHistogram()
+                    .register(this.meterRegistry));
+        }
+    }
+
+    /**
+     * Ersetzt die Werte eines LDAP-Filters durch <code>?</code> (außer objectClass und Präsenz) und
+     * fasst gleiche, aufeinanderfolgende Ausdrücke zusammen.
+     *
+     * @param filter der kodierte Filter
+     * @return die Vorlage des Filters
+     */
+    static String filterTemplate(final String filter) {
+        final Matcher matcher = FILTER_ITEM.matcher(filter);
+        final StringBuilder template = new StringBuilder();
+        while (matcher.find()) {
+            final boolean keepValue = "objectclass".equalsIgnoreCase(matcher.group(1)) || "*".equals(matcher.group(3));
+            matcher.appendReplacement(template, Matcher.quoteReplacement(
+                    "(" + matcher.group(1) + matcher.group(2) + (keepValue ? matcher.group(3) : "?") + ")"));
+        }
+        matcher.appendTail(template);
+        return REPEATED_ITEMS.matcher(template).replaceAll("$1");
+    }
+
+    private static double resultCount(final Object result) {
+        if (result instanceof Optional<?> optional) {
+            return optional.map(LdapServiceMetrics::resultCount).orElse(0d);
+        } else if (result instanceof Collection<?> collection) {
+            return collection.size();
+        } else if (result instanceof Map<?, ?> map) {
+            return map.size();
+        } else if (result instanceof Number number) {
+            return number.doubleValue();
+        } else if (result instanceof Boolean found) {
+            return found ? 1 : 0;
+        }
+        return result != null ? 1 : 0;
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Erzeugt die Threads, auf denen ezLDAP blockierende LDAP-Suchen ausführt.
+ * <p>
+ * Mit virtuellen Threads belegt eine Suche, die auf die Antwort des LDAP-Servers wartet, keinen
+ * Plattform-Thread. Die Anzahl gleichzeitiger Suchen begrenzen dann nur noch die Executoren bzw.
+ * der Connection-Pool.
+ *
+ * @author michael.prankl
+ */
+public final class LdapThreads {
+
+    private LdapThreads() {
+    }
+
+    /**
+     * Liefert eine {@link ThreadFactory}, deren Threads mit dem Präfix und einer laufenden Nummer
+     * benannt sind.
+     *
+     * @param prefix Präfix des Thread-Namens, z.B. "ezldap-hedger-"
+     * @param virtual <code>true</code> für virtuelle Threads, sonst Daemon-Plattform-Threads
+     * @return die {@link ThreadFactory}
+     */
+    public static ThreadFactory factory(final String prefix, final boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(prefix, 1).factory();
+        }
+        return Thread.ofPlatform().name(prefix, 1).daemon(true).factory();
+    }
+
+}
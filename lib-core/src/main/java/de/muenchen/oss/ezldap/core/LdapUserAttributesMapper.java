@@ -22,7 +22,7 @@
  */
 package de.muenchen.oss.ezldap.core;
 
-import static de.muenchen.oss.ezldap.core.LdapBaseUserAttributesMapper.safelyGet;
+import java.util.Arrays;
 
 import javax.naming.NamingException;
 import javax.naming.directory.Attributes;
@@ -37,6 +37,42 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class LdapUserAttributesMapper implements AttributesMapper<LdapUserDTO> {
 
+    /**
+     * Die zusätzlich zum {@link LdapBaseUserAttributesMapper} gelesenen LDAP-Attribute und ihre Setter.
+     */
+    private static final AttributeTable<LdapUserDTO> TABLE = new AttributeTable<LdapUserDTO>()
+            .map("lhmOULongname", LdapUserDTO::setLhmOULongname)
+            .map("lhmObjectPath", LdapUserDTO::setLhmObjectPath)
+            .map("lhmOberOrga", LdapUserDTO::setLhmOberOrga)
+            .map("lhmReferatName", LdapUserDTO::setLhmReferatName)
+            .map("lhmFunctionalTitle", LdapUserDTO::setLhmFunctionalTitle)
+            .map("title", LdapUserDTO::setAmtsbezeichnung)
+            .map("lhmWorkHours", LdapUserDTO::setErreichbarkeit)
+            .map("mail", LdapUserDTO::setMail)
+            .map("lhmOrgaMail", LdapUserDTO::setLhmOrgaMail)
+            .map("telephoneNumber", LdapUserDTO::setTelephoneNumber)
+            .map("facsimileTelephoneNumber", LdapUserDTO::setFacsimileTelephoneNumber)
+            .map("mobile", LdapUserDTO::setMobile)
+            .map("roomNumber", LdapUserDTO::setZimmer)
+            .map("personalTitle", LdapUserDTO::setPersonalTitle)
+            // Anschriften
+            .map("l", (u, v) -> u.getPostanschrift().setOrt(v))
+            .map("postalCode", (u, v) -> u.getPostanschrift().setPlz(v))
+            .map("street", (u, v) -> u.getPostanschrift().setStrasse(v))
+            .map("lhmOfficeLocalityName", (u, v) -> u.getBueroanschrift().setOrt(v))
+            .map("lhmOfficePostalCode", (u, v) -> u.getBueroanschrift().setPlz(v))
+            .map("lhmOfficeStreetAddress", (u, v) -> u.getBueroanschrift().setStrasse(v));
+
+    /**
+     * {@link #TABLE} inkl. der Attribute des {@link LdapBaseUserAttributesMapper}, für das Mapping in
+     * einem Durchlauf.
+     */
+    private static final AttributeTable<LdapUserDTO> FULL_TABLE = new AttributeTable<LdapUserDTO>()
+            .mapAll(LdapBaseUserAttributesMapper.TABLE)
+            .mapAll(TABLE);
+
+    private static final String[] ATTRIBUTES = TABLE.getAttributeIds();
+
     private final LdapBaseUserAttributesMapper baseAttributeMapper;
 
     /**
@@ -48,36 +84,38 @@ public class LdapUserAttributesMapper implements AttributesMapper<LdapUserDTO> {
         this.baseAttributeMapper = baseAttributeMapper;
     }
 
+    /**
+     * Liefert die LDAP-Attribute, die dieser Mapper (inkl. {@link LdapBaseUserAttributesMapper})
+     * liest. Suchen können damit auf diese Attribute beschränkt werden.
+     *
+     * @return die Attribut-IDs
+     */
+    public String[] getAttributes() {
+        final String[] baseAttributes = this.baseAttributeMapper.getAttributes();
+        final String[] attributes = Arrays.copyOf(baseAttributes, baseAttributes.length + ATTRIBUTES.length);
+        System.arraycopy(ATTRIBUTES, 0, attributes, baseAttributes.length, ATTRIBUTES.length);
+        return attributes;
+    }
+
     @Override
     public LdapUserDTO mapFromAttributes(Attributes attributes) throws NamingException {
-        LdapBaseUserDTO baseUser = this.baseAttributeMapper.mapFromAttributes(attributes);
-        LdapUserDTO u = new LdapUserDTO(baseUser);
+        final LdapUserDTO u;
+        if (this.baseAttributeMapper.getClass() == LdapBaseUserAttributesMapper.class) {
+            u = newUser(new LdapUserDTO());
+            FULL_TABLE.apply(attributes, u);
+        } else {
+            // abgeleiteter Basis-Mapper: dessen Mapping übernehmen
+            u = newUser(new LdapUserDTO(this.baseAttributeMapper.mapFromAttributes(attributes)));
+            TABLE.apply(attributes, u);
+        }
+        log.debug("Mapped user {}.", u);
+        return u;
+    }
+
+    private static LdapUserDTO newUser(final LdapUserDTO u) {
+        // die Anschriften werden immer (ggf. leer) geliefert
         u.setBueroanschrift(new AnschriftDTO());
         u.setPostanschrift(new AnschriftDTO());
-
-        u.setLhmOULongname(safelyGet("lhmOULongname", attributes));
-        u.setLhmObjectPath(safelyGet("lhmObjectPath", attributes));
-        u.setLhmOberOrga(safelyGet("lhmOberOrga", attributes));
-        u.setLhmReferatName(safelyGet("lhmReferatName", attributes));
-        u.setLhmFunctionalTitle(safelyGet("lhmFunctionalTitle", attributes));
-        u.setAmtsbezeichnung(safelyGet("title", attributes));
-        u.setErreichbarkeit(safelyGet("lhmWorkHours", attributes));
-        u.setMail(safelyGet("mail", attributes));
-        u.setLhmOrgaMail(safelyGet("lhmOrgaMail", attributes));
-        u.setTelephoneNumber(safelyGet("telephoneNumber", attributes));
-        u.setFacsimileTelephoneNumber(safelyGet("facsimileTelephoneNumber", attributes));
-        u.setMobile(safelyGet("mobile", attributes));
-        u.setZimmer(safelyGet("roomNumber", attributes));
-        u.setPersonalTitle(safelyGet("personalTitle", attributes));
-
-        // Anschriften
-        u.getPostanschrift().setOrt(safelyGet("l", attributes));
-        u.getPostanschrift().setPlz(safelyGet("postalCode", attributes));
-        u.getPostanschrift().setStrasse(safelyGet("street", attributes));
-        u.getBueroanschrift().setOrt(safelyGet("lhmOfficeLocalityName", attributes));
-        u.getBueroanschrift().setPlz(safelyGet("lhmOfficePostalCode", attributes));
-        u.getBueroanschrift().setStrasse(safelyGet("lhmOfficeStreetAddress", attributes));
-        log.debug("Mapped user {}.", u);
         return u;
     }
 
@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import javax.naming.Name;
+
+import org.springframework.ldap.filter.Filter;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.SearchScope;
+
+/**
+ * {@link LdapQuery} mit geändertem Time Limit bzw. Count Limit, alle anderen Angaben stammen aus
+ * der ursprünglichen Suche.
+ *
+ * @author michael.prankl
+ */
+final class LimitedLdapQuery implements LdapQuery {
+
+    private final LdapQuery query;
+    private final Integer timeLimit;
+    private final Integer countLimit;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param query die ursprüngliche Suche
+     * @param timeLimit Time Limit in Millisekunden, <code>null</code> für keines
+     * @param countLimit Count Limit, <code>null</code> für keines
+     */
+    LimitedLdapQuery(final LdapQuery query, final Integer timeLimit, final Integer countLimit) {
+        this.query = query;
+        this.timeLimit = timeLimit;
+        this.countLimit = countLimit;
+    }
+
+    @Override
+    public Name base() {
+        return this.query.base();
+    }
+
+    @Override
+    public SearchScope searchScope() {
+        return this.query.searchScope();
+    }
+
+    @Override
+    public Integer timeLimit() {
+        return this.timeLimit;
+    }
+
+    @Override
+    public Integer countLimit() {
+        return this.countLimit;
+    }
+
+    @Override
+    public String[] attributes() {
+        return this.query.attributes();
+    }
+
+    @Override
+    public Filter filter() {
+        return this.query.filter();
+    }
+
+}
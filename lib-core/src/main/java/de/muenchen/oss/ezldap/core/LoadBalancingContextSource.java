@@ -0,0 +1,362 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.util.ClassUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link ContextSource}, die Verbindungen auf mehrere LDAP-Server (Replikate) verteilt. Jeder
+ * Server hat eine eigene {@link ContextSource} (z.B. einen eigenen Connection-Pool).
+ * <p>
+ * Verbindungen werden zum Server mit der geringsten Last aufgebaut, siehe {@link Strategy}. Kann
+ * zu einem Server keine Verbindung aufgebaut werden, wird er als nicht verfügbar markiert und der
+ * nächste Server versucht (Failover). Nicht verfügbare Server werden erst wieder verwendet, wenn
+ * sie die periodische Prüfung bestanden haben oder kein anderer Server verfügbar ist.
+ * <p>
+ * Als Dauer einer Anfrage gilt die Zeit vom Öffnen bis zum Schließen der Verbindung.
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+public class LoadBalancingContextSource implements ContextSource, AutoCloseable {
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    /**
+     * Verfahren zur Auswahl des Servers.
+     */
+    public enum Strategy {
+        /**
+         * Server mit den wenigsten offenen Anfragen.
+         */
+        LEAST_OUTSTANDING,
+        /**
+         * Server mit der geringsten gleitend gemittelten Antwortzeit (EWMA), gewichtet mit den offenen
+         * Anfragen.
+         */
+        EWMA_LATENCY
+    }
+
+    private final List<Server> servers;
+    private final Strategy strategy;
+    private final Duration healthCheckInterval;
+    private final AtomicInteger rotation = new AtomicInteger();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param contextSources {@link ContextSource} je LDAP-URL
+     * @param strategy Verfahren zur Auswahl des Servers
+     * @param healthCheckInterval Intervall, in dem die Erreichbarkeit der Server geprüft wird
+     */
+    public LoadBalancingContextSource(final Map<String, ContextSource> contextSources, final Strategy strategy,
+            final Duration healthCheckInterval) {
+        if (contextSources.isEmpty()) {
+            throw new IllegalArgumentException("contextSources must not be empty");
+        }
+        this.servers = contextSources.entrySet().stream().map(entry -> new Server(entry.getKey(), entry.getValue())).toList();
+        this.strategy = strategy;
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    /**
+     * Startet die periodische Prüfung der Server im Hintergrund.
+     */
+    public synchronized void start() {
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "ezldap-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::checkHealth, this.healthCheckInterval.toMillis(),
+                    this.healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+        for (final Server server : this.servers) {
+            if (server.contextSource instanceof DisposableBean disposable) {
+                try {
+                    disposable.destroy();
+                } catch (final Exception e) {
+                    log.warn("Closing context source for '{}' failed.", server.url, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public DirContext getReadOnlyContext() {
+        return this.open(ContextSource::getReadOnlyContext);
+    }
+
+    @Override
+    public DirContext getReadWriteContext() {
+        return this.open(ContextSource::getReadWriteContext);
+    }
+
+    @Override
+    public DirContext getContext(final String principal, final String credentials) {
+        return this.open(contextSource -> contextSource.getContext(principal, credentials));
+    }
+
+    /**
+     * Prüft die Erreichbarkeit aller Server mit einer Suche auf den Basis-Eintrag.
+     */
+    public void checkHealth() {
+        for (final Server server : this.servers) {
+            try {
+                this.probe(server.contextSource);
+                server.markUp();
+            } catch (final Exception e) {
+                server.markDown(e);
+            }
+        }
+    }
+
+    /**
+     * Sucht den Basis-Eintrag (Base-Scope, ohne Attribute), damit tatsächlich eine Anfrage an den
+     * Server geht. Mit Connection-Pool würde das bloße Öffnen nur eine Verbindung aus dem Pool holen,
+     * auch wenn der Server nicht mehr erreichbar ist.
+     */
+    private void probe(final ContextSource contextSource) throws NamingException {
+        final SearchControls controls = new SearchControls();
+        controls.setSearchScope(SearchControls.OBJECT_SCOPE);
+        controls.setReturningAttributes(new String[] { "1.1" });
+        controls.setTimeLimit((int) Math.min(this.healthCheckInterval.toMillis(), Integer.MAX_VALUE));
+        final DirContext context = contextSource.getReadOnlyContext();
+        try {
+            final NamingEnumeration<SearchResult> results = context.search("", "(objectClass=*)", controls);
+            try {
+                results.hasMore();
+            } finally {
+                results.close();
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * @return die Server in konfigurierter Reihenfolge
+     */
+    public List<Server> getServers() {
+        return this.servers;
+    }
+
+    private DirContext open(final Function<ContextSource, DirContext> opener) {
+        RuntimeException lastFailure = null;
+        for (final Server server : this.candidates()) {
+            try {
+                return server.open(opener);
+            } catch (final RuntimeException e) {
+                if (!LdapFailures.isUnavailable(e)) {
+                    throw e;
+                }
+                server.markDown(e);
+                lastFailure = e;
+            }
+        }
+        throw lastFailure;
+    }
+
+    /**
+     * @return verfügbare Server sortiert nach Last (bei gleicher Last reihum), danach die nicht
+     *         verfügbaren Server
+     */
+    private List<Server> candidates() {
+        final int offset = Math.floorMod(this.rotation.getAndIncrement(), this.servers.size());
+        final List<Server> healthy = new ArrayList<>(this.servers.size());
+        final List<Server> unhealthy = new ArrayList<>();
+        for (int i = 0; i < this.servers.size(); i++) {
+            final Server server = this.servers.get((offset + i) % this.servers.size());
+            (server.healthy ? healthy : unhealthy).add(server);
+        }
+        healthy.sort(Comparator.comparingDouble(server -> server.load(this.strategy)));
+        healthy.addAll(unhealthy);
+        return healthy;
+    }
+
+    /**
+     * Ein LDAP-Server mit Verfügbarkeit, offenen Anfragen und Antwortzeit.
+     */
+    public static final class Server {
+
+        private final String url;
+        private final ContextSource contextSource;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile boolean healthy = true;
+        private volatile double latencyEwmaNanos;
+
+        private Server(final String url, final ContextSource contextSource) {
+            this.url = url;
+            this.contextSource = contextSource;
+        }
+
+        /**
+         * @return die LDAP-URL
+         */
+        public String getUrl() {
+            return this.url;
+        }
+
+        /**
+         * @return die {@link ContextSource} des Servers, z.B. ein Connection-Pool
+         */
+        public ContextSource getContextSource() {
+            return this.contextSource;
+        }
+
+        /**
+         * @return <code>true</code>, wenn der Server verfügbar ist
+         */
+        public boolean isHealthy() {
+            return this.healthy;
+        }
+
+        /**
+         * @return Anzahl der offenen Anfragen
+         */
+        public int getOutstanding() {
+            return this.outstanding.get();
+        }
+
+        /**
+         * @return gleitend gemittelte Antwortzeit in Millisekunden
+         */
+        public double getLatencyEwmaMillis() {
+            return this.latencyEwmaNanos / 1_000_000d;
+        }
+
+        private double load(final Strategy strategy) {
+            final int pending = this.outstanding.get() + 1;
+            return strategy == Strategy.EWMA_LATENCY ? (this.latencyEwmaNanos + 1) * pending : pending;
+        }
+
+        private DirContext open(final Function<ContextSource, DirContext> opener) {
+            this.outstanding.incrementAndGet();
+            final long start = System.nanoTime();
+            final DirContext target;
+            try {
+                target = opener.apply(this.contextSource);
+            } catch (final RuntimeException e) {
+                this.outstanding.decrementAndGet();
+                throw e;
+            }
+            return (DirContext) Proxy.newProxyInstance(DirContext.class.getClassLoader(), ClassUtils.getAllInterfaces(target),
+                    new TrackingHandler(this, target, start));
+        }
+
+        private void release(final long start) {
+            this.outstanding.decrementAndGet();
+            final long duration = System.nanoTime() - start;
+            synchronized (this) {
+                this.latencyEwmaNanos = this.latencyEwmaNanos == 0 ? duration
+                        : this.latencyEwmaNanos + EWMA_ALPHA * (duration - this.latencyEwmaNanos);
+            }
+        }
+
+        private void markUp() {
+            if (!this.healthy) {
+                log.info("LDAP server '{}' is available again.", this.url);
+                this.healthy = true;
+            }
+        }
+
+        private void markDown(final Throwable cause) {
+            if (this.healthy) {
+                log.warn("LDAP server '{}' is unavailable: {}", this.url, cause.getMessage());
+                this.healthy = false;
+            }
+        }
+
+    }
+
+    /**
+     * Zählt die Verbindung beim Schließen als beendete Anfrage und markiert den Server als nicht
+     * verfügbar, wenn ein Aufruf wegen eines Verbindungsfehlers scheitert.
+     */
+    private static final class TrackingHandler implements InvocationHandler {
+
+        private final Server server;
+        private final DirContext target;
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private TrackingHandler(final Server server, final DirContext target, final long start) {
+            this.server = server;
+            this.target = target;
+            this.start = start;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if ("close".equals(method.getName()) && method.getParameterCount() == 0 && this.released.compareAndSet(false, true)) {
+                this.server.release(this.start);
+            }
+            try {
+                return method.invoke(this.target, args);
+            } catch (final InvocationTargetException e) {
+                if (LdapFailures.isUnavailable(e.getCause())) {
+                    this.server.markDown(e.getCause());
+                }
+                throw e.getCause();
+            }
+        }
+
+    }
+
+}
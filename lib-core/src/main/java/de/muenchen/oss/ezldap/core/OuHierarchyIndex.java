@@ -0,0 +1,313 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.naming.ldap.LdapName;
+
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.LdapQueryBuilder;
+import org.springframework.ldap.query.SearchScope;
+import org.springframework.ldap.support.LdapUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hält alle Organisationseinheiten (lhmOrganizationalUnit) unterhalb der OU Search-Base im
+ * Speicher, inkl. der Hierarchie (Eltern/Kinder). Der Index wird im Hintergrund periodisch neu
+ * geladen und atomar ausgetauscht, Lesezugriffe sind ohne LDAP-Roundtrip möglich. OUs oberhalb der
+ * Search-Base werden beim Laden je DN-Präfix aufgelöst und jedem OU-Baum vorangestellt.
+ * <p>
+ * Solange der erste Ladevorgang nicht abgeschlossen ist, liefert {@link #isLoaded()}
+ * <code>false</code>.
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+public class OuHierarchyIndex implements AutoCloseable {
+
+    private static final String ATTRIBUTE_OBJECT_CLASS = "objectClass";
+    private static final String LHM_ORGANIZATIONAL_UNIT = "lhmOrganizationalUnit";
+    private static final String LHM_OU_SHORTNAME = "lhmOUShortname";
+
+    private final LdapTemplate ldapTemplate;
+    private final LdapOuAttributesMapper ldapOuAttributesMapper;
+    private final String ouSearchBase;
+    private final Duration refreshInterval;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param ldapTemplate ein {@link LdapTemplate} für LDAP
+     * @param ldapOuAttributesMapper ein {@link LdapOuAttributesMapper}
+     * @param ouSearchBase Search-Base für OUs (DN)
+     * @param refreshInterval Intervall, in dem der Index neu geladen wird
+     */
+    public OuHierarchyIndex(final LdapTemplate ldapTemplate, final LdapOuAttributesMapper ldapOuAttributesMapper, final String ouSearchBase,
+            final Duration refreshInterval) {
+        this.ldapTemplate = ldapTemplate;
+        this.ldapOuAttributesMapper = ldapOuAttributesMapper;
+        this.ouSearchBase = ouSearchBase;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Startet das (initiale und periodische) Laden des Index im Hintergrund.
+     */
+    public synchronized void start() {
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "ezldap-ou-index");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::refreshSafely, 0, this.refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Lädt alle OUs aus dem LDAP und tauscht den Index aus.
+     */
+    public void refresh() {
+        final long start = System.currentTimeMillis();
+        final LdapQuery query = LdapQueryBuilder.query().base(this.ouSearchBase)
+                .searchScope(SearchScope.SUBTREE)
+                .attributes(this.ldapOuAttributesMapper.getAttributes())
+                .where(ATTRIBUTE_OBJECT_CLASS).is(LHM_ORGANIZATIONAL_UNIT);
+        final List<OuNode> nodes = new ArrayList<>();
+        PagedSearchSupport.search(this.ldapTemplate, query, PagedSearchSupport.DEFAULT_PAGE_SIZE, (ContextMapper<OuNode>) ctx -> {
+            final DirContextAdapter entry = (DirContextAdapter) ctx;
+            return new OuNode(LdapUtils.newLdapName(entry.getNameInNamespace()),
+                    this.ldapOuAttributesMapper.mapFromAttributes(entry.getAttributes()));
+        }, nodes::add);
+        this.snapshot.set(new Snapshot(nodes, this.resolveOuTreeAboveOuSearchBase(), Instant.now()));
+        log.info("Loaded ou hierarchy index with {} ous in {} ms.", nodes.size(), System.currentTimeMillis() - start);
+    }
+
+    private List<String> resolveOuTreeAboveOuSearchBase() {
+        final LdapName ouSearchBaseName = LdapUtils.newLdapName(this.ouSearchBase);
+        final List<String> ouTree = new ArrayList<>();
+        for (int i = 1; i < ouSearchBaseName.size(); i++) {
+            final LdapQuery query = LdapQueryBuilder.query().base(ouSearchBaseName.getPrefix(i))
+                    .searchScope(SearchScope.OBJECT)
+                    .countLimit(1)
+                    .attributes(LHM_OU_SHORTNAME)
+                    .where(ATTRIBUTE_OBJECT_CLASS).is(LHM_ORGANIZATIONAL_UNIT);
+            try {
+                this.ldapTemplate.search(query, (AttributesMapper<Object>) attrs -> attrs.get(LHM_OU_SHORTNAME)).stream()
+                        .filter(Objects::nonNull)
+                        .forEach(shortname -> ouTree.add(shortname.toString().toUpperCase()));
+            } catch (final NameNotFoundException e) {
+                log.debug("No ou found for dn {} above ou search base.", ouSearchBaseName.getPrefix(i));
+            }
+        }
+        return List.copyOf(ouTree);
+    }
+
+    private void refreshSafely() {
+        try {
+            this.refresh();
+        } catch (final RuntimeException e) {
+            log.warn("Refreshing ou hierarchy index failed, keeping previous state.", e);
+        }
+    }
+
+    /**
+     * @return <code>true</code>, wenn der Index geladen ist
+     */
+    public boolean isLoaded() {
+        return this.snapshot.get() != null;
+    }
+
+    /**
+     * @return Zeitpunkt des letzten erfolgreichen Ladevorgangs
+     */
+    public Optional<Instant> getLoadedAt() {
+        return Optional.ofNullable(this.snapshot.get()).map(Snapshot::loadedAt);
+    }
+
+    /**
+     * Sucht eine OU anhand ihrer lhmObjectId.
+     *
+     * @param lhmObjectId lhmObjectId der OU
+     * @return die OU, das DTO darf nicht verändert werden
+     */
+    public Optional<LdapOuSearchResultDTO> findByLhmObjectId(final String lhmObjectId) {
+        return this.current().map(s -> s.byLhmObjectId().get(lhmObjectId)).map(OuNode::getOu);
+    }
+
+    /**
+     * Sucht eine OU anhand ihrer Kurzbezeichnung (Groß-/Kleinschreibung wird ignoriert).
+     *
+     * @param shortname Kurzbezeichnung der OU (z.B. "ITM-KM21")
+     * @return die OU, das DTO darf nicht verändert werden
+     */
+    public Optional<LdapOuSearchResultDTO> findByShortname(final String shortname) {
+        return this.current().map(s -> s.byShortname().get(normalize(shortname))).map(OuNode::getOu);
+    }
+
+    /**
+     * Liefert die direkt untergeordneten OUs.
+     *
+     * @param lhmObjectId lhmObjectId der OU
+     * @return die untergeordneten OUs, leer wenn die OU nicht existiert
+     */
+    public List<LdapOuSearchResultDTO> findChildren(final String lhmObjectId) {
+        return this.current().map(s -> s.byLhmObjectId().get(lhmObjectId))
+                .map(node -> node.getChildren().stream().map(OuNode::getOu).toList())
+                .orElse(List.of());
+    }
+
+    /**
+     * Liefert den OU-Baum (Kurzbezeichnungen von oben nach unten) zur OU mit der angegebenen
+     * Kurzbezeichnung.
+     *
+     * @param shortname Kurzbezeichnung der OU (z.B. "ITM-KM21")
+     * @return OU Tree oder {@link Optional#empty()}, wenn die OU nicht existiert
+     */
+    public Optional<List<String>> findOuTreeByShortname(final String shortname) {
+        return this.current().flatMap(s -> Optional.ofNullable(s.byShortname().get(normalize(shortname))).map(node -> ouTree(s, node)));
+    }
+
+    /**
+     * Liefert den OU-Baum (Kurzbezeichnungen von oben nach unten) zum angegebenen DN, z.B. dem
+     * lhmObjectPath einer Person.
+     *
+     * @param objectPath DN einer OU
+     * @return OU Tree oder {@link Optional#empty()}, wenn der Index nicht geladen ist oder die OU
+     *         (noch) nicht kennt, z.B. weil sie nach dem letzten Laden angelegt wurde
+     */
+    public Optional<List<String>> findOuTree(final LdapName objectPath) {
+        return this.current().flatMap(s -> Optional.ofNullable(s.byDn().get(objectPath)).map(node -> ouTree(s, node)));
+    }
+
+    private Optional<Snapshot> current() {
+        return Optional.ofNullable(this.snapshot.get());
+    }
+
+    private static List<String> ouTree(final Snapshot snapshot, final OuNode node) {
+        final List<String> path = new ArrayList<>();
+        for (OuNode current = node; current != null; current = current.getParent()) {
+            if (current.getOu().getLhmOUShortname() != null) {
+                path.add(current.getOu().getLhmOUShortname().toUpperCase());
+            }
+        }
+        Collections.reverse(path);
+        final List<String> ouTree = new ArrayList<>(snapshot.aboveOuSearchBase());
+        ouTree.addAll(path);
+        return ouTree;
+    }
+
+    private static String normalize(final String shortname) {
+        return shortname == null ? null : shortname.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Ein Knoten im OU-Baum.
+     */
+    private static final class OuNode {
+
+        private final LdapName dn;
+        private final LdapOuSearchResultDTO ou;
+        private final List<OuNode> children = new ArrayList<>();
+        private OuNode parent;
+
+        OuNode(final LdapName dn, final LdapOuSearchResultDTO ou) {
+            this.dn = dn;
+            this.ou = ou;
+        }
+
+        LdapOuSearchResultDTO getOu() {
+            return this.ou;
+        }
+
+        OuNode getParent() {
+            return this.parent;
+        }
+
+        List<OuNode> getChildren() {
+            return this.children;
+        }
+
+    }
+
+    /**
+     * Unveränderlicher Stand des Index.
+     */
+    private record Snapshot(Map<LdapName, OuNode> byDn, Map<String, OuNode> byLhmObjectId, Map<String, OuNode> byShortname,
+            List<String> aboveOuSearchBase, Instant loadedAt) {
+
+        Snapshot(final List<OuNode> nodes, final List<String> aboveOuSearchBase, final Instant loadedAt) {
+            this(new HashMap<>(), new HashMap<>(), new HashMap<>(), aboveOuSearchBase, loadedAt);
+            for (final OuNode node : nodes) {
+                this.byDn.put(node.dn, node);
+                if (node.ou.getLhmObjectId() != null) {
+                    this.byLhmObjectId.put(node.ou.getLhmObjectId(), node);
+                }
+                if (node.ou.getLhmOUShortname() != null) {
+                    this.byShortname.put(normalize(node.ou.getLhmOUShortname()), node);
+                }
+            }
+            // link every ou to its nearest ancestor ou
+            for (final OuNode node : nodes) {
+                for (int i = node.dn.size() - 1; i > 0 && node.parent == null; i--) {
+                    node.parent = this.byDn.get((LdapName) node.dn.getPrefix(i));
+                }
+                if (node.parent != null) {
+                    node.parent.children.add(node);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.util.function.Consumer;
+
+import javax.naming.Binding;
+import javax.naming.directory.SearchControls;
+
+import org.springframework.ldap.control.PagedResultsDirContextProcessor;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.NameClassPairCallbackHandler;
+import org.springframework.ldap.core.support.SingleContextSource;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.SearchScope;
+
+/**
+ * Führt Suchen seitenweise mit dem Paged Results Control (RFC 2696) aus und reicht die Treffer
+ * einzeln an einen {@link Consumer} weiter, ohne das gesamte Ergebnis im Speicher zu halten.
+ * <p>
+ * Alle Seiten werden über dieselbe Verbindung abgerufen, da der Paging-Cookie nur innerhalb einer
+ * Verbindung gültig ist. Ein countLimit gilt für die gesamte Suche: ist es erreicht, werden keine
+ * weiteren Seiten abgerufen und die Suche wird mit Seitengröße 0 beim LDAP abgebrochen.
+ *
+ * @author michael.prankl
+ */
+final class PagedSearchSupport {
+
+    /**
+     * Default Seitengröße.
+     */
+    static final int DEFAULT_PAGE_SIZE = 500;
+
+    private PagedSearchSupport() {
+    }
+
+    /**
+     * Sucht seitenweise.
+     *
+     * @param ldapTemplate das {@link LdapTemplate}
+     * @param query die Suche, ein gesetztes countLimit begrenzt die Treffer insgesamt
+     * @param pageSize die Seitengröße
+     * @param mapper der {@link ContextMapper} für einen Treffer
+     * @param consumer erhält die gemappten Treffer
+     * @param <T> Typ der gemappten Treffer
+     * @return Anzahl der Treffer
+     */
+    static <T> long search(final LdapTemplate ldapTemplate, final LdapQuery query, final int pageSize, final ContextMapper<T> mapper,
+            final Consumer<? super T> consumer) {
+        final String base = query.base().toString();
+        final String filter = query.filter().encode();
+        final SearchControls searchControls = new SearchControls();
+        searchControls.setSearchScope(query.searchScope() != null ? query.searchScope().getId() : SearchScope.SUBTREE.getId());
+        searchControls.setReturningAttributes(query.attributes());
+        searchControls.setReturningObjFlag(true);
+        if (query.timeLimit() != null) {
+            searchControls.setTimeLimit(query.timeLimit());
+        }
+        final long countLimit = query.countLimit() != null && query.countLimit() > 0 ? query.countLimit() : Long.MAX_VALUE;
+        if (query.countLimit() != null) {
+            searchControls.setCountLimit(query.countLimit());
+        }
+        final long[] count = { 0 };
+        final NameClassPairCallbackHandler handler = nameClassPair -> {
+            // the last page may hold more entries than the countLimit leaves
+            if (count[0] < countLimit) {
+                consumer.accept(mapper.mapFromContext(((Binding) nameClassPair).getObject()));
+                count[0]++;
+            }
+        };
+        final PagedResultsDirContextProcessor processor = new PagedResultsDirContextProcessor(pageSize);
+        SingleContextSource.doWithSingleContext(ldapTemplate.getContextSource(), operations -> {
+            do {
+                operations.search(base, filter, searchControls, handler, processor);
+            } while (processor.hasMore() && count[0] < countLimit);
+            if (processor.hasMore()) {
+                // RFC 2696: a page size of 0 abandons the paged search and frees the server side result set
+                operations.search(base, filter, searchControls, nameClassPair -> {
+                }, new PagedResultsDirContextProcessor(0, processor.getCookie()));
+            }
+            return null;
+        }, true, false, false);
+        return count[0];
+    }
+
+}
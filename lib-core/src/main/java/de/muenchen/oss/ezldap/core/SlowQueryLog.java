@@ -0,0 +1,205 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+
+import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.SearchScope;
+import org.springframework.ldap.support.LdapUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Protokolliert LDAP-Suchen, die länger als ein Schwellwert dauern, mit einer Zeile je Suche
+ * (operation, filter, base, scope, countLimit, Dauer, Anzahl Treffer und Größe der Treffer). Die
+ * Angaben werden zusätzlich als Key-Value-Paare übergeben und z.B. vom LogstashEncoder als eigene
+ * JSON-Felder ausgegeben.
+ * <p>
+ * Die Größe ist die Summe der Längen von Attributnamen und -werten der gemappten Treffer, also eine
+ * Schätzung der übertragenen Daten.
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+final class SlowQueryLog {
+
+    /**
+     * Protokolliert keine Suchen.
+     */
+    static final SlowQueryLog DISABLED = new SlowQueryLog(null);
+
+    private final Duration threshold;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param threshold Schwellwert, ab dem eine Suche protokolliert wird, <code>null</code> für keine
+     *            Protokollierung
+     */
+    SlowQueryLog(final Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Beginnt die Messung einer Suche.
+     *
+     * @param operation die {@link LdapOperation}
+     * @param query die Suche
+     * @return die {@link Search}
+     */
+    Search start(final LdapOperation operation, final LdapQuery query) {
+        return new Search(operation, query, this.threshold != null);
+    }
+
+    /**
+     * Eine gemessene Suche.
+     */
+    final class Search {
+
+        private final LdapOperation operation;
+        private final LdapQuery query;
+        private final boolean enabled;
+        private final LongAdder bytes = new LongAdder();
+
+        private Search(final LdapOperation operation, final LdapQuery query, final boolean enabled) {
+            this.operation = operation;
+            this.query = query;
+            this.enabled = enabled;
+        }
+
+        /**
+         * Ergänzt einen {@link AttributesMapper} um das Zählen der Größe der Treffer.
+         *
+         * @param mapper der {@link AttributesMapper}
+         * @param <T> Typ der gemappten Treffer
+         * @return der ergänzte {@link AttributesMapper}
+         */
+        <T> AttributesMapper<T> measure(final AttributesMapper<T> mapper) {
+            if (!this.enabled) {
+                return mapper;
+            }
+            return attributes -> {
+                this.bytes.add(size(attributes));
+                return mapper.mapFromAttributes(attributes);
+            };
+        }
+
+        /**
+         * Ergänzt einen {@link ContextMapper} um das Zählen der Größe der Treffer.
+         *
+         * @param mapper der {@link ContextMapper}
+         * @param <T> Typ der gemappten Treffer
+         * @return der ergänzte {@link ContextMapper}
+         */
+        <T> ContextMapper<T> measure(final ContextMapper<T> mapper) {
+            if (!this.enabled) {
+                return mapper;
+            }
+            return ctx -> {
+                if (ctx instanceof DirContextOperations operations) {
+                    try {
+                        this.bytes.add(size(operations.getAttributes()));
+                    } catch (final NamingException e) {
+                        throw LdapUtils.convertLdapException(e);
+                    }
+                }
+                return mapper.mapFromContext(ctx);
+            };
+        }
+
+        /**
+         * Führt die Suche aus und protokolliert sie, wenn sie den Schwellwert überschreitet.
+         *
+         * @param search die Suche
+         * @param resultCount liefert die Anzahl der Treffer aus dem Ergebnis
+         * @param <R> Typ des Ergebnisses
+         * @return das Ergebnis der Suche
+         */
+        <R> R run(final Supplier<R> search, final ToLongFunction<R> resultCount) {
+            if (!this.enabled) {
+                return search.get();
+            }
+            final long start = System.nanoTime();
+            try {
+                final R result = search.get();
+                this.log(System.nanoTime() - start, resultCount.applyAsLong(result), null);
+                return result;
+            } catch (final RuntimeException e) {
+                this.log(System.nanoTime() - start, -1, e);
+                throw e;
+            }
+        }
+
+        private void log(final long nanos, final long results, final RuntimeException error) {
+            if (nanos < SlowQueryLog.this.threshold.toNanos()) {
+                return;
+            }
+            final long durationMillis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            final String base = this.query.base().toString();
+            final SearchScope scope = this.query.searchScope() != null ? this.query.searchScope() : SearchScope.SUBTREE;
+            final String filter = this.query.filter().encode();
+            log.atWarn()
+                    .addKeyValue("operation", this.operation.getName())
+                    .addKeyValue("filter", filter)
+                    .addKeyValue("base", base)
+                    .addKeyValue("scope", scope.name())
+                    .addKeyValue("countLimit", this.query.countLimit())
+                    .addKeyValue("durationMs", durationMillis)
+                    .addKeyValue("results", results)
+                    .addKeyValue("bytes", this.bytes.sum())
+                    .addKeyValue("exception", error != null ? error.getClass().getSimpleName() : null)
+                    .log("Slow LDAP search {} took {} ms: base='{}', scope={}, filter='{}', countLimit={}, results={}, bytes={}",
+                            this.operation.getName(), durationMillis, base, scope, filter, this.query.countLimit(), results,
+                            this.bytes.sum());
+        }
+
+    }
+
+    private static long size(final Attributes attributes) throws NamingException {
+        long size = 0;
+        final NamingEnumeration<? extends Attribute> all = attributes.getAll();
+        while (all.hasMore()) {
+            final Attribute attribute = all.next();
+            size += attribute.getID().length();
+            for (int i = 0; i < attribute.size(); i++) {
+                final Object value = attribute.get(i);
+                size += value instanceof byte[] binary ? binary.length : String.valueOf(value).length();
+            }
+        }
+        return size;
+    }
+
+}
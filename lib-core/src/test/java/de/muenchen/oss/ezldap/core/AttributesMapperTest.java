@@ -0,0 +1,240 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import static de.muenchen.oss.ezldap.core.LdapBaseUserAttributesMapper.safelyGet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.naming.NamingException;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.BasicAttributes;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.ldap.core.AttributesMapper;
+
+/**
+ * Tests zu den {@link AttributesMapper}n ohne LDAP-Server.
+ *
+ * @author michael.prankl
+ */
+class AttributesMapperTest {
+
+    /**
+     * Standard-Attribute (core, cosine, inetOrgPerson), die in Einträgen neben den LHM-Attributen
+     * vorkommen.
+     */
+    private static final List<String> STANDARD_ATTRIBUTES = List.of("objectClass", "cn", "sn", "givenName", "uid", "ou", "o", "title",
+            "personalTitle", "mail", "telephoneNumber", "facsimileTelephoneNumber", "mobile", "roomNumber", "l", "postalCode", "street",
+            "st", "description", "manager", "userPassword", "displayName", "employeeNumber", "departmentNumber", "businessCategory");
+    private static final Pattern ATTRIBUTE_TYPE = Pattern.compile("attributetype\\s*\\(\\s*[\\d.]+\\s+NAME\\s+'([^']+)'");
+
+    private static List<String> allAttributes;
+
+    private final LdapBaseUserAttributesMapper baseUserMapper = new LdapBaseUserAttributesMapper();
+    private final LdapUserAttributesMapper userMapper = new LdapUserAttributesMapper(this.baseUserMapper);
+    private final LdapOuAttributesMapper ouMapper = new LdapOuAttributesMapper();
+
+    @BeforeAll
+    static void readSchema() throws IOException {
+        final Set<String> attributes = new LinkedHashSet<>(STANDARD_ATTRIBUTES);
+        try (InputStream schema = AttributesMapperTest.class.getResourceAsStream("/ldap/schema/lhm.schema")) {
+            final Matcher matcher = ATTRIBUTE_TYPE.matcher(new String(schema.readAllBytes(), StandardCharsets.UTF_8));
+            while (matcher.find()) {
+                attributes.add(matcher.group(1));
+            }
+        }
+        allAttributes = new ArrayList<>(attributes);
+    }
+
+    @Test
+    void attributes_cover_everything_the_mappers_read() throws NamingException {
+        assertCoversMappedAttributes(this.baseUserMapper, this.baseUserMapper.getAttributes());
+        assertCoversMappedAttributes(this.userMapper, this.userMapper.getAttributes());
+        assertCoversMappedAttributes(this.ouMapper, this.ouMapper.getAttributes());
+        assertThat(this.userMapper.getAttributes()).contains(this.baseUserMapper.getAttributes()).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void same_result_as_lookup_per_attribute() throws NamingException {
+        final List<Attributes> entries = new ArrayList<>();
+        entries.add(entry(List.of()));
+        entries.add(entry(allAttributes));
+        // Attribut-IDs in anderer Schreibweise als im Mapper, wie z.B. lhmObjectID im Schema
+        entries.add(entry(allAttributes.stream().map(String::toUpperCase).toList()));
+        final Attributes special = entry(allAttributes);
+        special.put("lhmWorkHours", "Mo-Do 8-16 Uhr%%Fr 8-12 Uhr%%");
+        special.put("street", "%%");
+        final BasicAttribute multiValued = new BasicAttribute("mail", "first@example.org");
+        multiValued.add("second@example.org");
+        special.put(multiValued);
+        entries.add(special);
+        for (final Attributes entry : entries) {
+            assertThat(this.baseUserMapper.mapFromAttributes(entry)).isEqualTo(legacyBaseUser(entry));
+            assertThat(this.userMapper.mapFromAttributes(entry)).isEqualTo(legacyUser(entry));
+            assertThat(this.ouMapper.mapFromAttributes(entry)).isEqualTo(legacyOu(entry));
+        }
+        final LdapUserDTO user = this.userMapper.mapFromAttributes(special);
+        assertThat(user.getErreichbarkeit()).isEqualTo("Mo-Do 8-16 Uhr\nFr 8-12 Uhr\n");
+        assertThat(user.getPostanschrift().getStrasse()).isEqualTo("\n");
+        assertThat(user.getMail()).isEqualTo("first@example.org");
+    }
+
+    @Test
+    void attribute_table() throws NamingException {
+        final AttributeTable<LdapBaseUserDTO> table = new AttributeTable<LdapBaseUserDTO>()
+                .map("lhmObjectId", LdapBaseUserDTO::setLhmObjectId)
+                .map("givenName", LdapBaseUserDTO::setVorname)
+                .map("sn", LdapBaseUserDTO::setNachname)
+                .map("uid", LdapBaseUserDTO::setUid);
+        assertThat(table.getAttributeIds()).containsExactly("lhmObjectId", "givenName", "sn", "uid");
+        // auch in einem Eintrag, der die Schreibweise beachtet
+        final Attributes attributes = new BasicAttributes(false);
+        attributes.put("lhmObjectID", "123");
+        attributes.put("GIVENNAME", "Erika%%Maria");
+        attributes.put("sn", "Musterfrau".getBytes(StandardCharsets.UTF_8));
+        attributes.put(new BasicAttribute("uid"));
+        attributes.put("cn", "Erika Musterfrau");
+        final LdapBaseUserDTO user = table.apply(attributes, new LdapBaseUserDTO());
+        assertThat(user.getLhmObjectId()).isEqualTo("123");
+        assertThat(user.getVorname()).isEqualTo("Erika\nMaria");
+        // binäre und leere Werte werden ignoriert
+        assertThat(user.getNachname()).isNull();
+        assertThat(user.getUid()).isNull();
+        assertThat(user.getCn()).isNull();
+    }
+
+    @Test
+    void user_mapper_with_derived_base_mapper() throws NamingException {
+        final LdapUserAttributesMapper mapper = new LdapUserAttributesMapper(new LdapBaseUserAttributesMapper() {
+            @Override
+            public LdapBaseUserDTO mapFromAttributes(final Attributes attributes) throws NamingException {
+                final LdapBaseUserDTO user = super.mapFromAttributes(attributes);
+                user.setAnrede("derived");
+                return user;
+            }
+        });
+        final Attributes entry = entry(allAttributes);
+        final LdapUserDTO expected = legacyUser(entry);
+        expected.setAnrede("derived");
+        assertThat(mapper.mapFromAttributes(entry)).isEqualTo(expected);
+    }
+
+    /**
+     * Ein Eintrag mit allen Attributen des Schemas wird genauso gemappt wie derselbe Eintrag, der
+     * auf die angegebenen Attribute beschränkt ist, und jedes angegebene Attribut wird gelesen.
+     */
+    private static <T> void assertCoversMappedAttributes(final AttributesMapper<T> mapper, final String[] attributeIds)
+            throws NamingException {
+        final T full = mapper.mapFromAttributes(entry(allAttributes));
+        final T restricted = mapper.mapFromAttributes(entry(List.of(attributeIds)));
+        assertThat(restricted).isEqualTo(full);
+        final T empty = mapper.mapFromAttributes(entry(List.of()));
+        for (final String attributeId : attributeIds) {
+            assertThat(mapper.mapFromAttributes(entry(List.of(attributeId)))).as(attributeId).isNotEqualTo(empty);
+        }
+    }
+
+    /*
+     * Das Mapping vor Einführung der AttributeTable, mit einem Lookup je Attribut.
+     */
+
+    private static LdapBaseUserDTO legacyBaseUser(final Attributes attributes) {
+        final LdapBaseUserDTO u = new LdapBaseUserDTO();
+        u.setLhmObjectId(safelyGet("lhmObjectId", attributes));
+        u.setUid(safelyGet("uid", attributes));
+        u.setAnrede(safelyGet("lhmTitle", attributes));
+        u.setVorname(safelyGet("givenName", attributes));
+        u.setNachname(safelyGet("sn", attributes));
+        u.setCn(safelyGet("cn", attributes));
+        u.setOu(safelyGet("ou", attributes));
+        return u;
+    }
+
+    private static LdapUserDTO legacyUser(final Attributes attributes) {
+        final LdapUserDTO u = new LdapUserDTO(legacyBaseUser(attributes));
+        u.setBueroanschrift(new AnschriftDTO());
+        u.setPostanschrift(new AnschriftDTO());
+        u.setLhmOULongname(safelyGet("lhmOULongname", attributes));
+        u.setLhmObjectPath(safelyGet("lhmObjectPath", attributes));
+        u.setLhmOberOrga(safelyGet("lhmOberOrga", attributes));
+        u.setLhmReferatName(safelyGet("lhmReferatName", attributes));
+        u.setLhmFunctionalTitle(safelyGet("lhmFunctionalTitle", attributes));
+        u.setAmtsbezeichnung(safelyGet("title", attributes));
+        u.setErreichbarkeit(safelyGet("lhmWorkHours", attributes));
+        u.setMail(safelyGet("mail", attributes));
+        u.setLhmOrgaMail(safelyGet("lhmOrgaMail", attributes));
+        u.setTelephoneNumber(safelyGet("telephoneNumber", attributes));
+        u.setFacsimileTelephoneNumber(safelyGet("facsimileTelephoneNumber", attributes));
+        u.setMobile(safelyGet("mobile", attributes));
+        u.setZimmer(safelyGet("roomNumber", attributes));
+        u.setPersonalTitle(safelyGet("personalTitle", attributes));
+        u.getPostanschrift().setOrt(safelyGet("l", attributes));
+        u.getPostanschrift().setPlz(safelyGet("postalCode", attributes));
+        u.getPostanschrift().setStrasse(safelyGet("street", attributes));
+        u.getBueroanschrift().setOrt(safelyGet("lhmOfficeLocalityName", attributes));
+        u.getBueroanschrift().setPlz(safelyGet("lhmOfficePostalCode", attributes));
+        u.getBueroanschrift().setStrasse(safelyGet("lhmOfficeStreetAddress", attributes));
+        return u;
+    }
+
+    private static LdapOuSearchResultDTO legacyOu(final Attributes attributes) {
+        final LdapOuSearchResultDTO ou = new LdapOuSearchResultDTO();
+        ou.setLhmObjectId(safelyGet("lhmObjectId", attributes));
+        ou.setOu(safelyGet("ou", attributes));
+        ou.setLhmOUKey(safelyGet("lhmOUKey", attributes));
+        ou.setLhmOULongname(safelyGet("lhmOULongname", attributes));
+        ou.setLhmOUShortname(safelyGet("lhmOUShortname", attributes));
+        ou.setPostalCode(safelyGet("postalCode", attributes));
+        ou.setStreet(safelyGet("street", attributes));
+        ou.setMail(safelyGet("mail", attributes));
+        ou.setTelephoneNumber(safelyGet("telephoneNumber", attributes));
+        ou.setFacsimileTelephoneNumber(safelyGet("facsimileTelephoneNumber", attributes));
+        ou.setLhmOUManager(safelyGet("lhmOUManager", attributes));
+        ou.setLhmOU2ndManager(safelyGet("lhmOU2ndManager", attributes));
+        return ou;
+    }
+
+    /**
+     * Ein Eintrag, wie ihn JNDI liefert (Attribut-IDs ohne Beachtung der Groß-/Kleinschreibung),
+     * jeder Wert ist die Attribut-ID in Kleinbuchstaben.
+     */
+    private static Attributes entry(final List<String> attributeIds) {
+        final Attributes attributes = new BasicAttributes(true);
+        attributeIds.forEach(attributeId -> attributes.put(attributeId, attributeId.toLowerCase(Locale.ROOT)));
+        return attributes;
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests zu {@link BatchingLoader} ohne LDAP-Server.
+ *
+ * @author michael.prankl
+ */
+class BatchingLoaderTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void afterEach() {
+        this.release.countDown();
+        this.scheduler.shutdownNow();
+        LdapDeadline.clear();
+    }
+
+    @Test
+    void waits_at_most_until_deadline() {
+        final BatchingLoader<String> sut = this.loader(10, this.blocking());
+        LdapDeadline.set(Duration.ofMillis(100));
+        final long start = System.nanoTime();
+
+        assertThatThrownBy(() -> sut.load("erika.musterfrau")).isInstanceOf(LdapDeadlineExceededException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+    }
+
+    @Test
+    void full_batch_runs_without_deadline_of_caller() {
+        final CompletableFuture<Optional<Duration>> deadlineOfBatch = new CompletableFuture<>();
+        final BatchingLoader<String> sut = this.loader(1, keys -> {
+            deadlineOfBatch.complete(LdapDeadline.remaining());
+            return Map.of("erika.musterfrau", "Erika Musterfrau");
+        });
+        LdapDeadline.set(Duration.ofSeconds(5));
+
+        assertThat(sut.load("erika.musterfrau")).isEqualTo(Optional.of("Erika Musterfrau"));
+        assertThat(deadlineOfBatch.join().isPresent()).isFalse();
+    }
+
+    @Test
+    void close_fails_waiting_callers() throws Exception {
+        final BatchingLoader<String> sut = this.loader(1, this.blocking());
+        final CompletableFuture<Optional<String>> waiting = CompletableFuture.supplyAsync(() -> sut.load("erika.musterfrau"));
+        // let the batch start
+        Thread.sleep(100);
+
+        sut.close();
+        assertThat(waiting.handle((value, failure) -> failure.getCause()).get(1, TimeUnit.SECONDS))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> sut.load("erika.musterfrau")).isInstanceOf(IllegalStateException.class);
+    }
+
+    private BatchingLoader<String> loader(final int maxBatchSize, final Function<Collection<String>, Map<String, String>> batchLookup) {
+        return new BatchingLoader<>("persons", batchLookup, Duration.ofMillis(10), maxBatchSize, this.scheduler);
+    }
+
+    private Function<Collection<String>, Map<String, String>> blocking() {
+        return keys -> {
+            try {
+                this.release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Map.of();
+        };
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests zu {@link LdapRequestHedger} ohne LDAP-Server.
+ *
+ * @author michael.prankl
+ */
+class LdapRequestHedgerTest {
+
+    @Test
+    void first_successful_ignores_failed_attempt() throws Exception {
+        final CompletableFuture<String> primary = new CompletableFuture<>();
+        final CompletableFuture<String> hedge = new CompletableFuture<>();
+        final CompletableFuture<String> first = LdapRequestHedger.firstSuccessful(primary, hedge);
+
+        primary.completeExceptionally(new IllegalStateException("Connection reset"));
+        assertThat(first.isDone()).isFalse();
+        hedge.complete("erika.musterfrau");
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo("erika.musterfrau");
+
+        final CompletableFuture<String> slowPrimary = new CompletableFuture<>();
+        final CompletableFuture<String> failedHedge = new CompletableFuture<>();
+        final CompletableFuture<String> second = LdapRequestHedger.firstSuccessful(slowPrimary, failedHedge);
+        failedHedge.completeExceptionally(new IllegalStateException("Connection reset"));
+        slowPrimary.complete("erika.musterfrau");
+        assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo("erika.musterfrau");
+    }
+
+    @Test
+    void first_successful_fails_when_both_attempts_fail() throws Exception {
+        final CompletableFuture<String> primary = new CompletableFuture<>();
+        final CompletableFuture<String> hedge = new CompletableFuture<>();
+        final CompletableFuture<String> first = LdapRequestHedger.firstSuccessful(primary, hedge);
+
+        primary.completeExceptionally(new IllegalStateException("Connection reset"));
+        final IllegalStateException last = new IllegalStateException("Connection refused");
+        hedge.completeExceptionally(last);
+        assertThat(first.handle((value, failure) -> failure).get(1, TimeUnit.SECONDS)).isSameAs(last);
+    }
+
+    @Test
+    void counts_searches_without_hedging_when_threads_busy() throws Exception {
+        try (LdapRequestHedger hedger = new LdapRequestHedger(0.5, Duration.ofMillis(10), 1)) {
+            for (int i = 0; i < 32; i++) {
+                assertThat(hedger.execute(LdapOperation.PERSON_LOOKUP, () -> "erika.musterfrau")).isEqualTo("erika.musterfrau");
+            }
+            assertThat(hedger.getHedgeDelay(LdapOperation.PERSON_LOOKUP).isPresent()).isTrue();
+            // let the thread of the last search return to the pool, it is busy until then
+            Thread.sleep(100);
+            final long unhedged = hedger.getUnhedgedRequests();
+
+            final CountDownLatch running = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final Supplier<String> blockingSearch = () -> {
+                running.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "max.mustermann";
+            };
+            final CompletableFuture<String> blocking = CompletableFuture
+                    .supplyAsync(() -> hedger.execute(LdapOperation.PERSON_LOOKUP, blockingSearch));
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // the only thread is busy: runs in the calling thread
+            assertThat(hedger.execute(LdapOperation.PERSON_LOOKUP, () -> "erika.musterfrau")).isEqualTo("erika.musterfrau");
+            // the blocked search is not hedged either once its delay has passed
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (hedger.getUnhedgedRequests() < unhedged + 2 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            assertThat(blocking.get(5, TimeUnit.SECONDS)).isEqualTo("max.mustermann");
+            assertThat(hedger.getUnhedgedRequests()).isEqualTo(unhedged + 2);
+            assertThat(hedger.getHedgedRequests()).isEqualTo(0L);
+        }
+    }
+
+}
@@ -24,15 +24,39 @@ package de.muenchen.oss.ezldap.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.DirContext;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
+import org.springframework.ldap.TimeLimitExceededException;
+import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.ContextSource;
 import org.springframework.ldap.core.LdapTemplate;
 import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.pool2.DirContextType;
+import org.springframework.ldap.pool2.factory.PoolConfig;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+import org.springframework.ldap.pool2.validation.DefaultDirContextValidator;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.support.LdapUtils;
 import org.testcontainers.containers.BindMode;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.output.Slf4jLogConsumer;
@@ -41,6 +65,13 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.MountableFile;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+
 /**
  * Integrationtest zu {@link LdapService} mit einem embedded LDAP Server.
  *
@@ -51,6 +82,7 @@ import org.testcontainers.utility.MountableFile;
 public class LdapServiceIntegrationTest {
 
     private LdapService sut;
+    private LdapTemplate ldapTemplate;
 
     private static final int OPENLDAP_EXPOSED_PORT = 389;
     private static final String USER_BASE = "o=users,dc=example,dc=org";
@@ -94,7 +126,8 @@ public class LdapServiceIntegrationTest {
         System.out.println(exposedPort);
         final LdapContextSource contextSource = this.contextSource(exposedPort);
         final LdapBaseUserAttributesMapper baseUserAttributesMapper = new LdapBaseUserAttributesMapper();
-        this.sut = new LdapService(this.ldapTemplate(contextSource),
+        this.ldapTemplate = this.ldapTemplate(contextSource);
+        this.sut = new LdapService(this.ldapTemplate,
                 new LdapUserAttributesMapper(baseUserAttributesMapper),
                 baseUserAttributesMapper, new LdapOuAttributesMapper(), new DtoMapperImpl(), USER_BASE,
                 ORG_BASE);
@@ -141,6 +174,74 @@ public class LdapServiceIntegrationTest {
         assertThat(person.get().getCn()).isEqualTo("Maxi Mustermann");
     }
 
+    @Test
+    void get_persons_batch() {
+        final Map<String, LdapUserDTO> byLhmObjectId = this.sut.getPersons(List.of("20011", "00000"));
+        assertThat(byLhmObjectId).containsOnlyKeys("20011");
+        assertThat(byLhmObjectId.get("20011").getCn()).isEqualTo("Maxi Mustermann");
+        final Map<String, LdapUserDTO> byUid = this.sut.getPersonsWithUID(List.of("Maxi.Mustermann", "petra.mustermann", "hammaned"));
+        assertThat(byUid).containsOnlyKeys("Maxi.Mustermann", "petra.mustermann");
+    }
+
+    @Test
+    void get_persons_batch_matches_single_lookup() {
+        final List<String> uids = List.of("maxi.mustermann", "erika.doppelt", "otto.ohneid");
+        final Map<String, LdapUserDTO> byUid = this.sut.getPersonsWithUID(uids);
+        assertThat(byUid).containsOnlyKeys("maxi.mustermann");
+        for (final String uid : uids) {
+            assertThat(this.sut.getPersonWithUID(uid)).isEqualTo(Optional.ofNullable(byUid.get(uid)));
+        }
+    }
+
+    @Test
+    void request_coalescer() throws Exception {
+        try (LdapRequestCoalescer coalescer = new LdapRequestCoalescer(this.sut, Duration.ofMillis(50), 10, 2)) {
+            final CompletableFuture<Optional<LdapUserDTO>> byId = CompletableFuture.supplyAsync(() -> coalescer.getPerson("20011"));
+            final CompletableFuture<Optional<LdapUserDTO>> byIdAgain = CompletableFuture.supplyAsync(() -> coalescer.getPerson("20011"));
+            final CompletableFuture<Optional<LdapUserDTO>> notFound = CompletableFuture.supplyAsync(() -> coalescer.getPerson("00000"));
+            assertThat(byId.get()).map(LdapUserDTO::getCn).contains("Maxi Mustermann");
+            assertThat(byIdAgain.get()).map(LdapUserDTO::getCn).contains("Maxi Mustermann");
+            assertThat(notFound.get()).isEmpty();
+            assertThat(coalescer.getOu("30002")).map(LdapOuDTO::getLhmOUShortname).contains("RBS-A-1");
+        }
+    }
+
+    @Test
+    void async() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            this.sut.setExecutor(executor);
+            this.sut.setParallelSubLookups(true);
+            final CompletableFuture<Optional<LdapOuDTO>> withManagers = this.sut.getOuAsync("30002");
+            final CompletableFuture<Optional<LdapOuDTO>> withRanks = this.sut.getOuAsync("30003");
+            final CompletableFuture<Optional<List<String>>> ouTree = this.sut.findOuTreeByUserIdAsync("99999");
+            assertThat(withManagers.get().orElseThrow().getStellvertretung().getCn()).isEqualTo("Petra Mustermann");
+            assertThat(withRanks.get().orElseThrow().getLeitung().getCn()).isEqualTo("Peter Lustig");
+            assertThat(withRanks.get().orElseThrow().getStellvertretung().getCn()).isEqualTo("Petra Lustig");
+            Assertions.assertEquals(List.of("LHM", "RBS", "RBS-A-1"), ouTree.get().orElseThrow());
+            assertThat(this.sut.getPersonAsync("00000").get()).isEmpty();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void async_with_parallel_sub_lookups_on_single_thread_pool() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            this.sut.setExecutor(executor);
+            this.sut.setParallelSubLookups(true);
+            final CompletableFuture<Optional<LdapOuDTO>> withManagers = this.sut.getOuAsync("30002");
+            final CompletableFuture<Optional<LdapOuDTO>> withRanks = this.sut.getOuAsync("30003");
+            final CompletableFuture<Optional<List<String>>> ouTree = this.sut.findOuTreeByUserIdAsync("99999");
+            assertThat(withManagers.get(10, TimeUnit.SECONDS).orElseThrow().getLeitung().getCn()).isEqualTo("Maxi Mustermann");
+            assertThat(withRanks.get(10, TimeUnit.SECONDS).orElseThrow().getStellvertretung().getCn()).isEqualTo("Petra Lustig");
+            Assertions.assertEquals(List.of("LHM", "RBS", "RBS-A-1"), ouTree.get(10, TimeUnit.SECONDS).orElseThrow());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     void find_persons_by_ou_shortcode_exists() {
         final Optional<List<LdapBaseUserDTO>> result = this.sut.findPersonsByOuShortcode("rbs");
@@ -186,6 +287,231 @@ public class LdapServiceIntegrationTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void get_ous_and_ou_trees_batch() {
+        final Map<String, LdapOuDTO> ous = this.sut.getOus(List.of("30002", "30003", "00000"));
+        assertThat(ous).containsOnlyKeys("30002", "30003");
+        assertThat(ous.get("30002").getLeitung().getCn()).isEqualTo("Maxi Mustermann");
+        assertThat(ous.get("30003").getStellvertretung().getCn()).isEqualTo("Petra Lustig");
+        assertThat(this.sut.findOusByShortcode(List.of("RBS-A-1", "hammaned"))).containsOnlyKeys("RBS-A-1");
+        final Map<String, List<String>> ouTrees = this.sut.findOuTreesByOuShortCode(List.of("RBS-A-1", "hammaned"));
+        assertThat(ouTrees).containsOnlyKeys("RBS-A-1");
+        Assertions.assertEquals(List.of("LHM", "RBS", "RBS-A-1"), ouTrees.get("RBS-A-1"));
+    }
+
+    @Test
+    void circuit_breaker() {
+        final CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        this.sut.setCircuitBreakerRegistry(registry);
+        assertThat(this.sut.getPerson("20011")).isPresent();
+        assertThat(registry.circuitBreaker("ezldap-person-lookup").getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(1);
+        registry.circuitBreaker("ezldap-person-lookup").transitionToOpenState();
+        Assertions.assertThrows(CallNotPermittedException.class, () -> this.sut.getPerson("20011"));
+        // other operations are not affected
+        assertThat(this.sut.existsOuWithShortcode("RBS-A-1")).isTrue();
+    }
+
+    @Test
+    void load_balancing_failover() {
+        final Map<String, ContextSource> contextSources = new LinkedHashMap<>();
+        contextSources.put("ldap://localhost:1", this.contextSource(1));
+        contextSources.put("ldap://localhost", this.contextSource(openldapContainer.getMappedPort(OPENLDAP_EXPOSED_PORT)));
+        try (LoadBalancingContextSource loadBalancing = new LoadBalancingContextSource(contextSources,
+                LoadBalancingContextSource.Strategy.EWMA_LATENCY, Duration.ofHours(1))) {
+            final LdapBaseUserAttributesMapper baseUserAttributesMapper = new LdapBaseUserAttributesMapper();
+            final LdapService service = new LdapService(new LdapTemplate(loadBalancing), new LdapUserAttributesMapper(baseUserAttributesMapper),
+                    baseUserAttributesMapper, new LdapOuAttributesMapper(), new DtoMapperImpl(), USER_BASE, ORG_BASE);
+            for (int i = 0; i < 3; i++) {
+                assertThat(service.getPerson("20011")).isPresent();
+            }
+            loadBalancing.checkHealth();
+            assertThat(loadBalancing.getServers()).extracting(LoadBalancingContextSource.Server::isHealthy).containsExactly(false, true);
+            assertThat(loadBalancing.getServers().get(1).getOutstanding()).isZero();
+        }
+    }
+
+    @Test
+    void load_balancing_health_check_sends_request() {
+        // like a pooled connection to a server that went down: borrowing succeeds, the first request fails
+        final DirContext staleContext = (DirContext) Proxy.newProxyInstance(DirContext.class.getClassLoader(),
+                new Class<?>[] { DirContext.class }, (proxy, method, args) -> {
+                    if ("close".equals(method.getName())) {
+                        return null;
+                    }
+                    throw new javax.naming.CommunicationException("connection closed");
+                });
+        final ContextSource stale = new ContextSource() {
+
+            @Override
+            public DirContext getReadOnlyContext() {
+                return staleContext;
+            }
+
+            @Override
+            public DirContext getReadWriteContext() {
+                return staleContext;
+            }
+
+            @Override
+            public DirContext getContext(final String principal, final String credentials) {
+                return staleContext;
+            }
+
+        };
+        final Map<String, ContextSource> contextSources = new LinkedHashMap<>();
+        contextSources.put("ldap://stale", stale);
+        contextSources.put("ldap://localhost", this.contextSource(openldapContainer.getMappedPort(OPENLDAP_EXPOSED_PORT)));
+        try (LoadBalancingContextSource loadBalancing = new LoadBalancingContextSource(contextSources,
+                LoadBalancingContextSource.Strategy.LEAST_OUTSTANDING, Duration.ofHours(1))) {
+            loadBalancing.checkHealth();
+            assertThat(loadBalancing.getServers()).extracting(LoadBalancingContextSource.Server::isHealthy).containsExactly(false, true);
+        }
+    }
+
+    @Test
+    void request_hedger() {
+        try (LdapRequestHedger hedger = new LdapRequestHedger(0.95, Duration.ofMillis(10), 4)) {
+            this.sut.setRequestHedger(hedger);
+            for (int i = 0; i < 32; i++) {
+                assertThat(this.sut.getPerson("20011")).isPresent();
+            }
+            assertThat(hedger.getHedgeDelay(LdapOperation.PERSON_LOOKUP)).isPresent();
+            assertThat(hedger.getHedgedRequests()).isZero();
+            final AtomicInteger attempts = new AtomicInteger();
+            final String result = hedger.execute(LdapOperation.PERSON_LOOKUP, () -> {
+                if (attempts.incrementAndGet() == 1) {
+                    try {
+                        Thread.sleep(Duration.ofSeconds(10));
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "stalled";
+                }
+                return "hedged";
+            });
+            assertThat(result).isEqualTo("hedged");
+            assertThat(hedger.getHedgedRequests()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void time_limits_and_deadline() {
+        this.sut.setTimeLimit(LdapOperation.PERSON_SEARCH, Duration.ofSeconds(5));
+        this.sut.setCountLimit(LdapOperation.PERSON_SEARCH, 2);
+        assertThat(this.sut.searchFor("*ust*", 10)).hasSize(2);
+        try {
+            LdapDeadline.set(Duration.ofSeconds(3));
+            assertThat(this.sut.getPerson("20011")).isPresent();
+            LdapDeadline.set(Duration.ZERO);
+            Assertions.assertThrows(TimeLimitExceededException.class, () -> this.sut.getPerson("20011"));
+        } finally {
+            LdapDeadline.clear();
+        }
+    }
+
+    @Test
+    void deadline_below_a_second() {
+        // the server side time limit is rounded up to one second, the search itself takes 2 seconds
+        final LdapTemplate slowTemplate = new LdapTemplate(this.contextSource(openldapContainer.getMappedPort(OPENLDAP_EXPOSED_PORT))) {
+
+            @Override
+            public <T> List<T> search(final LdapQuery query, final AttributesMapper<T> mapper) {
+                try {
+                    Thread.sleep(2000);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.search(query, mapper);
+            }
+
+        };
+        final LdapBaseUserAttributesMapper baseUserAttributesMapper = new LdapBaseUserAttributesMapper();
+        final LdapService service = new LdapService(slowTemplate, new LdapUserAttributesMapper(baseUserAttributesMapper),
+                baseUserAttributesMapper, new LdapOuAttributesMapper(), new DtoMapperImpl(), USER_BASE, ORG_BASE);
+        final CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        service.setCircuitBreakerRegistry(registry);
+        try {
+            LdapDeadline.set(Duration.ofMillis(300));
+            final long start = System.nanoTime();
+            final TimeLimitExceededException e = Assertions.assertThrows(TimeLimitExceededException.class,
+                    () -> service.getPerson("20011"));
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+            assertThat(e).isInstanceOf(LdapDeadlineExceededException.class);
+            assertThat(LdapFailures.isDeadlineExceeded(e)).isTrue();
+            assertThat(LdapFailures.isUnavailable(e)).isFalse();
+
+            LdapDeadline.set(Duration.ZERO);
+            assertThat(Assertions.assertThrows(TimeLimitExceededException.class, () -> this.sut.getPerson("20011")))
+                    .isInstanceOf(LdapDeadlineExceededException.class);
+        } finally {
+            LdapDeadline.clear();
+        }
+        assertThat(registry.circuitBreaker("ezldap-person-lookup").getMetrics().getNumberOfFailedCalls()).isZero();
+        // a time limit of the operation itself still means the LDAP does not answer in time
+        assertThat(LdapFailures.isUnavailable(new TimeLimitExceededException(new javax.naming.TimeLimitExceededException()))).isTrue();
+    }
+
+    @Test
+    void metrics() {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        this.sut.setMeterRegistry(meterRegistry);
+        assertThat(this.sut.getOu("30002")).isPresent();
+        assertThat(meterRegistry.get("ezldap.service.calls").tags("method", "getOu", "exception", "none").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ezldap.service.results").tag("method", "getOu").summary().totalAmount()).isEqualTo(1);
+        // ou + leitung + stellvertretung
+        assertThat(meterRegistry.get("ezldap.service.roundtrips").tag("method", "getOu").summary().totalAmount()).isEqualTo(3);
+        assertThat(meterRegistry.get("ezldap.ldap.searches").tag("operation", "ou-lookup").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void observations() {
+        final List<Observation.Context> observed = new CopyOnWriteArrayList<>();
+        final ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+
+            @Override
+            public boolean supportsContext(final Observation.Context context) {
+                return true;
+            }
+
+            @Override
+            public void onStop(final Observation.Context context) {
+                observed.add(context);
+            }
+
+        });
+        this.sut.setObservationRegistry(observationRegistry);
+        assertThat(this.sut.getOu("30002")).isPresent();
+        final List<Observation.Context> searches = observed.stream().filter(c -> "ezldap.ldap.search".equals(c.getName())).toList();
+        // ou + leitung + stellvertretung
+        assertThat(searches).hasSize(3);
+        assertThat(searches.get(0).getLowCardinalityKeyValue("filter").getValue())
+                .isEqualTo("(&(objectClass=lhmOrganizationalUnit)(lhmObjectId=?))");
+        assertThat(observed).anyMatch(c -> "ezldap.mapping".equals(c.getName()));
+        assertThat(observed.get(observed.size() - 1).getLowCardinalityKeyValue("method").getValue()).isEqualTo("getOu");
+        assertThat(LdapServiceMetrics.filterTemplate("(|(uid=a)(uid=b)(uid=c))")).isEqualTo("(|(uid=?))");
+    }
+
+    @Test
+    void slow_query_log() {
+        this.sut.setSlowQueryThreshold(Duration.ZERO);
+        assertThat(this.sut.getOu("30002")).isPresent();
+        assertThat(this.sut.streamPersonsByOuShortcode("rbs", person -> {
+        })).isEqualTo(this.sut.findPersonsByOuShortcode("rbs").orElseThrow().size());
+    }
+
+    @Test
+    void stream_persons_by_ou_count_limit() {
+        // the countLimit applies to the whole paged search, not to each page
+        this.sut.setPageSize(2);
+        this.sut.setCountLimit(LdapOperation.OU_MEMBERS, 3);
+        final List<LdapBaseUserDTO> persons = new ArrayList<>();
+        assertThat(this.sut.streamPersonsByOuShortcode("rbs", persons::add)).isEqualTo(3);
+        assertThat(persons).hasSize(3);
+        // the abandoned paged search leaves the connection usable
+        assertThat(this.sut.getOu("30002")).isPresent();
+    }
+
     @Test
     void find_ou_tree_by_user() {
         final Optional<List<String>> result = this.sut.findOuTreeByUserId("99999");
@@ -193,10 +519,116 @@ public class LdapServiceIntegrationTest {
         Assertions.assertEquals(List.of("LHM", "RBS", "RBS-A-1"), result.get());
     }
 
+    @Test
+    void find_ou_tree_with_ous_above_ou_search_base() {
+        final String rbsBase = "ou=Referat für Bildung und Sport," + ORG_BASE;
+        final LdapBaseUserAttributesMapper baseUserAttributesMapper = new LdapBaseUserAttributesMapper();
+        final LdapService service = new LdapService(this.ldapTemplate, new LdapUserAttributesMapper(baseUserAttributesMapper),
+                baseUserAttributesMapper, new LdapOuAttributesMapper(), new DtoMapperImpl(), USER_BASE, rbsBase);
+        Assertions.assertEquals(List.of("LHM", "RBS", "RBS-A-1"), service.findOuTreeByUserId("99999").orElseThrow());
+        Assertions.assertEquals(List.of("LHM", "RBS", "RBS-A-1"), service.findOuTreesByOuShortCode(List.of("RBS-A-1")).get("RBS-A-1"));
+        final OuHierarchyIndex index = new OuHierarchyIndex(this.ldapTemplate, new LdapOuAttributesMapper(), rbsBase, Duration.ofHours(1));
+        index.refresh();
+        assertThat(index.findOuTreeByShortname("RBS-A-1")).contains(List.of("LHM", "RBS", "RBS-A-1"));
+    }
+
     @Test
     void find_ou_tree_by_user_not_found() {
         final Optional<List<String>> result = this.sut.findOuTreeByUserId("00000");
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void ou_hierarchy_index() {
+        final OuHierarchyIndex index = new OuHierarchyIndex(this.ldapTemplate, new LdapOuAttributesMapper(), ORG_BASE, Duration.ofHours(1));
+        index.refresh();
+        assertThat(index.isLoaded()).isTrue();
+        assertThat(index.findByShortname("rbs-a-1")).map(LdapOuSearchResultDTO::getLhmObjectId).contains("30002");
+        assertThat(index.findOuTreeByShortname("RBS-A-1")).contains(List.of("LHM", "RBS", "RBS-A-1"));
+        this.sut.setOuHierarchyIndex(index);
+        assertThat(this.sut.getOu("30002")).map(LdapOuDTO::getLeitung).map(LdapUserDTO::getCn).contains("Maxi Mustermann");
+        Assertions.assertEquals(List.of("LHM", "RBS", "RBS-A-1"), this.sut.findOuTreeByUserId("99999").orElseThrow());
+        assertThat(this.sut.findOuTreeByOuShortCode("hammaned")).isEmpty();
+    }
+
+    @Test
+    void ou_hierarchy_index_with_ou_created_after_refresh() {
+        final OuHierarchyIndex index = new OuHierarchyIndex(this.ldapTemplate, new LdapOuAttributesMapper(), ORG_BASE, Duration.ofHours(1));
+        index.refresh();
+        this.sut.setOuHierarchyIndex(index);
+        final String ouDn = "ou=Sachgebiet 1,ou=Abteilung 1,ou=Referat für Bildung und Sport," + ORG_BASE;
+        final String groupDn = "cn=rbs-a-1-sg1," + USER_BASE;
+        final BasicAttributes ou = new BasicAttributes(true);
+        ou.put(objectClasses("lhmObject", "lhmOrganizationalUnit", "organizationalUnit", "top"));
+        ou.put("ou", "Sachgebiet 1");
+        ou.put("lhmObjectID", "30004");
+        ou.put("lhmOUShortname", "RBS-A-1-SG1");
+        final BasicAttributes group = new BasicAttributes(true);
+        group.put(objectClasses("lhmObject", "groupOfUniqueNames", "top"));
+        group.put("cn", "rbs-a-1-sg1");
+        group.put("uniqueMember", "uid=john.doe,ou=users,dc=example,dc=org");
+        group.put("lhmObjectID", "111111113");
+        group.put("lhmObjectPath", ouDn);
+        this.ldapTemplate.bind(ouDn, null, ou);
+        try {
+            this.ldapTemplate.bind(groupDn, null, group);
+            try {
+                assertThat(index.findOuTree(LdapUtils.newLdapName(ouDn))).isEmpty();
+                Assertions.assertEquals(List.of("LHM", "RBS", "RBS-A-1", "RBS-A-1-SG1"),
+                        this.sut.findOuTreeByOuShortCode("rbs-a-1-sg1").orElseThrow());
+            } finally {
+                this.ldapTemplate.unbind(groupDn);
+            }
+        } finally {
+            this.ldapTemplate.unbind(ouDn);
+        }
+    }
+
+    private static BasicAttribute objectClasses(final String... objectClasses) {
+        final BasicAttribute attribute = new BasicAttribute("objectClass");
+        for (final String objectClass : objectClasses) {
+            attribute.add(objectClass);
+        }
+        return attribute;
+    }
+
+    @Test
+    void pooled_context_source() throws Exception {
+        final LdapContextSource target = this.contextSource(openldapContainer.getMappedPort(OPENLDAP_EXPOSED_PORT));
+        final PoolConfig poolConfig = new PoolConfig();
+        poolConfig.setMaxTotal(1);
+        poolConfig.setTestOnBorrow(true);
+        poolConfig.setTestWhileIdle(true);
+        final PooledContextSource pooled = LdapContextSourceFactory.createPooledContextSource(target, poolConfig);
+        try {
+            assertThat(pooled.getContextSource()).isSameAs(target);
+            assertThat(pooled.getDirContextValidator()).isInstanceOf(DefaultDirContextValidator.class);
+            final DirContext connection = target.getReadOnlyContext();
+            try {
+                assertThat(pooled.getDirContextValidator().validateDirContext(DirContextType.READ_ONLY, connection)).isTrue();
+            } finally {
+                connection.close();
+            }
+            final LdapBaseUserAttributesMapper baseUserAttributesMapper = new LdapBaseUserAttributesMapper();
+            final LdapService service = new LdapService(new LdapTemplate(pooled), new LdapUserAttributesMapper(baseUserAttributesMapper),
+                    baseUserAttributesMapper, new LdapOuAttributesMapper(), new DtoMapperImpl(), USER_BASE, ORG_BASE);
+            for (int i = 0; i < 3; i++) {
+                assertThat(service.getPerson("20011")).isPresent();
+            }
+            // a single connection, validated on borrow and returned after each search
+            assertThat(pooled.getNumActive()).isZero();
+            assertThat(pooled.getNumIdle()).isEqualTo(1);
+        } finally {
+            pooled.destroy();
+        }
+    }
+
+    @Test
+    void timeout_environment() {
+        assertThat(LdapContextSourceFactory.timeoutEnvironment(Duration.ofSeconds(2), Duration.ofMillis(500)))
+                .containsEntry("com.sun.jndi.ldap.connect.timeout", "2000")
+                .containsEntry("com.sun.jndi.ldap.read.timeout", "500");
+        assertThat(LdapContextSourceFactory.timeoutEnvironment(null, Duration.ZERO)).isEmpty();
+    }
+
 }
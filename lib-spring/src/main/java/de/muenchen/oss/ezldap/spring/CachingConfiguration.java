@@ -25,20 +25,46 @@ package de.muenchen.oss.ezldap.spring;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.cache.CacheManager;
 import javax.cache.Caching;
+import javax.cache.configuration.CompleteConfiguration;
 import javax.cache.spi.CachingProvider;
 
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.xml.XmlConfiguration;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.thread.Threading;
+import org.springframework.cache.Cache;
 import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.util.ResourceUtils;
 
+import de.muenchen.oss.ezldap.core.LdapThreads;
+import de.muenchen.oss.ezldap.spring.cache.DecoratingCacheManager;
+import de.muenchen.oss.ezldap.spring.cache.ForwardingCache;
+import de.muenchen.oss.ezldap.spring.cache.ObservedCache;
+import de.muenchen.oss.ezldap.spring.cache.RefreshAheadCache;
+import de.muenchen.oss.ezldap.spring.cache.SingleFlightCache;
+import de.muenchen.oss.ezldap.spring.cache.StaleFallbackCache;
+import de.muenchen.oss.ezldap.spring.props.EzLdapCacheRefreshAheadProperties;
+import de.muenchen.oss.ezldap.spring.props.EzLdapCacheSingleFlightProperties;
+import de.muenchen.oss.ezldap.spring.props.EzLdapCacheStaleFallbackProperties;
+import de.muenchen.oss.ezldap.spring.props.EzLdapConfigurationProperties;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -48,7 +74,23 @@ import lombok.extern.slf4j.Slf4j;
 @ConditionalOnProperty(name = "ezldap.cache.enabled", havingValue = "true")
 @EnableCaching
 @Slf4j
-public class CachingConfiguration implements CachingConfigurer {
+public class CachingConfiguration implements CachingConfigurer, DisposableBean {
+
+    private static final String FALLBACK_CACHE_SUFFIX = "Fallback";
+    private static final String FALLBACK_CACHE_TEMPLATE = "fallbackCacheTemplate";
+
+    private final EzLdapConfigurationProperties props;
+    private final ObjectProvider<ObservationRegistry> observationRegistry;
+    private final ExecutorService refreshExecutor;
+
+    public CachingConfiguration(final EzLdapConfigurationProperties props, final ObjectProvider<ObservationRegistry> observationRegistry,
+            final Environment environment) {
+        this.props = props;
+        this.observationRegistry = observationRegistry;
+        // threads are only started when a refresh is triggered
+        this.refreshExecutor = Executors.newFixedThreadPool(props.getCache().getRefreshAhead().getThreads(),
+                LdapThreads.factory("ezldap-cache-refresh-", Threading.VIRTUAL.isActive(environment)));
+    }
 
     @Bean
     EhCachePropertiesReplacer replacer() {
@@ -69,10 +111,104 @@ public class CachingConfiguration implements CachingConfigurer {
             cacheManager = cachingProvider.getCacheManager(
                     url.toURI(),
                     getClass().getClassLoader());
-            return new JCacheCacheManager(cacheManager);
+            this.createFallbackCaches(cacheManager, url);
+            final JCacheCacheManager jCacheCacheManager = new JCacheCacheManager(cacheManager);
+            jCacheCacheManager.afterPropertiesSet();
+            return new DecoratingCacheManager(jCacheCacheManager, (name, cache) -> this.decorate(name, cache, jCacheCacheManager));
         } catch (IOException | URISyntaxException e) {
             throw new RuntimeException("ezLDAP EHCache configuration failed.", e);
         }
     }
 
+    /**
+     * Legt die Fallback-Caches (<code>&lt;alias&gt;Fallback</code>) aus dem Template
+     * <code>fallbackCacheTemplate</code> der ezldap-ehcache.xml an, nur für Caches mit aktivem
+     * Stale-Fallback. Ohne Stale-Fallback wird so kein Speicher und kein Plattenplatz belegt.
+     */
+    private void createFallbackCaches(final CacheManager cacheManager, final URL url) {
+        final EzLdapCacheStaleFallbackProperties staleFallback = this.props.getCache().getStaleFallback();
+        if (!staleFallback.isEnabled()) {
+            return;
+        }
+        final XmlConfiguration xmlConfiguration = new XmlConfiguration(url, getClass().getClassLoader());
+        final List<String> names = new ArrayList<>();
+        cacheManager.getCacheNames().forEach(names::add);
+        for (final String name : names) {
+            final String fallbackName = name + FALLBACK_CACHE_SUFFIX;
+            if (name.endsWith(FALLBACK_CACHE_SUFFIX) || !staleFallback.isEnabledFor(name) || cacheManager.getCache(fallbackName) != null) {
+                continue;
+            }
+            final CacheConfigurationBuilder<Object, Object> configuration;
+            try {
+                configuration = xmlConfiguration.newCacheConfigurationBuilderFromTemplate(FALLBACK_CACHE_TEMPLATE, Object.class,
+                        Object.class);
+            } catch (final Exception e) {
+                throw new RuntimeException("ezLDAP EHCache configuration failed.", e);
+            }
+            if (configuration == null) {
+                throw new IllegalStateException("Cache template '" + FALLBACK_CACHE_TEMPLATE + "' missing in " + url);
+            }
+            log.debug("Creating fallback cache '{}'.", fallbackName);
+            cacheManager.createCache(fallbackName, Eh107Configuration.fromEhcacheCacheConfiguration(configuration));
+            cacheManager.enableStatistics(fallbackName, true);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.refreshExecutor.shutdownNow();
+    }
+
+    Cache decorate(final String name, final Cache cache, final org.springframework.cache.CacheManager cacheManager) {
+        if (name.endsWith(FALLBACK_CACHE_SUFFIX)) {
+            return cache;
+        }
+        final EzLdapCacheSingleFlightProperties singleFlight = this.props.getCache().getSingleFlight();
+        Cache decorated;
+        if (singleFlight.isEnabledFor(name)) {
+            log.debug("Enabling single-flight loading for cache '{}'.", name);
+            decorated = new SingleFlightCache(cache, singleFlight.getTimeout());
+        } else {
+            decorated = new ForwardingCache(cache);
+        }
+        if (this.props.getCache().getStaleFallback().isEnabledFor(name)) {
+            final Cache fallback = cacheManager.getCache(name + FALLBACK_CACHE_SUFFIX);
+            if (fallback != null) {
+                log.debug("Enabling stale fallback for cache '{}'.", name);
+                decorated = new StaleFallbackCache(decorated, fallback);
+            } else {
+                log.warn("No fallback cache '{}{}' configured, stale fallback disabled for cache '{}'.", name, FALLBACK_CACHE_SUFFIX, name);
+            }
+        }
+        final EzLdapCacheRefreshAheadProperties refreshAhead = this.props.getCache().getRefreshAhead();
+        final Duration ttl = refreshAhead.isEnabledFor(name) ? timeToLive(cache) : null;
+        if (ttl != null) {
+            final Duration refreshAfter = Duration.ofMillis((long) (ttl.toMillis() * refreshAhead.getRefreshAfterRatio()));
+            log.debug("Enabling refresh-ahead for cache '{}' after {} (ttl {}).", name, refreshAfter, ttl);
+            decorated = new RefreshAheadCache(decorated, refreshAfter, this.refreshExecutor);
+        }
+        final ObservationRegistry registry = this.observationRegistry.getIfUnique();
+        if (registry != null && !registry.isNoop()) {
+            decorated = new ObservedCache(decorated, registry);
+        }
+        return decorated;
+    }
+
+    /**
+     * Liest die TTL eines Caches aus der JCache-Konfiguration (ezldap-ehcache.xml).
+     *
+     * @param cache der Cache
+     * @return die TTL oder <code>null</code>, wenn Einträge nicht ablaufen
+     */
+    @SuppressWarnings("unchecked")
+    private static Duration timeToLive(final Cache cache) {
+        final javax.cache.Cache<Object, Object> nativeCache = (javax.cache.Cache<Object, Object>) cache.getNativeCache();
+        final javax.cache.expiry.Duration expiry = nativeCache.getConfiguration(CompleteConfiguration.class).getExpiryPolicyFactory()
+                .create().getExpiryForCreation();
+        if (expiry == null || expiry.isEternal()) {
+            return null;
+        }
+        return Duration.ofMillis(expiry.getTimeUnit().toMillis(expiry.getDurationAmount()));
+    }
+
 }
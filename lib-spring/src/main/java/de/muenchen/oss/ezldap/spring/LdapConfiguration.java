@@ -22,18 +22,48 @@
  */
 package de.muenchen.oss.ezldap.spring;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.thread.Threading;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.ldap.core.ContextSource;
 import org.springframework.ldap.core.LdapTemplate;
 import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.pool2.factory.PoolConfig;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
 
 import de.muenchen.oss.ezldap.core.DtoMapperImpl;
 import de.muenchen.oss.ezldap.core.LdapBaseUserAttributesMapper;
+import de.muenchen.oss.ezldap.core.LdapContextSourceFactory;
+import de.muenchen.oss.ezldap.core.LdapFailures;
 import de.muenchen.oss.ezldap.core.LdapOuAttributesMapper;
+import de.muenchen.oss.ezldap.core.LdapRequestCoalescer;
+import de.muenchen.oss.ezldap.core.LdapRequestHedger;
 import de.muenchen.oss.ezldap.core.LdapService;
+import de.muenchen.oss.ezldap.core.LdapThreads;
 import de.muenchen.oss.ezldap.core.LdapUserAttributesMapper;
+import de.muenchen.oss.ezldap.core.LoadBalancingContextSource;
+import de.muenchen.oss.ezldap.core.OuHierarchyIndex;
+import de.muenchen.oss.ezldap.spring.props.EzLdapCoalescingProperties;
 import de.muenchen.oss.ezldap.spring.props.EzLdapConfigurationProperties;
+import de.muenchen.oss.ezldap.spring.props.EzLdapLdapCircuitBreakerProperties;
+import de.muenchen.oss.ezldap.spring.props.EzLdapLdapConnectionProperties;
+import de.muenchen.oss.ezldap.spring.props.EzLdapLdapHedgingProperties;
+import de.muenchen.oss.ezldap.spring.props.EzLdapLdapLoadBalancingProperties;
+import de.muenchen.oss.ezldap.spring.props.EzLdapLdapPoolProperties;
 import de.muenchen.oss.ezldap.spring.rest.v1.LdapServiceAdapter;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -46,31 +76,156 @@ public class LdapConfiguration {
     @Bean
     LdapContextSource ldapContextSource(final EzLdapConfigurationProperties props) {
         final LdapContextSource contextSource = new LdapContextSource();
-        contextSource.setUrl(props.getLdap().getUrl());
+        // further urls are tried in order if no connection can be established (JNDI failover)
+        contextSource.setUrls(serverUrls(props.getLdap()).toArray(String[]::new));
         contextSource.setUserDn(props.getLdap().getUserDn());
         contextSource.setPassword(props.getLdap().getPassword());
-        log.info("Initiating LDAP connection with url='{}' and user-dn='{}'.", props.getLdap().getUrl(),
+        contextSource.setBaseEnvironmentProperties(LdapContextSourceFactory.timeoutEnvironment(props.getLdap().getConnectTimeout(),
+                props.getLdap().getReadTimeout()));
+        log.info("Initiating LDAP connection with url='{}' and user-dn='{}'.", serverUrls(props.getLdap()),
                 props.getLdap().getUserDn());
         return contextSource;
     }
 
     @Bean
-    LdapTemplate ldapTemplate(final LdapContextSource ldapContextSource) {
-        return new LdapTemplate(ldapContextSource);
+    @ConditionalOnExpression("${ezldap.ldap.pool.enabled:false} and !${ezldap.ldap.load-balancing.enabled:false}")
+    PooledContextSource pooledContextSource(final LdapContextSource ldapContextSource, final EzLdapConfigurationProperties props) {
+        final EzLdapLdapPoolProperties pool = props.getLdap().getPool();
+        log.info("Enabling LDAP connection pooling with max-total={}, min-idle={}, max-idle={}.", pool.getMaxTotal(), pool.getMinIdle(),
+                pool.getMaxIdle());
+        return LdapContextSourceFactory.createPooledContextSource(ldapContextSource, poolConfig(pool));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "ezldap.ldap.load-balancing.enabled", havingValue = "true")
+    LoadBalancingContextSource loadBalancingContextSource(final EzLdapConfigurationProperties props) {
+        final EzLdapLdapConnectionProperties ldap = props.getLdap();
+        final EzLdapLdapLoadBalancingProperties loadBalancing = ldap.getLoadBalancing();
+        final Map<String, ContextSource> contextSources = new LinkedHashMap<>();
+        for (final String url : serverUrls(ldap)) {
+            final LdapContextSource contextSource = LdapContextSourceFactory.createContextSource(url, ldap.getUserDn(), ldap.getPassword(),
+                    ldap.getConnectTimeout(), ldap.getReadTimeout());
+            contextSources.put(url, ldap.getPool().isEnabled()
+                    ? LdapContextSourceFactory.createPooledContextSource(contextSource, poolConfig(ldap.getPool()))
+                    : contextSource);
+        }
+        log.info("Enabling LDAP load balancing over {} with strategy={}, pooling={}.", contextSources.keySet(), loadBalancing.getStrategy(),
+                ldap.getPool().isEnabled());
+        return new LoadBalancingContextSource(contextSources, loadBalancing.getStrategy(), loadBalancing.getHealthCheckInterval());
+    }
+
+    @Bean
+    LdapTemplate ldapTemplate(final LdapContextSource ldapContextSource, final ObjectProvider<PooledContextSource> pooledContextSource,
+            final ObjectProvider<LoadBalancingContextSource> loadBalancingContextSource) {
+        ContextSource contextSource = loadBalancingContextSource.getIfAvailable();
+        if (contextSource == null) {
+            contextSource = pooledContextSource.getIfAvailable();
+        }
+        return new LdapTemplate(contextSource != null ? contextSource : ldapContextSource);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "ezldap.ou-index.enabled", havingValue = "true")
+    OuHierarchyIndex ouHierarchyIndex(final LdapTemplate template, final EzLdapConfigurationProperties props) {
+        log.info("Enabling ou hierarchy index with refresh-interval={}.", props.getOuIndex().getRefreshInterval());
+        return new OuHierarchyIndex(template, new LdapOuAttributesMapper(), props.getLdap().getOuSearchBase(),
+                props.getOuIndex().getRefreshInterval());
     }
 
     @Bean
-    LdapService ldapService(final LdapTemplate template, final EzLdapConfigurationProperties props) {
+    @ConditionalOnProperty(name = "ezldap.ldap.circuit-breaker.enabled", havingValue = "true")
+    CircuitBreakerRegistry ldapCircuitBreakerRegistry(final EzLdapConfigurationProperties props) {
+        final EzLdapLdapCircuitBreakerProperties circuitBreaker = props.getLdap().getCircuitBreaker();
+        log.info("Enabling LDAP circuit breakers with failure-rate-threshold={}%, slow-call-duration-threshold={}.",
+                circuitBreaker.getFailureRateThreshold(), circuitBreaker.getSlowCallDurationThreshold());
+        return CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(circuitBreaker.getFailureRateThreshold())
+                .slowCallRateThreshold(circuitBreaker.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(circuitBreaker.getSlowCallDurationThreshold())
+                .waitDurationInOpenState(circuitBreaker.getWaitDurationInOpenState())
+                .slidingWindowSize(circuitBreaker.getSlidingWindowSize())
+                .minimumNumberOfCalls(circuitBreaker.getMinimumNumberOfCalls())
+                .permittedNumberOfCallsInHalfOpenState(circuitBreaker.getPermittedNumberOfCallsInHalfOpenState())
+                // only an unavailable LDAP counts as failure, not e.g. an unknown dn
+                .recordException(LdapFailures::isUnavailable)
+                .build());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "ezldap.ldap.hedging.enabled", havingValue = "true")
+    LdapRequestHedger ldapRequestHedger(final EzLdapConfigurationProperties props, final Environment environment) {
+        final EzLdapLdapHedgingProperties hedging = props.getLdap().getHedging();
+        log.info("Enabling LDAP request hedging with percentile={}, min-delay={}.", hedging.getPercentile(), hedging.getMinDelay());
+        return new LdapRequestHedger(hedging.getPercentile(), hedging.getMinDelay(), hedging.getThreads(),
+                LdapThreads.factory("ezldap-hedger-", Threading.VIRTUAL.isActive(environment)));
+    }
+
+    @Bean
+    LdapService ldapService(final LdapTemplate template, final EzLdapConfigurationProperties props,
+            final ObjectProvider<OuHierarchyIndex> ouHierarchyIndex,
+            final ObjectProvider<CircuitBreakerRegistry> circuitBreakerRegistry,
+            final ObjectProvider<LdapRequestHedger> requestHedger, final ObjectProvider<ObservationRegistry> observationRegistry) {
         final LdapBaseUserAttributesMapper ldapBaseUserAttributesMapper = new LdapBaseUserAttributesMapper();
         final LdapOuAttributesMapper ldapOuAttributesMapper = new LdapOuAttributesMapper();
         final LdapUserAttributesMapper ldapUserAttributesMapper = new LdapUserAttributesMapper(ldapBaseUserAttributesMapper);
-        return new LdapService(template, ldapUserAttributesMapper, ldapBaseUserAttributesMapper, ldapOuAttributesMapper,
-                new DtoMapperImpl(), props.getLdap().getUserSearchBase(), props.getLdap().getOuSearchBase());
+        final LdapService ldapService = new LdapService(template, ldapUserAttributesMapper, ldapBaseUserAttributesMapper,
+                ldapOuAttributesMapper, new DtoMapperImpl(), props.getLdap().getUserSearchBase(), props.getLdap().getOuSearchBase());
+        ldapService.setPageSize(props.getLdap().getPageSize());
+        props.getLdap().getTimeLimits().forEach(ldapService::setTimeLimit);
+        props.getLdap().getCountLimits().forEach(ldapService::setCountLimit);
+        ldapService.setOuHierarchyIndex(ouHierarchyIndex.getIfAvailable());
+        ldapService.setCircuitBreakerRegistry(circuitBreakerRegistry.getIfAvailable());
+        ldapService.setRequestHedger(requestHedger.getIfAvailable());
+        ldapService.setObservationRegistry(observationRegistry.getIfUnique());
+        if (props.getLdap().getSlowQueryLog().isEnabled()) {
+            log.info("Logging LDAP searches slower than {}.", props.getLdap().getSlowQueryLog().getThreshold());
+            ldapService.setSlowQueryThreshold(props.getLdap().getSlowQueryLog().getThreshold());
+        }
+        return ldapService;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "ezldap.coalescing.enabled", havingValue = "true")
+    LdapRequestCoalescer ldapRequestCoalescer(final LdapService ldapService, final EzLdapConfigurationProperties props,
+            final Environment environment) {
+        final EzLdapCoalescingProperties coalescing = props.getCoalescing();
+        log.info("Enabling request coalescing with window={}, max-batch-size={}.", coalescing.getWindow(), coalescing.getMaxBatchSize());
+        return new LdapRequestCoalescer(ldapService, coalescing.getWindow(), coalescing.getMaxBatchSize(), coalescing.getThreads(),
+                LdapThreads.factory("ezldap-coalescer-", Threading.VIRTUAL.isActive(environment)));
     }
 
     @Bean
-    LdapServiceAdapter ldapServiceAdapter(final LdapService ldapService) {
-        return new LdapServiceAdapter(ldapService);
+    LdapServiceAdapter ldapServiceAdapter(final LdapService ldapService, final ObjectProvider<CacheManager> cacheManager,
+            final ObjectProvider<LdapRequestCoalescer> ldapRequestCoalescer,
+            final ObjectProvider<ObservationRegistry> observationRegistry) {
+        final LdapServiceAdapter ldapServiceAdapter = new LdapServiceAdapter(ldapService);
+        ldapServiceAdapter.setCacheManager(cacheManager.getIfUnique());
+        ldapServiceAdapter.setObservationRegistry(observationRegistry.getIfUnique());
+        ldapServiceAdapter.setRequestCoalescer(ldapRequestCoalescer.getIfAvailable());
+        return ldapServiceAdapter;
+    }
+
+    private static List<String> serverUrls(final EzLdapLdapConnectionProperties ldap) {
+        final List<String> urls = new ArrayList<>();
+        urls.add(ldap.getUrl());
+        ldap.getUrls().stream().filter(url -> !urls.contains(url)).forEach(urls::add);
+        return urls;
+    }
+
+    private static PoolConfig poolConfig(final EzLdapLdapPoolProperties pool) {
+        final PoolConfig poolConfig = new PoolConfig();
+        poolConfig.setMaxTotal(pool.getMaxTotal());
+        // searches only use read-only connections, so the per-key limit is the effective one
+        poolConfig.setMaxTotalPerKey(pool.getMaxTotal());
+        poolConfig.setMaxIdlePerKey(pool.getMaxIdle());
+        poolConfig.setMinIdlePerKey(pool.getMinIdle());
+        poolConfig.setMaxWaitMillis(pool.getMaxWait().toMillis());
+        poolConfig.setTestOnBorrow(pool.isTestOnBorrow());
+        poolConfig.setTestWhileIdle(pool.isTestWhileIdle());
+        poolConfig.setTimeBetweenEvictionRunsMillis(pool.getTimeBetweenEvictionRuns().toMillis());
+        poolConfig.setMinEvictableIdleTimeMillis(pool.getMinEvictableIdleTime().toMillis());
+        poolConfig.setNumTestsPerEvictionRun(pool.getNumTestsPerEvictionRun());
+        return poolConfig;
     }
 
 }
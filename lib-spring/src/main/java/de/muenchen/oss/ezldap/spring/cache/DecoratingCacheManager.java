@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.cache;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * {@link CacheManager}, der die Caches eines anderen {@link CacheManager} dekoriert. Je Cache wird
+ * genau eine dekorierte Instanz erzeugt.
+ *
+ * @author michael.prankl
+ */
+public class DecoratingCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final CacheDecorator decorator;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param delegate der {@link CacheManager} mit den eigentlichen Caches
+     * @param decorator dekoriert einen Cache
+     */
+    public DecoratingCacheManager(final CacheManager delegate, final CacheDecorator decorator) {
+        this.delegate = delegate;
+        this.decorator = decorator;
+    }
+
+    @Override
+    public Cache getCache(final String name) {
+        final Cache cache = this.caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        final Cache target = this.delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return this.caches.computeIfAbsent(name, n -> this.decorator.decorate(n, target));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return this.delegate.getCacheNames();
+    }
+
+    /**
+     * Dekoriert einen Cache.
+     */
+    @FunctionalInterface
+    public interface CacheDecorator {
+
+        /**
+         * @param name Alias des Caches
+         * @param cache der Cache
+         * @return der dekorierte Cache
+         */
+        Cache decorate(String name, Cache cache);
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.cache;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Basis für {@link Cache}-Decorators, delegiert alle Operationen an den dekorierten Cache.
+ * <p>
+ * {@link #get(Object, Callable)} (verwendet von <code>@Cacheable(sync = true)</code>) lädt bei
+ * einem Cache-Miss ohne Synchronisation und legt den Wert im Cache ab, entspricht also dem
+ * Verhalten von <code>@Cacheable</code> ohne <code>sync</code>. Das Sperren je Schlüssel des
+ * dekorierten Caches (bei JCache über <code>Cache#invoke</code>) wird dabei nicht verwendet,
+ * gleichzeitige Cache-Misses desselben Schlüssels laden also parallel. Nur der
+ * {@link SingleFlightCache} lädt sie einmal.
+ *
+ * @author michael.prankl
+ */
+public class ForwardingCache implements Cache {
+
+    private final Cache delegate;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param delegate der dekorierte Cache
+     */
+    public ForwardingCache(final Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    protected Cache getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public String getName() {
+        return this.delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this.delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(final Object key) {
+        return this.delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(final Object key, final Class<T> type) {
+        return this.delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(final Object key, final Callable<T> valueLoader) {
+        final ValueWrapper cached = this.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        return this.load(key, valueLoader);
+    }
+
+    /**
+     * Lädt den Wert über den valueLoader und legt ihn im Cache ab.
+     *
+     * @param key der Schlüssel
+     * @param valueLoader der Loader
+     * @param <T> Typ des Werts
+     * @return der geladene Wert
+     * @throws ValueRetrievalException wenn der valueLoader fehlschlägt
+     */
+    protected <T> T load(final Object key, final Callable<T> valueLoader) {
+        final T value;
+        try {
+            value = valueLoader.call();
+        } catch (final Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        this.put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(final Object key, final Object value) {
+        this.delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(final Object key, final Object value) {
+        return this.delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(final Object key) {
+        this.delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(final Object key) {
+        return this.delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        this.delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return this.delegate.invalidate();
+    }
+
+}
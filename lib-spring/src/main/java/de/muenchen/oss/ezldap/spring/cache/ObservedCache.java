@@ -0,0 +1,67 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.cache;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * {@link Cache}-Decorator, der Lookups über {@link #get(Object, Callable)} (verwendet von
+ * <code>@Cacheable(sync = true)</code>) als Observation <code>ezldap.cache.lookup</code> erfasst
+ * (Tags <code>cache</code> und <code>result</code> hit/miss). Bei einem Miss liegen die
+ * LDAP-Suchen des Ladevorgangs damit unterhalb des Cache-Lookups.
+ *
+ * @author michael.prankl
+ */
+public class ObservedCache extends ForwardingCache {
+
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param delegate der dekorierte Cache
+     * @param observationRegistry die {@link ObservationRegistry}
+     */
+    public ObservedCache(final Cache delegate, final ObservationRegistry observationRegistry) {
+        super(delegate);
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public <T> T get(final Object key, final Callable<T> valueLoader) {
+        final Observation observation = Observation.createNotStarted("ezldap.cache.lookup", this.observationRegistry)
+                .contextualName("cache lookup " + this.getName())
+                .lowCardinalityKeyValue("cache", this.getName())
+                .lowCardinalityKeyValue("result", "hit");
+        return observation.observe(() -> this.getDelegate().get(key, () -> {
+            observation.lowCardinalityKeyValue("result", "miss");
+            return valueLoader.call();
+        }));
+    }
+
+}
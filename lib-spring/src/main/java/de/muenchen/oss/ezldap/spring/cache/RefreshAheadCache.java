@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.cache;
+
+import java.io.Serializable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link Cache}-Decorator, der Einträge vor Ablauf ihrer TTL im Hintergrund neu lädt
+ * (Refresh-Ahead). Ist ein Eintrag älter als <code>refreshAfter</code>, wird beim nächsten Zugriff
+ * über {@link #get(Object, Callable)} der gecachte Wert sofort zurückgegeben und ein asynchrones
+ * Neuladen angestoßen. Bis das Neuladen abgeschlossen ist, wird weiterhin der bisherige Wert
+ * ausgeliefert.
+ * <p>
+ * Die Werte werden zusammen mit ihrem Ladezeitpunkt im dekorierten Cache abgelegt, alle Zugriffe
+ * auf den Cache müssen deshalb über diesen Decorator erfolgen.
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+public class RefreshAheadCache extends ForwardingCache {
+
+    private final Duration refreshAfter;
+    private final Executor executor;
+    private final Clock clock;
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param delegate der dekorierte Cache
+     * @param refreshAfter Alter, ab dem ein Eintrag beim nächsten Zugriff neu geladen wird
+     * @param executor führt das Neuladen aus
+     */
+    public RefreshAheadCache(final Cache delegate, final Duration refreshAfter, final Executor executor) {
+        this(delegate, refreshAfter, executor, Clock.systemUTC());
+    }
+
+    RefreshAheadCache(final Cache delegate, final Duration refreshAfter, final Executor executor, final Clock clock) {
+        super(delegate);
+        this.refreshAfter = refreshAfter;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    @Override
+    public ValueWrapper get(final Object key) {
+        final ValueWrapper stored = super.get(key);
+        return stored != null ? new SimpleValueWrapper(unwrap(stored.get())) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(final Object key, final Class<T> type) {
+        final ValueWrapper wrapper = this.get(key);
+        final Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(final Object key, final Callable<T> valueLoader) {
+        final ValueWrapper stored = super.get(key);
+        if (stored != null) {
+            final long loadedAt = stored.get() instanceof TimestampedValue timestamped ? timestamped.loadedAt() : 0L;
+            if (this.clock.millis() - loadedAt >= this.refreshAfter.toMillis()) {
+                this.refreshAsync(key, valueLoader);
+            }
+            return (T) unwrap(stored.get());
+        }
+        // miss: load through the decorated cache (e.g. single-flight), storing the timestamped value
+        return (T) unwrap(this.getDelegate().get(key, () -> this.timestamped(valueLoader.call())));
+    }
+
+    private void refreshAsync(final Object key, final Callable<?> valueLoader) {
+        if (!this.refreshing.add(key)) {
+            return;
+        }
+        try {
+            this.executor.execute(() -> {
+                try {
+                    log.debug("Refreshing key '{}' of cache '{}' ahead of expiry.", key, this.getName());
+                    this.put(key, valueLoader.call());
+                } catch (final Exception e) {
+                    log.warn("Refreshing key '{}' of cache '{}' failed, keeping cached value.", key, this.getName(), e);
+                } finally {
+                    this.refreshing.remove(key);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            this.refreshing.remove(key);
+            log.debug("Refresh of key '{}' of cache '{}' rejected, keeping cached value.", key, this.getName());
+        }
+    }
+
+    @Override
+    public void put(final Object key, final Object value) {
+        super.put(key, this.timestamped(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(final Object key, final Object value) {
+        final ValueWrapper existing = super.putIfAbsent(key, this.timestamped(value));
+        return existing != null ? new SimpleValueWrapper(unwrap(existing.get())) : null;
+    }
+
+    private TimestampedValue timestamped(final Object value) {
+        return new TimestampedValue(value, this.clock.millis());
+    }
+
+    private static Object unwrap(final Object stored) {
+        // entries written before refresh-ahead was enabled are stored without timestamp
+        return stored instanceof TimestampedValue timestamped ? timestamped.value() : stored;
+    }
+
+    /**
+     * Gecachter Wert mit Ladezeitpunkt.
+     *
+     * @param value der Wert, kann <code>null</code> sein
+     * @param loadedAt Ladezeitpunkt in Millisekunden seit Epoch
+     */
+    record TimestampedValue(Object value, long loadedAt) implements Serializable {
+    }
+
+}
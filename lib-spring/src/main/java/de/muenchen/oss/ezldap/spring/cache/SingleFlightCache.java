@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.cache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.cache.Cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link Cache}-Decorator, der gleichzeitige Cache-Misses desselben Schlüssels nur einmal lädt
+ * (Single-Flight). Alle weiteren Aufrufer warten auf das Ergebnis des ersten Aufrufers, höchstens
+ * jedoch bis zum Timeout, danach laden sie selbst.
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+public class SingleFlightCache extends ForwardingCache {
+
+    private final Duration timeout;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param delegate der dekorierte Cache
+     * @param timeout maximale Wartezeit auf einen laufenden Ladevorgang
+     */
+    public SingleFlightCache(final Cache delegate, final Duration timeout) {
+        super(delegate);
+        this.timeout = timeout;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <T> T load(final Object key, final Callable<T> valueLoader) {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final CompletableFuture<Object> running = this.inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            return (T) this.await(key, running, valueLoader);
+        }
+        try {
+            // another caller may have completed loading between the cache lookup and putIfAbsent
+            final ValueWrapper cached = this.get(key);
+            final T value = cached != null ? (T) cached.get() : super.load(key, valueLoader);
+            future.complete(value);
+            return value;
+        } catch (final RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, future);
+        }
+    }
+
+    private Object await(final Object key, final CompletableFuture<Object> running, final Callable<?> valueLoader) {
+        try {
+            return running.get(this.timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            log.warn("Waiting for loading key '{}' of cache '{}' timed out after {}, loading again.", key, this.getName(), this.timeout);
+            return super.load(key, valueLoader);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.cache;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import de.muenchen.oss.ezldap.core.LdapFailures;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link Cache}-Decorator, der jeden Wert zusätzlich in einem langlebigen Fallback-Cache ablegt.
+ * Schlägt das Laden eines Werts fehl, weil das LDAP nicht verfügbar ist (siehe
+ * {@link LdapFailures#isUnavailable(Throwable)}), wird der letzte bekannte Wert aus dem
+ * Fallback-Cache geliefert und die Antwort des aktuellen Requests als veraltet markiert (siehe {@link #isStaleResponse()}).
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+public class StaleFallbackCache extends ForwardingCache {
+
+    /**
+     * Request-Attribut, das gesetzt wird, wenn ein veralteter Wert ausgeliefert wurde.
+     */
+    public static final String STALE_RESPONSE_ATTRIBUTE = StaleFallbackCache.class.getName() + ".STALE";
+
+    private final Cache fallback;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param delegate der dekorierte Cache
+     * @param fallback der langlebige Fallback-Cache
+     */
+    public StaleFallbackCache(final Cache delegate, final Cache fallback) {
+        super(delegate);
+        this.fallback = fallback;
+    }
+
+    @Override
+    public <T> T get(final Object key, final Callable<T> valueLoader) {
+        try {
+            // der Delegate legt geladene Werte über sein eigenes put ab, daher hier in den Fallback schreiben
+            return this.getDelegate().get(key, () -> {
+                final T value = valueLoader.call();
+                this.fallback.put(key, value);
+                return value;
+            });
+        } catch (final RuntimeException e) {
+            if (!LdapFailures.isUnavailable(e)) {
+                throw e;
+            }
+            final ValueWrapper lastKnown = this.fallback.get(key);
+            if (lastKnown == null) {
+                throw e;
+            }
+            log.warn("LDAP unavailable ({}), serving last known value for key '{}' of cache '{}'.", e.getMessage(), key, this.getName());
+            markStaleResponse();
+            @SuppressWarnings("unchecked")
+            final T value = (T) lastKnown.get();
+            return value;
+        }
+    }
+
+    @Override
+    public void put(final Object key, final Object value) {
+        super.put(key, value);
+        this.fallback.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(final Object key, final Object value) {
+        final ValueWrapper existing = super.putIfAbsent(key, value);
+        if (existing == null) {
+            this.fallback.put(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(final Object key) {
+        super.evict(key);
+        this.fallback.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(final Object key) {
+        this.fallback.evict(key);
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.fallback.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        this.fallback.invalidate();
+        return super.invalidate();
+    }
+
+    /**
+     * @return <code>true</code>, wenn im aktuellen Request ein veralteter Wert ausgeliefert wurde
+     */
+    public static boolean isStaleResponse() {
+        final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        return requestAttributes != null
+                && Boolean.TRUE.equals(requestAttributes.getAttribute(STALE_RESPONSE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    private static void markStaleResponse() {
+        final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(STALE_RESPONSE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+}
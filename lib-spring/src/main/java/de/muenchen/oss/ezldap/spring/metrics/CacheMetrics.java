@@ -0,0 +1,223 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.ehcache.Status;
+import org.ehcache.core.EhcacheManager;
+import org.ehcache.core.internal.statistics.DefaultStatisticsService;
+import org.ehcache.core.spi.service.CacheManagerProviderService;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.core.spi.store.InternalCacheManager;
+import org.ehcache.core.statistics.CacheStatistics;
+import org.ehcache.core.statistics.TierStatistics;
+import org.ehcache.spi.service.Service;
+import org.ehcache.spi.service.ServiceProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stellt die JCache-Statistiken (siehe <code>enable-statistics</code> in ezldap-ehcache.xml) aller
+ * ezLDAP-Caches als Micrometer-Metriken bereit.
+ * <p>
+ * Spring Boot bindet nur Caches vom Typ <code>JCacheCache</code> selbst, die dekorierten ezLDAP-Caches
+ * werden daher hier über ihren nativen JCache gebunden. Neben Treffern, Fehlzugriffen, Puts,
+ * Evictions und Removals werden die mittleren Get- und Put-Zeiten aus der
+ * <code>CacheStatisticsMXBean</code> gemeldet.
+ * <p>
+ * JCache kennt keine Größe eines Caches. Für Ehcache-Caches werden daher zusätzlich Anzahl und
+ * belegte Bytes je Tier (<code>OnHeap</code>, <code>Disk</code>) aus den Tier-Statistiken von
+ * Ehcache gemeldet.
+ *
+ * @author michael.prankl
+ */
+@Slf4j
+public class CacheMetrics implements MeterBinder {
+
+    private final CacheManager cacheManager;
+    private final String cacheManagerName;
+    private final Map<javax.cache.CacheManager, StatisticsService> statisticsServices = new IdentityHashMap<>();
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param cacheManager der {@link CacheManager} mit den ezLDAP-Caches
+     * @param cacheManagerName Wert des Tags <code>cache.manager</code>
+     */
+    public CacheMetrics(final CacheManager cacheManager, final String cacheManagerName) {
+        this.cacheManager = cacheManager;
+        this.cacheManagerName = cacheManagerName;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        for (final String name : this.cacheManager.getCacheNames()) {
+            final Cache cache = this.cacheManager.getCache(name);
+            if (cache == null || !(cache.getNativeCache() instanceof javax.cache.Cache<?, ?> nativeCache)) {
+                log.debug("Cache '{}' is not a JCache, no metrics bound.", name);
+                continue;
+            }
+            final Tags tags = Tags.of("cache", name, "cache.manager", this.cacheManagerName);
+            new JCacheMetrics<>(nativeCache, Tags.of("cache.manager", this.cacheManagerName)).bindTo(registry);
+            final ObjectName statistics = statisticsName(nativeCache);
+            TimeGauge.builder("cache.gets.latency", statistics, TimeUnit.MICROSECONDS, s -> attribute(s, "AverageGetTime"))
+                    .tags(tags)
+                    .description("Mittlere Dauer eines Cache-Zugriffs")
+                    .register(registry);
+            TimeGauge.builder("cache.puts.latency", statistics, TimeUnit.MICROSECONDS, s -> attribute(s, "AveragePutTime"))
+                    .tags(tags)
+                    .description("Mittlere Dauer eines Cache-Puts")
+                    .register(registry);
+            this.bindTierStatistics(registry, nativeCache, tags);
+        }
+    }
+
+    private void bindTierStatistics(final MeterRegistry registry, final javax.cache.Cache<?, ?> cache, final Tags tags) {
+        final StatisticsService statisticsService = this.statisticsServices.computeIfAbsent(cache.getCacheManager(),
+                CacheMetrics::startStatisticsService);
+        if (statisticsService == null) {
+            return;
+        }
+        final CacheStatistics statistics;
+        try {
+            statistics = statisticsService.getCacheStatistics(cache.getName());
+        } catch (final IllegalArgumentException e) {
+            log.debug("No tier statistics for cache '{}'.", cache.getName());
+            return;
+        }
+        for (final Map.Entry<String, TierStatistics> tier : statistics.getTierStatistics().entrySet()) {
+            final Tags tierTags = tags.and("tier", tier.getKey());
+            Gauge.builder("cache.tier.entries", tier.getValue(), TierStatistics::getMappings)
+                    .tags(tierTags)
+                    .description("Anzahl der Einträge im Tier")
+                    .register(registry);
+            Gauge.builder("cache.tier.size", tier.getValue(), CacheMetrics::occupiedBytes)
+                    .tags(tierTags)
+                    .baseUnit(BaseUnits.BYTES)
+                    .description("Vom Tier belegte Bytes, nicht bekannt für nach Einträgen begrenzte Heap-Tiers")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Der {@link StatisticsService} des Ehcache-CacheManagers ist über JCache nicht erreichbar. Ein
+     * eigener Service liest dieselben Tier-Statistiken der Caches.
+     *
+     * @return der gestartete {@link StatisticsService}, <code>null</code> für andere
+     *         JCache-Implementierungen
+     */
+    private static StatisticsService startStatisticsService(final javax.cache.CacheManager jCacheManager) {
+        final EhcacheManager ehcacheManager;
+        try {
+            ehcacheManager = jCacheManager.unwrap(EhcacheManager.class);
+        } catch (final IllegalArgumentException e) {
+            log.debug("Cache manager {} is not an Ehcache, no tier statistics bound.", jCacheManager.getURI());
+            return null;
+        }
+        final CacheManagerProviderService cacheManagerProvider = new CacheManagerProviderService() {
+
+            @Override
+            public InternalCacheManager getCacheManager() {
+                return ehcacheManager;
+            }
+
+            @Override
+            public void start(final ServiceProvider<Service> serviceProvider) {
+            }
+
+            @Override
+            public void stop() {
+            }
+
+        };
+        final DefaultStatisticsService statisticsService = new DefaultStatisticsService();
+        statisticsService.start(new ServiceProvider<>() {
+
+            @Override
+            public <U extends Service> U getService(final Class<U> serviceType) {
+                return serviceType.isInstance(cacheManagerProvider) ? serviceType.cast(cacheManagerProvider) : null;
+            }
+
+            @Override
+            public <U extends Service> Collection<U> getServicesOfType(final Class<U> serviceType) {
+                return serviceType.isInstance(cacheManagerProvider) ? List.of(serviceType.cast(cacheManagerProvider)) : List.of();
+            }
+
+        });
+        // registriert die vorhandenen Caches, später angelegte über den CacheManagerListener
+        statisticsService.stateTransition(Status.UNINITIALIZED, Status.AVAILABLE);
+        return statisticsService;
+    }
+
+    private static double occupiedBytes(final TierStatistics tier) {
+        final long bytes = tier.getOccupiedByteSize();
+        return bytes < 0 ? Double.NaN : bytes;
+    }
+
+    /**
+     * Name der <code>CacheStatisticsMXBean</code> gemäß JSR-107.
+     */
+    private static ObjectName statisticsName(final javax.cache.Cache<?, ?> cache) {
+        try {
+            return new ObjectName("javax.cache:type=CacheStatistics"
+                    + ",CacheManager=" + sanitize(cache.getCacheManager().getURI().toString())
+                    + ",Cache=" + sanitize(cache.getName()));
+        } catch (final JMException e) {
+            throw new IllegalStateException("Invalid statistics name for cache " + cache.getName(), e);
+        }
+    }
+
+    private static String sanitize(final String value) {
+        return value.replaceAll("[,:=\n]", ".");
+    }
+
+    private static double attribute(final ObjectName name, final String attribute) {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            return ((Number) server.getAttribute(name, attribute)).doubleValue();
+        } catch (final JMException e) {
+            // statistics disabled or cache closed
+            return Double.NaN;
+        }
+    }
+
+}
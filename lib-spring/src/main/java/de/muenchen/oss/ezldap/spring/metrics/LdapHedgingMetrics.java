@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.metrics;
+
+import de.muenchen.oss.ezldap.core.LdapRequestHedger;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Stellt die Anzahl gehedgter und mangels freier Threads nicht gehedgter Suchen als
+ * Micrometer-Metriken bereit.
+ *
+ * @author michael.prankl
+ */
+public class LdapHedgingMetrics implements MeterBinder {
+
+    private final LdapRequestHedger ldapRequestHedger;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param ldapRequestHedger der {@link LdapRequestHedger}
+     */
+    public LdapHedgingMetrics(final LdapRequestHedger ldapRequestHedger) {
+        this.ldapRequestHedger = ldapRequestHedger;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("ezldap.ldap.hedging.hedged", this.ldapRequestHedger, LdapRequestHedger::getHedgedRequests)
+                .description("Anzahl der Suchen, die ein zweites Mal verschickt wurden")
+                .register(registry);
+        FunctionCounter.builder("ezldap.ldap.hedging.rejected", this.ldapRequestHedger, LdapRequestHedger::getUnhedgedRequests)
+                .description("Anzahl der Suchen, die ohne Hedging ausgeführt wurden, weil alle Threads belegt waren")
+                .register(registry);
+    }
+
+}
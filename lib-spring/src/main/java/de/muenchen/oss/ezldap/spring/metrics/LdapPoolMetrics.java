@@ -0,0 +1,76 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.metrics;
+
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Stellt die Auslastung des LDAP Connection-Pools als Micrometer-Metriken bereit.
+ *
+ * @author michael.prankl
+ */
+public class LdapPoolMetrics implements MeterBinder {
+
+    private final PooledContextSource pooledContextSource;
+    private final Tags tags;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param pooledContextSource der Connection-Pool
+     */
+    public LdapPoolMetrics(final PooledContextSource pooledContextSource) {
+        this(pooledContextSource, Tags.empty());
+    }
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param pooledContextSource der Connection-Pool
+     * @param tags zusätzliche Tags, z.B. die URL des Servers bei Load Balancing
+     */
+    public LdapPoolMetrics(final PooledContextSource pooledContextSource, final Tags tags) {
+        this.pooledContextSource = pooledContextSource;
+        this.tags = tags;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder("ezldap.ldap.pool.connections", this.pooledContextSource, PooledContextSource::getNumActive)
+                .tags(this.tags)
+                .tag("state", "active")
+                .description("Anzahl ausgeliehener LDAP-Verbindungen")
+                .register(registry);
+        Gauge.builder("ezldap.ldap.pool.connections", this.pooledContextSource, PooledContextSource::getNumIdle)
+                .tags(this.tags)
+                .tag("state", "idle")
+                .description("Anzahl ungenutzter LDAP-Verbindungen im Pool")
+                .register(registry);
+    }
+
+}
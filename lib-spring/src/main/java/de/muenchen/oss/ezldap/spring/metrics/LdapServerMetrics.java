@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.metrics;
+
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+
+import de.muenchen.oss.ezldap.core.LoadBalancingContextSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Stellt Verfügbarkeit, offene Anfragen und Antwortzeit je LDAP-Server als Micrometer-Metriken
+ * bereit, bei aktivem Pooling zusätzlich die Auslastung des Connection-Pools je Server (siehe
+ * {@link LdapPoolMetrics}).
+ *
+ * @author michael.prankl
+ */
+public class LdapServerMetrics implements MeterBinder {
+
+    private final LoadBalancingContextSource loadBalancingContextSource;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param loadBalancingContextSource die {@link LoadBalancingContextSource}
+     */
+    public LdapServerMetrics(final LoadBalancingContextSource loadBalancingContextSource) {
+        this.loadBalancingContextSource = loadBalancingContextSource;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        for (final LoadBalancingContextSource.Server server : this.loadBalancingContextSource.getServers()) {
+            Gauge.builder("ezldap.ldap.server.healthy", server, s -> s.isHealthy() ? 1 : 0)
+                    .tag("url", server.getUrl())
+                    .description("1, wenn der LDAP-Server verfügbar ist, sonst 0")
+                    .register(registry);
+            Gauge.builder("ezldap.ldap.server.outstanding", server, LoadBalancingContextSource.Server::getOutstanding)
+                    .tag("url", server.getUrl())
+                    .description("Anzahl offener Anfragen an den LDAP-Server")
+                    .register(registry);
+            Gauge.builder("ezldap.ldap.server.latency", server, LoadBalancingContextSource.Server::getLatencyEwmaMillis)
+                    .tag("url", server.getUrl())
+                    .description("Gleitend gemittelte Antwortzeit des LDAP-Servers")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            if (server.getContextSource() instanceof PooledContextSource pooledContextSource) {
+                new LdapPoolMetrics(pooledContextSource, Tags.of("url", server.getUrl())).bindTo(registry);
+            }
+        }
+    }
+
+}
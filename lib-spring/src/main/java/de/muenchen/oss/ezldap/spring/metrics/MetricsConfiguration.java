@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.metrics;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+
+import de.muenchen.oss.ezldap.core.LdapRequestHedger;
+import de.muenchen.oss.ezldap.core.LdapService;
+import de.muenchen.oss.ezldap.core.LoadBalancingContextSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Micrometer-Metriken für ezLDAP, aktiv sobald Micrometer im Classpath liegt (z.B. über Spring Boot
+ * Actuator).
+ *
+ * @author michael.prankl
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+public class MetricsConfiguration {
+
+    @Bean
+    // wired here rather than in LdapConfiguration, so ezLDAP runs without micrometer-core
+    MeterBinder ldapServiceMetrics(final LdapService ldapService) {
+        return ldapService::setMeterRegistry;
+    }
+
+    @Bean
+    // with load balancing, the pool of each server is bound by LdapServerMetrics
+    @ConditionalOnExpression("${ezldap.ldap.pool.enabled:false} and !${ezldap.ldap.load-balancing.enabled:false}")
+    LdapPoolMetrics ldapPoolMetrics(final PooledContextSource pooledContextSource) {
+        return new LdapPoolMetrics(pooledContextSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "ezldap.ldap.load-balancing.enabled", havingValue = "true")
+    LdapServerMetrics ldapServerMetrics(final LoadBalancingContextSource loadBalancingContextSource) {
+        return new LdapServerMetrics(loadBalancingContextSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "ezldap.ldap.hedging.enabled", havingValue = "true")
+    LdapHedgingMetrics ldapHedgingMetrics(final LdapRequestHedger ldapRequestHedger) {
+        return new LdapHedgingMetrics(ldapRequestHedger);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "ezldap.cache.enabled", havingValue = "true")
+    CacheMetrics cacheMetrics(@Qualifier("cacheManager") final CacheManager cacheManager) {
+        // same cache.manager tag as Spring Boot uses for the undecorated fallback caches it binds itself
+        return new CacheMetrics(cacheManager, "cacheManager");
+    }
+
+}
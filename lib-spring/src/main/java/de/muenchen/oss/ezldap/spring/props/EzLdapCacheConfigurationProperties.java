@@ -22,6 +22,8 @@
  */
 package de.muenchen.oss.ezldap.spring.props;
 
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+
 import lombok.Data;
 
 /**
@@ -38,4 +40,13 @@ public class EzLdapCacheConfigurationProperties {
 
     private EzLdapCacheDiskConfigurationProperties disk;
 
+    @NestedConfigurationProperty
+    private EzLdapCacheSingleFlightProperties singleFlight = new EzLdapCacheSingleFlightProperties();
+
+    @NestedConfigurationProperty
+    private EzLdapCacheRefreshAheadProperties refreshAhead = new EzLdapCacheRefreshAheadProperties();
+
+    @NestedConfigurationProperty
+    private EzLdapCacheStaleFallbackProperties staleFallback = new EzLdapCacheStaleFallbackProperties();
+
 }
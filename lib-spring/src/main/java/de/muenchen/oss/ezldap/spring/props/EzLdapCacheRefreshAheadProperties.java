@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.props;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import lombok.Data;
+
+/**
+ * @author michael.prankl
+ *
+ */
+@Data
+public class EzLdapCacheRefreshAheadProperties {
+
+    /**
+     * Lädt Cache-Einträge vor Ablauf ihrer TTL im Hintergrund neu.
+     */
+    private boolean enabled = false;
+    /**
+     * Anteil der TTL (aus ezldap-ehcache.xml), ab dem ein Eintrag beim nächsten Zugriff im
+     * Hintergrund neu geladen wird. Bis dahin und bis zum Ablauf der TTL wird der gecachte Wert
+     * ausgeliefert.
+     */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double refreshAfterRatio = 0.75;
+    /**
+     * Aliases der Caches mit Refresh-Ahead, leer für alle Caches.
+     */
+    private List<String> caches = new ArrayList<>();
+    /**
+     * Anzahl Threads für das Neuladen.
+     */
+    private int threads = 2;
+
+    /**
+     * @param cacheName Alias des Caches
+     * @return <code>true</code>, wenn für den Cache Refresh-Ahead aktiv ist
+     */
+    public boolean isEnabledFor(final String cacheName) {
+        return this.enabled && (this.caches.isEmpty() || this.caches.contains(cacheName));
+    }
+
+}
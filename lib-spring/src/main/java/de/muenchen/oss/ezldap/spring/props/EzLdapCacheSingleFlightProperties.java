@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.props;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * @author michael.prankl
+ *
+ */
+@Data
+public class EzLdapCacheSingleFlightProperties {
+
+    /**
+     * Lädt gleichzeitige Cache-Misses desselben Schlüssels nur einmal aus dem LDAP.
+     */
+    private boolean enabled = true;
+    /**
+     * Aliases der Caches mit Single-Flight, leer für alle Caches.
+     */
+    private List<String> caches = new ArrayList<>();
+    /**
+     * Maximale Wartezeit auf einen laufenden Ladevorgang, danach wird selbst geladen.
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * @param cacheName Alias des Caches
+     * @return <code>true</code>, wenn für den Cache Single-Flight aktiv ist
+     */
+    public boolean isEnabledFor(final String cacheName) {
+        return this.enabled && (this.caches.isEmpty() || this.caches.contains(cacheName));
+    }
+
+}
@@ -48,6 +48,15 @@ public class EzLdapConfigurationProperties {
     @NestedConfigurationProperty
     private EzLdapCacheConfigurationProperties cache;
 
+    @NestedConfigurationProperty
+    private EzLdapOuIndexProperties ouIndex = new EzLdapOuIndexProperties();
+
+    @NestedConfigurationProperty
+    private EzLdapCoalescingProperties coalescing = new EzLdapCoalescingProperties();
+
+    @NestedConfigurationProperty
+    private EzLdapDeadlineProperties deadline = new EzLdapDeadlineProperties();
+
     /**
      * ezLDAP API path prefix, default "".
      */
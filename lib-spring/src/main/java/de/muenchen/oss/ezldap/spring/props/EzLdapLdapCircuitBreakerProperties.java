@@ -0,0 +1,70 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.props;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * @author michael.prankl
+ *
+ */
+@Data
+public class EzLdapLdapCircuitBreakerProperties {
+
+    /**
+     * Aktiviert einen Circuit Breaker je Art der LDAP-Suche (Personen, OUs, OU-Bäume, ...).
+     */
+    private boolean enabled = false;
+    /**
+     * Fehlerrate in Prozent, ab der der Circuit Breaker öffnet. Als Fehler zählen nur
+     * Verbindungsfehler und Timeouts, nicht z.B. unbekannte DNs.
+     */
+    private float failureRateThreshold = 50;
+    /**
+     * Rate langsamer Aufrufe in Prozent, ab der der Circuit Breaker öffnet.
+     */
+    private float slowCallRateThreshold = 80;
+    /**
+     * Dauer, ab der ein Aufruf als langsam gilt.
+     */
+    private Duration slowCallDurationThreshold = Duration.ofSeconds(2);
+    /**
+     * Dauer, die der Circuit Breaker offen bleibt, bevor Probe-Aufrufe zugelassen werden.
+     */
+    private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+    /**
+     * Anzahl der letzten Aufrufe, aus denen die Raten berechnet werden.
+     */
+    private int slidingWindowSize = 50;
+    /**
+     * Mindestanzahl an Aufrufen, bevor die Raten ausgewertet werden.
+     */
+    private int minimumNumberOfCalls = 10;
+    /**
+     * Anzahl der Probe-Aufrufe im halboffenen Zustand.
+     */
+    private int permittedNumberOfCallsInHalfOpenState = 5;
+
+}
@@ -22,7 +22,17 @@
  */
 package de.muenchen.oss.ezldap.spring.props;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+
+import de.muenchen.oss.ezldap.core.LdapOperation;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
 /**
@@ -37,6 +47,11 @@ public class EzLdapLdapConnectionProperties {
      */
     @NotBlank
     private String url;
+    /**
+     * Weitere LDAP Verbindungs-URLs (Replikate). Ohne Load-Balancing werden sie der Reihe nach als
+     * Failover verwendet, wenn zu url keine Verbindung aufgebaut werden kann.
+     */
+    private List<String> urls = new ArrayList<>();
     /**
      * User-DN für Authentifizierung am LDAP.
      */
@@ -55,5 +70,53 @@ public class EzLdapLdapConnectionProperties {
      */
     @NotBlank
     private String ouSearchBase;
+    /**
+     * Seitengröße für seitenweise Suchen (Paged Results Control), z.B. Personen einer OU.
+     */
+    @Positive
+    private int pageSize = 500;
+    /**
+     * Timeout für den Verbindungsaufbau zum LDAP, 0 für keinen.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    /**
+     * Timeout für das Warten auf eine Antwort des LDAP, 0 für keinen.
+     */
+    private Duration readTimeout = Duration.ofSeconds(30);
+    /**
+     * Time Limit je Art der Suche (person-lookup, person-search, ou-lookup, ou-members, ou-tree), wird
+     * vom LDAP-Server in ganzen Sekunden ausgewertet.
+     */
+    private Map<LdapOperation, Duration> timeLimits = new EnumMap<>(LdapOperation.class);
+    /**
+     * Maximale Anzahl an Treffern je Art der Suche (person-lookup, person-search, ou-lookup,
+     * ou-members, ou-tree), bei Batch-Lookups je Block.
+     */
+    private Map<LdapOperation, Integer> countLimits = new EnumMap<>(LdapOperation.class);
+    /**
+     * Connection-Pooling.
+     */
+    @NestedConfigurationProperty
+    private EzLdapLdapPoolProperties pool = new EzLdapLdapPoolProperties();
+    /**
+     * Load-Balancing über mehrere LDAP-Server.
+     */
+    @NestedConfigurationProperty
+    private EzLdapLdapLoadBalancingProperties loadBalancing = new EzLdapLdapLoadBalancingProperties();
+    /**
+     * Circuit Breaker für LDAP-Suchen.
+     */
+    @NestedConfigurationProperty
+    private EzLdapLdapCircuitBreakerProperties circuitBreaker = new EzLdapLdapCircuitBreakerProperties();
+    /**
+     * Hedging langsamer LDAP-Suchen.
+     */
+    @NestedConfigurationProperty
+    private EzLdapLdapHedgingProperties hedging = new EzLdapLdapHedgingProperties();
+    /**
+     * Protokollierung langsamer LDAP-Suchen.
+     */
+    @NestedConfigurationProperty
+    private EzLdapLdapSlowQueryLogProperties slowQueryLog = new EzLdapLdapSlowQueryLogProperties();
 
 }
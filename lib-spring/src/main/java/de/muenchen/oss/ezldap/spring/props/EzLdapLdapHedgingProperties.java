@@ -0,0 +1,54 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.props;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * @author michael.prankl
+ *
+ */
+@Data
+public class EzLdapLdapHedgingProperties {
+
+    /**
+     * Verschickt LDAP-Suchen ein zweites Mal, wenn sie nicht innerhalb des Perzentils der zuletzt
+     * gemessenen Antwortzeiten abgeschlossen sind.
+     */
+    private boolean enabled = false;
+    /**
+     * Perzentil der Antwortzeiten je Art der Suche, nach dem die zweite Suche verschickt wird.
+     */
+    private double percentile = 0.95;
+    /**
+     * Minimale Wartezeit vor der zweiten Suche.
+     */
+    private Duration minDelay = Duration.ofMillis(50);
+    /**
+     * Maximale Anzahl gleichzeitig ausgeführter Suchen, darüber hinaus wird ohne Hedging gesucht.
+     */
+    private int threads = 32;
+
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.props;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * @author michael.prankl
+ *
+ */
+@Data
+public class EzLdapLdapPoolProperties {
+
+    /**
+     * Aktiviert das Pooling der LDAP-Verbindungen.
+     */
+    private boolean enabled = false;
+    /**
+     * Minimale Anzahl an Verbindungen, die im Pool vorgehalten werden.
+     */
+    private int minIdle = 0;
+    /**
+     * Maximale Anzahl an ungenutzten Verbindungen im Pool.
+     */
+    private int maxIdle = 8;
+    /**
+     * Maximale Anzahl an Verbindungen insgesamt (-1 für unbegrenzt).
+     */
+    private int maxTotal = 8;
+    /**
+     * Maximale Wartezeit auf eine freie Verbindung, wenn der Pool erschöpft ist.
+     */
+    private Duration maxWait = Duration.ofSeconds(10);
+    /**
+     * Prüft Verbindungen vor dem Ausleihen aus dem Pool.
+     */
+    private boolean testOnBorrow = true;
+    /**
+     * Prüft ungenutzte Verbindungen beim Eviction-Lauf.
+     */
+    private boolean testWhileIdle = true;
+    /**
+     * Intervall der Eviction-Läufe.
+     */
+    private Duration timeBetweenEvictionRuns = Duration.ofMinutes(1);
+    /**
+     * Mindestdauer, die eine Verbindung ungenutzt im Pool liegen muss, bevor sie entfernt werden kann.
+     */
+    private Duration minEvictableIdleTime = Duration.ofMinutes(5);
+    /**
+     * Anzahl der Verbindungen, die pro Eviction-Lauf geprüft werden.
+     */
+    private int numTestsPerEvictionRun = 3;
+
+}
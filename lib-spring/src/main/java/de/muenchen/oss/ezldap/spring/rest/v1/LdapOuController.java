@@ -24,6 +24,7 @@ package de.muenchen.oss.ezldap.spring.rest.v1;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.http.CacheControl;
@@ -32,15 +33,21 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import de.muenchen.oss.ezldap.core.LdapOuDTO;
 import de.muenchen.oss.ezldap.core.LdapUserDTO;
+import de.muenchen.oss.ezldap.spring.rest.v1.dto.LdapOuBatchRequestDTO;
+import de.muenchen.oss.ezldap.spring.rest.v1.dto.LdapOuBatchResponseDTO;
+import de.muenchen.oss.ezldap.spring.rest.v1.dto.LdapOuTreeBatchRequestDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -148,4 +155,54 @@ public class LdapOuController {
         }
     }
 
+    /**
+     * POST /ldap/ou/batch
+     *
+     * @param request die angefragten lhmObjectIds und/oder OU-Shortcodes
+     * @return {@link LdapOuBatchResponseDTO}
+     */
+    @PostMapping(value = "/ou/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Lookup mehrerer OUs via lhmObjectId und/oder OU Kurzbezeichnung (maximal 500 je Liste)", operationId = "getOusBatch",
+            method = "POST",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Zu viele, fehlende oder leere lhmObjectIds/OUs angefragt"),
+            }
+    )
+    public ResponseEntity<LdapOuBatchResponseDTO> getOusBatch(@Valid @RequestBody final LdapOuBatchRequestDTO request) {
+        log.info("Incoming LDAP OU batch request for {} lhmObjectIds and {} ou shortcodes", request.getLhmObjectIds().size(),
+                request.getOuShortcodes().size());
+        final LdapOuBatchResponseDTO response = new LdapOuBatchResponseDTO();
+        if (!request.getLhmObjectIds().isEmpty()) {
+            response.getOusByLhmObjectId().putAll(this.ldapService.getOus(request.getLhmObjectIds()));
+        }
+        if (!request.getOuShortcodes().isEmpty()) {
+            response.getOusByOuShortcode().putAll(this.ldapService.findOusByOuShortcode(request.getOuShortcodes()));
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /ldap/outree/batch
+     *
+     * @param request die angefragten OU-Shortcodes
+     * @return Liste der OU-Shortcodes des OU-Baums je angefragtem OU-Shortcode
+     */
+    @PostMapping(value = "/outree/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Lookup mehrerer OU Bäume via OU Kurzbezeichnung (maximal 500)", operationId = "ouTreesBatch", method = "POST",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Zu viele, fehlende oder leere Kurzbezeichnungen angefragt"),
+            }
+    )
+    public ResponseEntity<Map<String, List<String>>> getOUTreesByOUShortcodes(@Valid @RequestBody final LdapOuTreeBatchRequestDTO request) {
+        log.info("Incoming LDAP OU tree batch request for {} ous", request.getOuShortcodes().size());
+        if (request.getOuShortcodes().isEmpty()) {
+            return ResponseEntity.ok(Map.of());
+        }
+        return ResponseEntity.ok(this.ldapService.findOuTrees(request.getOuShortcodes()));
+    }
+
 }
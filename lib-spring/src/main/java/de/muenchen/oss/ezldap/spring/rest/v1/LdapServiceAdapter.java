@@ -23,15 +23,28 @@
 package de.muenchen.oss.ezldap.spring.rest.v1;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 
 import de.muenchen.oss.ezldap.core.LdapBaseUserDTO;
 import de.muenchen.oss.ezldap.core.LdapOuDTO;
+import de.muenchen.oss.ezldap.core.LdapRequestCoalescer;
 import de.muenchen.oss.ezldap.core.LdapService;
 import de.muenchen.oss.ezldap.core.LdapUserDTO;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * @author michael.prankl
@@ -41,57 +54,178 @@ import java.util.Optional;
 public class LdapServiceAdapter {
 
     private final LdapService ldapService;
+    private CacheManager cacheManager;
+    private LdapRequestCoalescer requestCoalescer;
+    private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
 
     public LdapServiceAdapter(final LdapService ldapService) {
         this.ldapService = ldapService;
     }
 
-    @Cacheable("ousByLhmObjectId")
+    /**
+     * Setzt den {@link CacheManager}, aus dem die Batch-Lookups Cache-Treffer bedienen.
+     *
+     * @param cacheManager der {@link CacheManager}, <code>null</code> wenn Caching deaktiviert ist
+     */
+    public void setCacheManager(final CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Setzt den {@link LdapRequestCoalescer}, über den Einzel-Lookups gebündelt werden.
+     *
+     * @param requestCoalescer der {@link LdapRequestCoalescer}, <code>null</code> für direkte
+     *            Einzel-Lookups
+     */
+    public void setRequestCoalescer(final LdapRequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * Setzt die {@link ObservationRegistry}, mit der die Cache-Lookups der Batch-Lookups als
+     * Observation <code>ezldap.cache.lookup</code> erfasst werden.
+     *
+     * @param observationRegistry die {@link ObservationRegistry}, <code>null</code> für keine
+     *            Observations
+     */
+    public void setObservationRegistry(final ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry != null ? observationRegistry : ObservationRegistry.NOOP;
+    }
+
+    @Cacheable(cacheNames = "ousByLhmObjectId", sync = true)
     public Optional<LdapOuDTO> getOu(final String lhmObjectId) {
         log.debug("Looking up ou with lhmObject '{}' via ldapService...", lhmObjectId);
+        if (this.requestCoalescer != null) {
+            return this.requestCoalescer.getOu(lhmObjectId);
+        }
         return this.ldapService.getOu(lhmObjectId);
     }
 
-    @Cacheable("ousByOuShortcode")
+    @Cacheable(cacheNames = "ousByOuShortcode", sync = true)
     public Optional<LdapOuDTO> findOuByOuShortcode(final String ou) {
         log.debug("Looking up ou with lhmOUShortname '{}' via ldapService...", ou);
         return this.ldapService.findOuByShortcode(ou);
     }
 
-    @Cacheable("usersByLhmObjectId")
+    public Map<String, LdapOuDTO> getOus(final Collection<String> lhmObjectIds) {
+        log.debug("Looking up {} ous by lhmObjectId via ldapService...", lhmObjectIds.size());
+        return this.cachedBatch("ousByLhmObjectId", lhmObjectIds, this.ldapService::getOus);
+    }
+
+    public Map<String, LdapOuDTO> findOusByOuShortcode(final Collection<String> ous) {
+        log.debug("Looking up {} ous by lhmOUShortname via ldapService...", ous.size());
+        return this.cachedBatch("ousByOuShortcode", ous, this.ldapService::findOusByShortcode);
+    }
+
+    @Cacheable(cacheNames = "usersByLhmObjectId", sync = true)
     public Optional<LdapUserDTO> getPerson(final String lhmObjectId) {
         log.debug("Looking up person with lhmObject '{}' via ldapService...", lhmObjectId);
+        if (this.requestCoalescer != null) {
+            return this.requestCoalescer.getPerson(lhmObjectId);
+        }
         return this.ldapService.getPerson(lhmObjectId);
     }
 
-    @Cacheable("usersByUid")
+    @Cacheable(cacheNames = "usersByUid", sync = true)
     public Optional<LdapUserDTO> getPersonWithUID(final String uid) {
         log.debug("Looking up person with uid '{}' via ldapService...", uid);
+        if (this.requestCoalescer != null) {
+            return this.requestCoalescer.getPersonWithUID(uid);
+        }
         return this.ldapService.getPersonWithUID(uid);
     }
 
-    @Cacheable("usersByUidSearch")
+    public Map<String, LdapUserDTO> getPersons(final Collection<String> lhmObjectIds) {
+        log.debug("Looking up {} persons by lhmObjectId via ldapService...", lhmObjectIds.size());
+        return this.cachedBatch("usersByLhmObjectId", lhmObjectIds, this.ldapService::getPersons);
+    }
+
+    public Map<String, LdapUserDTO> getPersonsWithUID(final Collection<String> uids) {
+        log.debug("Looking up {} persons by uid via ldapService...", uids.size());
+        return this.cachedBatch("usersByUid", uids, this.ldapService::getPersonsWithUID);
+    }
+
+    @Cacheable(cacheNames = "usersByUidSearch", sync = true)
     public List<LdapBaseUserDTO> searchFor(final String uid, final Integer size) {
         log.debug("Searching for person '{}' (size: {}) via ldapService...", uid, size);
         return this.ldapService.searchFor(uid, size);
     }
 
-    @Cacheable("usersByOuShortcode")
+    @Cacheable(cacheNames = "usersByOuShortcode", sync = true)
     public Optional<List<LdapBaseUserDTO>> findPersonsByOuShortcode(final String ou) {
         log.debug("Looking up persons in ou with shortcode '{}' ...", ou);
         return this.ldapService.findPersonsByOuShortcode(ou);
     }
 
-    @Cacheable("ouTreeByOuShortcode")
+    public boolean existsOuWithShortcode(final String ou) {
+        log.debug("Checking existence of ou with shortcode '{}' ...", ou);
+        return this.ldapService.existsOuWithShortcode(ou);
+    }
+
+    public long streamPersonsByOuShortcode(final String ou, final Consumer<? super LdapBaseUserDTO> consumer) {
+        log.debug("Streaming persons in ou with shortcode '{}' ...", ou);
+        return this.ldapService.streamPersonsByOuShortcode(ou, consumer);
+    }
+
+    @Cacheable(cacheNames = "ouTreeByOuShortcode", sync = true)
     public Optional<List<String>> findOuTree(final String ouShortCode) {
         log.debug("Looking up ou tree for ou '{}' ...", ouShortCode);
         return this.ldapService.findOuTreeByOuShortCode(ouShortCode);
     }
 
-    @Cacheable("ouTreeByUserId")
+    public Map<String, List<String>> findOuTrees(final Collection<String> ouShortCodes) {
+        log.debug("Looking up ou trees for {} ous ...", ouShortCodes.size());
+        return this.cachedBatch("ouTreeByOuShortcode", ouShortCodes, this.ldapService::findOuTreesByOuShortCode);
+    }
+
+    @Cacheable(cacheNames = "ouTreeByUserId", sync = true)
     public Optional<List<String>> findOuTreeForUser(final String userId) {
         log.debug("Looking up ou tree for user '{}' ...", userId);
         return this.ldapService.findOuTreeByUserId(userId);
     }
 
+    /**
+     * Bedient die Schlüssel aus dem Cache, der auch von den Einzel-Lookups (@Cacheable) genutzt wird,
+     * und lädt nur die fehlenden Schlüssel gesammelt nach. Nicht gefundene Schlüssel werden wie beim
+     * Einzel-Lookup als <code>null</code> gecacht.
+     */
+    private <V> Map<String, V> cachedBatch(final String cacheName, final Collection<String> keys,
+            final Function<Collection<String>, Map<String, V>> loader) {
+        final Cache cache = this.cacheManager != null ? this.cacheManager.getCache(cacheName) : null;
+        final Map<String, V> result = new LinkedHashMap<>();
+        final Set<String> misses = new LinkedHashSet<>();
+        final Observation observation = Observation.createNotStarted("ezldap.cache.lookup", this.observationRegistry)
+                .contextualName("cache lookup " + cacheName)
+                .lowCardinalityKeyValue("cache", cacheName)
+                .lowCardinalityKeyValue("result", "batch");
+        observation.observe(() -> {
+            for (final String key : keys) {
+                final ValueWrapper cached = cache != null ? cache.get(key) : null;
+                if (cached == null) {
+                    misses.add(key);
+                } else if (cached.get() != null) {
+                    @SuppressWarnings("unchecked")
+                    final V value = (V) cached.get();
+                    result.put(key, value);
+                }
+            }
+            observation.highCardinalityKeyValue("hits", String.valueOf(keys.size() - misses.size()));
+            observation.highCardinalityKeyValue("misses", String.valueOf(misses.size()));
+        });
+        log.debug("Batch lookup in cache '{}': {} hits, {} misses.", cacheName, keys.size() - misses.size(), misses.size());
+        if (!misses.isEmpty()) {
+            final Map<String, V> loaded = loader.apply(misses);
+            for (final String key : misses) {
+                final V value = loaded.get(key);
+                if (cache != null) {
+                    cache.put(key, value);
+                }
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+        }
+        return result;
+    }
+
 }
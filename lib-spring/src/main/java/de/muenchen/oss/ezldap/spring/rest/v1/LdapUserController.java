@@ -22,6 +22,8 @@
  */
 package de.muenchen.oss.ezldap.spring.rest.v1;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
@@ -32,17 +34,26 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import de.muenchen.oss.ezldap.core.LdapService;
 import de.muenchen.oss.ezldap.spring.rest.v1.dto.LdapBaseUserDTO;
+import de.muenchen.oss.ezldap.spring.rest.v1.dto.LdapUserBatchRequestDTO;
+import de.muenchen.oss.ezldap.spring.rest.v1.dto.LdapUserBatchResponseDTO;
 import de.muenchen.oss.ezldap.spring.rest.v1.dto.LdapUserDTO;
 import de.muenchen.oss.ezldap.spring.rest.v1.dto.WebMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Size;
 import lombok.extern.slf4j.Slf4j;
@@ -59,16 +70,19 @@ public class LdapUserController {
 
     private final LdapServiceAdapter ldapService;
     private final WebMapper webMapper;
+    private final ObjectMapper objectMapper;
 
     /**
      * Erzeugt eine Instanz.
      *
      * @param ldapServiceAdapter eine {@link LdapServiceAdapter}
      * @param webMapper ein {@link WebMapper}
+     * @param objectMapper ein {@link ObjectMapper} für gestreamte Antworten
      */
-    public LdapUserController(final LdapServiceAdapter ldapServiceAdapter, final WebMapper webMapper) {
+    public LdapUserController(final LdapServiceAdapter ldapServiceAdapter, final WebMapper webMapper, final ObjectMapper objectMapper) {
         this.ldapService = ldapServiceAdapter;
         this.webMapper = webMapper;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -99,6 +113,36 @@ public class LdapUserController {
         }
     }
 
+    /**
+     * POST /ldap/users/batch
+     *
+     * @param request die angefragten lhmObjectIds und/oder uids
+     * @return {@link LdapUserBatchResponseDTO}
+     */
+    @PostMapping(value = "/users/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Lookup mehrerer User via lhmObjectId und/oder uid (maximal 500 je Liste)", operationId = "getUsersBatch",
+            method = "POST",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Zu viele, fehlende oder leere lhmObjectIds/uids angefragt"),
+            }
+    )
+    public ResponseEntity<LdapUserBatchResponseDTO> getUsersBatch(@Valid @RequestBody final LdapUserBatchRequestDTO request) {
+        log.info("Incoming LDAP User batch request for {} lhmObjectIds and {} uids", request.getLhmObjectIds().size(),
+                request.getUids().size());
+        final LdapUserBatchResponseDTO response = new LdapUserBatchResponseDTO();
+        if (!request.getLhmObjectIds().isEmpty()) {
+            this.ldapService.getPersons(request.getLhmObjectIds())
+                    .forEach((lhmObjectId, person) -> response.getUsersByLhmObjectId().put(lhmObjectId, webMapper.toWebDto(person)));
+        }
+        if (!request.getUids().isEmpty()) {
+            this.ldapService.getPersonsWithUID(request.getUids())
+                    .forEach((uid, person) -> response.getUsersByUid().put(uid, webMapper.toWebDto(person)));
+        }
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * GET /ldap/search/findByUid?uid={uid}
      *
@@ -190,6 +234,51 @@ public class LdapUserController {
         }
     }
 
+    /**
+     * GET /ldap/search/findByOu?ou={ou} mit Accept: application/x-ndjson
+     * <p>
+     * Schreibt die Personen einzeln (eine JSON-Zeile je Person) in die Antwort, sobald sie aus dem
+     * LDAP gelesen werden. Das Ergebnis wird weder im Speicher gesammelt noch gecacht.
+     *
+     * @param ou Kurzbezeichnung der OU (z.B. "ITM-KM21")
+     * @return {@link LdapBaseUserDTO} als NDJSON
+     */
+    @GetMapping(value = "/search/findByOu", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Gestreamter Lookup von Usern via OU Kurzbezeichnung (NDJSON)", operationId = "findByOuStream", method = "GET",
+            parameters = {
+                    @Parameter(name = "ou", required = true, description = "OU Kurzbezeichnung (z.B. ITM-KM21)", example = "ITM-KM21")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "404", description = "OU existiert nicht"),
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> findByOuStream(@RequestParam(name = "ou") final String ou) {
+        log.info("Incoming streaming LDAP User request for ou: {}", ou);
+        if (!this.ldapService.existsOuWithShortcode(ou)) {
+            return ResponseEntity.notFound().build();
+        }
+        final StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Records werden nur durch '\n' getrennt, nicht durch Jacksons Default-Separator " "
+                generator.setRootValueSeparator(null);
+                this.ldapService.streamPersonsByOuShortcode(ou, person -> {
+                    try {
+                        generator.writeObject(this.webMapper.toWebDto(person));
+                        generator.writeRaw('\n');
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * GET /ldap/outree/{lhmObjectId}
      *
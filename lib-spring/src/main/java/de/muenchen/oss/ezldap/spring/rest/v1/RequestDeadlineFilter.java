@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.rest.v1;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import de.muenchen.oss.ezldap.core.LdapDeadline;
+import de.muenchen.oss.ezldap.spring.props.EzLdapConfigurationProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Setzt die {@link LdapDeadline} aus dem Header mit der verbleibenden Zeit des Requests (in
+ * Millisekunden), z.B. vom vorgelagerten Gateway.
+ *
+ * @author michael.prankl
+ */
+@Component
+@ConditionalOnProperty(name = "ezldap.deadline.enabled", havingValue = "true")
+@Slf4j
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private final String header;
+
+    /**
+     * Erzeugt eine Instanz.
+     *
+     * @param props die {@link EzLdapConfigurationProperties}
+     */
+    public RequestDeadlineFilter(final EzLdapConfigurationProperties props) {
+        this.header = props.getDeadline().getHeader();
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain)
+            throws ServletException, IOException {
+        final String budget = request.getHeader(this.header);
+        if (budget == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            LdapDeadline.set(Duration.ofMillis(Long.parseLong(budget.trim())));
+        } catch (final NumberFormatException e) {
+            log.debug("Ignoring invalid {} header '{}'.", this.header, budget);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            LdapDeadline.clear();
+        }
+    }
+
+}
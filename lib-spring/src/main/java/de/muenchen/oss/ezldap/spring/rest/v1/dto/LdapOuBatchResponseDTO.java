@@ -0,0 +1,42 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.rest.v1.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.muenchen.oss.ezldap.core.LdapOuDTO;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(name = "LdapOuBatchResponseDTO", description = "Ergebnis des Lookups mehrerer OUs, nicht gefundene OUs fehlen")
+public class LdapOuBatchResponseDTO {
+
+    @Schema(description = "Gefundene OUs je angefragter lhmObjectId")
+    private Map<String, LdapOuDTO> ousByLhmObjectId = new LinkedHashMap<>();
+
+    @Schema(description = "Gefundene OUs je angefragter Kurzbezeichnung")
+    private Map<String, LdapOuDTO> ousByOuShortcode = new LinkedHashMap<>();
+
+}
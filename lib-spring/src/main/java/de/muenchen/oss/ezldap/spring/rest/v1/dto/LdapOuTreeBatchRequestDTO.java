@@ -0,0 +1,44 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.rest.v1.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.muenchen.oss.ezldap.core.LdapService;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+@Schema(name = "LdapOuTreeBatchRequestDTO", description = "Anfrage für den Lookup mehrerer OU Bäume")
+public class LdapOuTreeBatchRequestDTO {
+
+    @NotNull(message = "ouShortcodes darf nicht null sein")
+    @Size(max = LdapService.MAX_BATCH_SIZE, message = "Es dürfen maximal 500 OU Kurzbezeichnungen angefragt werden")
+    @Schema(description = "Kurzbezeichnungen der OUs", example = "[\"ITM-KM21\"]")
+    private List<@NotBlank(message = "ouShortcodes darf keine leeren Einträge enthalten") String> ouShortcodes = new ArrayList<>();
+
+}
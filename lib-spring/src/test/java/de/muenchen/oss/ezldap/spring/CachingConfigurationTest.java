@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.cache.Caching;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.env.MockEnvironment;
+
+import de.muenchen.oss.ezldap.spring.cache.DecoratingCacheManager;
+import de.muenchen.oss.ezldap.spring.cache.ForwardingCache;
+import de.muenchen.oss.ezldap.spring.cache.SingleFlightCache;
+import de.muenchen.oss.ezldap.spring.cache.StaleFallbackCache;
+import de.muenchen.oss.ezldap.spring.props.EzLdapCacheConfigurationProperties;
+import de.muenchen.oss.ezldap.spring.props.EzLdapConfigurationProperties;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Tests zur Dekoration der Caches durch {@link CachingConfiguration}.
+ *
+ * @author michael.prankl
+ */
+class CachingConfigurationTest {
+
+    private final EzLdapConfigurationProperties props = new EzLdapConfigurationProperties();
+    private CachingConfiguration sut;
+
+    @BeforeEach
+    void beforeEach() {
+        this.props.setCache(new EzLdapCacheConfigurationProperties());
+        this.props.getCache().getSingleFlight().setCaches(List.of("usersByLhmObjectId", "usersByUid"));
+        this.sut = new CachingConfiguration(this.props, new StaticListableBeanFactory().getBeanProvider(ObservationRegistry.class),
+                new MockEnvironment());
+    }
+
+    @AfterEach
+    void afterEach() {
+        this.sut.destroy();
+    }
+
+    @Test
+    void single_flight_only_for_listed_caches() {
+        final CacheManager cacheManager = this.cacheManager();
+
+        final Cache usersByUid = cacheManager.getCache("usersByUid");
+        assertThat(usersByUid).isInstanceOf(SingleFlightCache.class);
+        assertThat(cacheManager.getCache("usersByUid")).isSameAs(usersByUid);
+        assertThat(cacheManager.getCache("ousByLhmObjectId")).isExactlyInstanceOf(ForwardingCache.class);
+        assertThat(cacheManager.getCache("usersByLhmObjectIdFallback")).isExactlyInstanceOf(ConcurrentMapCache.class);
+    }
+
+    @Test
+    void not_listed_cache_loads_concurrent_misses_in_parallel() throws Exception {
+        final Cache cache = this.cacheManager().getCache("ousByLhmObjectId");
+        final CountDownLatch loading = new CountDownLatch(2);
+        final AtomicInteger loads = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            final List<CompletableFuture<Boolean>> results = List.of(1, 2).stream()
+                    .map(i -> CompletableFuture.supplyAsync(() -> cache.get("112043571", () -> {
+                        loads.incrementAndGet();
+                        loading.countDown();
+                        // only returns true if the other caller is loading at the same time
+                        return loading.await(5, TimeUnit.SECONDS);
+                    }), executor))
+                    .toList();
+            for (final CompletableFuture<Boolean> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isTrue();
+            }
+        }
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void fallback_caches_only_with_stale_fallback(@TempDir final Path diskDir) {
+        System.setProperty("ezldap.cache.disk.dir", diskDir.toString());
+        try {
+            assertThat(this.sut.cacheManager().getCacheNames()).contains("usersByUid").noneMatch(name -> name.endsWith("Fallback"));
+            Caching.getCachingProvider().close();
+
+            this.props.getCache().getStaleFallback().setEnabled(true);
+            this.props.getCache().getStaleFallback().setCaches(List.of("usersByUid"));
+            final CacheManager cacheManager = this.sut.cacheManager();
+            assertThat(cacheManager.getCacheNames()).contains("usersByUidFallback").doesNotContain("ousByLhmObjectIdFallback");
+            assertThat(cacheManager.getCache("usersByUid")).isInstanceOf(StaleFallbackCache.class);
+            assertThat(cacheManager.getCache("ousByLhmObjectId")).isNotInstanceOf(StaleFallbackCache.class);
+        } finally {
+            Caching.getCachingProvider().close();
+            System.clearProperty("ezldap.cache.disk.dir");
+        }
+    }
+
+    private CacheManager cacheManager() {
+        final ConcurrentMapCacheManager target = new ConcurrentMapCacheManager();
+        return new DecoratingCacheManager(target, (name, cache) -> this.sut.decorate(name, cache, target));
+    }
+
+}
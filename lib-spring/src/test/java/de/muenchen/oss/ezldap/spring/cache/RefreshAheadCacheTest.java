@@ -0,0 +1,163 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+/**
+ * Tests zu {@link RefreshAheadCache} mit einstellbarer Uhr und manuell ausgeführtem Neuladen.
+ *
+ * @author michael.prankl
+ */
+class RefreshAheadCacheTest {
+
+    private static final String KEY = "ITM-KM21";
+    private static final Duration REFRESH_AFTER = Duration.ofMinutes(45);
+
+    private final ConcurrentMapCache target = new ConcurrentMapCache("ousByOuShortcode");
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private final MutableClock clock = new MutableClock();
+    private final RefreshAheadCache sut = new RefreshAheadCache(this.target, REFRESH_AFTER, this.refreshes::add, this.clock);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void no_refresh_before_refresh_after() {
+        assertThat(this.sut.get(KEY, this.loader("KM21"))).isEqualTo("KM21");
+        this.clock.advance(REFRESH_AFTER.minusSeconds(1));
+
+        assertThat(this.sut.get(KEY, this.loader("KM21 neu"))).isEqualTo("KM21");
+        assertThat(this.refreshes).isEmpty();
+        assertThat(this.loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void one_refresh_per_key_serving_old_value_meanwhile() {
+        this.sut.get(KEY, this.loader("KM21"));
+        this.clock.advance(REFRESH_AFTER);
+
+        assertThat(this.sut.get(KEY, this.loader("KM21 neu"))).isEqualTo("KM21");
+        assertThat(this.sut.get(KEY, this.loader("KM21 neu"))).isEqualTo("KM21");
+        assertThat(this.sut.get("ITM-KM22", this.loader("KM22"))).isEqualTo("KM22");
+        assertThat(this.refreshes).hasSize(1);
+        assertThat(this.sut.get(KEY).get()).isEqualTo("KM21");
+
+        this.runRefreshes();
+        assertThat(this.sut.get(KEY, this.loader("KM21 neuer"))).isEqualTo("KM21 neu");
+        assertThat(this.refreshes).isEmpty();
+        assertThat(this.loads.get()).isEqualTo(3);
+
+        // refreshed value is timestamped with the refresh, next refresh only after refreshAfter again
+        this.clock.advance(REFRESH_AFTER.minusSeconds(1));
+        this.sut.get(KEY, this.loader("KM21 neuer"));
+        assertThat(this.refreshes).isEmpty();
+        this.clock.advance(Duration.ofSeconds(1));
+        this.sut.get(KEY, this.loader("KM21 neuer"));
+        assertThat(this.refreshes).hasSize(1);
+    }
+
+    @Test
+    void failed_refresh_keeps_cached_value() {
+        this.sut.get(KEY, this.loader("KM21"));
+        this.clock.advance(REFRESH_AFTER);
+
+        assertThat(this.sut.get(KEY, () -> {
+            throw new IllegalStateException("LDAP nicht erreichbar");
+        })).isEqualTo("KM21");
+        this.runRefreshes();
+
+        assertThat(this.sut.get(KEY).get()).isEqualTo("KM21");
+        // key is not blocked by the failed refresh
+        assertThat(this.sut.get(KEY, this.loader("KM21 neu"))).isEqualTo("KM21");
+        assertThat(this.refreshes).hasSize(1);
+        this.runRefreshes();
+        assertThat(this.sut.get(KEY).get()).isEqualTo("KM21 neu");
+    }
+
+    @Test
+    void entry_without_timestamp_is_served_and_refreshed() {
+        // written before refresh-ahead was enabled
+        this.target.put(KEY, "KM21");
+
+        assertThat(this.sut.get(KEY).get()).isEqualTo("KM21");
+        assertThat(this.sut.get(KEY, String.class)).isEqualTo("KM21");
+        assertThat(this.sut.get(KEY, this.loader("KM21 neu"))).isEqualTo("KM21");
+        assertThat(this.refreshes).hasSize(1);
+
+        this.runRefreshes();
+        assertThat(this.target.get(KEY).get()).isInstanceOf(RefreshAheadCache.TimestampedValue.class);
+        assertThat(this.sut.get(KEY, this.loader("KM21 neuer"))).isEqualTo("KM21 neu");
+        assertThat(this.refreshes).isEmpty();
+    }
+
+    private Callable<String> loader(final String value) {
+        return () -> {
+            this.loads.incrementAndGet();
+            return value;
+        };
+    }
+
+    private void runRefreshes() {
+        final List<Runnable> pending = new ArrayList<>(this.refreshes);
+        this.refreshes.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T08:00:00Z");
+
+        void advance(final Duration duration) {
+            this.now = this.now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return this.now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+    }
+
+}
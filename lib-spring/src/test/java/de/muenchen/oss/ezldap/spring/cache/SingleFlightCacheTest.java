@@ -0,0 +1,161 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueRetrievalException;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+/**
+ * Tests zu {@link SingleFlightCache}.
+ *
+ * @author michael.prankl
+ */
+class SingleFlightCacheTest {
+
+    private static final String KEY = "erika.musterfrau";
+
+    private final ConcurrentMapCache target = new ConcurrentMapCache("usersByUid");
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrent_misses_load_once() throws Exception {
+        final SingleFlightCache sut = new SingleFlightCache(this.target, Duration.ofSeconds(10));
+        final Callable<String> loader = this.blockingLoader(() -> "Erika Musterfrau");
+        final Call first = call(sut, loader);
+        assertThat(this.loading.await(5, TimeUnit.SECONDS)).isTrue();
+        final List<Call> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waiters.add(awaitWaiting(call(sut, loader)));
+        }
+        this.release.countDown();
+
+        assertThat(first.result().get(5, TimeUnit.SECONDS)).isEqualTo("Erika Musterfrau");
+        for (final Call waiter : waiters) {
+            assertThat(waiter.result().get(5, TimeUnit.SECONDS)).isEqualTo("Erika Musterfrau");
+        }
+        assertThat(this.loads.get()).isEqualTo(1);
+        assertThat(this.target.get(KEY).get()).isEqualTo("Erika Musterfrau");
+        // hit, no further load
+        assertThat(sut.get(KEY, loader)).isEqualTo("Erika Musterfrau");
+        assertThat(this.loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void waiter_loads_itself_after_timeout() throws Exception {
+        final SingleFlightCache sut = new SingleFlightCache(this.target, Duration.ofMillis(50));
+        final Call first = call(sut, this.blockingLoader(() -> "Erika Musterfrau"));
+        assertThat(this.loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        final AtomicInteger ownLoads = new AtomicInteger();
+        assertThat(sut.get(KEY, () -> {
+            ownLoads.incrementAndGet();
+            return "Erika Musterfrau (neu)";
+        })).isEqualTo("Erika Musterfrau (neu)");
+        assertThat(ownLoads.get()).isEqualTo(1);
+        assertThat(first.result().isDone()).isFalse();
+
+        this.release.countDown();
+        assertThat(first.result().get(5, TimeUnit.SECONDS)).isEqualTo("Erika Musterfrau");
+        assertThat(this.loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void loader_exception_reaches_every_waiter() throws Exception {
+        final SingleFlightCache sut = new SingleFlightCache(this.target, Duration.ofSeconds(10));
+        final Callable<String> loader = this.blockingLoader(() -> {
+            throw new IllegalStateException("LDAP nicht erreichbar");
+        });
+        final Call first = call(sut, loader);
+        assertThat(this.loading.await(5, TimeUnit.SECONDS)).isTrue();
+        final List<Call> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waiters.add(awaitWaiting(call(sut, loader)));
+        }
+        this.release.countDown();
+
+        final Throwable failure = failure(first);
+        assertThat(failure).isInstanceOf(ValueRetrievalException.class).hasCauseInstanceOf(IllegalStateException.class);
+        for (final Call waiter : waiters) {
+            assertThat(failure(waiter)).isSameAs(failure);
+        }
+        assertThat(this.loads.get()).isEqualTo(1);
+        assertThat(this.target.get(KEY)).isNull();
+    }
+
+    private <T> Callable<T> blockingLoader(final Callable<T> result) {
+        return () -> {
+            this.loads.incrementAndGet();
+            this.loading.countDown();
+            assertThat(this.release.await(5, TimeUnit.SECONDS)).isTrue();
+            return result.call();
+        };
+    }
+
+    private static Call call(final Cache cache, final Callable<?> loader) {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        final Thread thread = new Thread(() -> {
+            try {
+                result.complete(cache.get(KEY, loader));
+            } catch (final RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        return new Call(thread, result);
+    }
+
+    /**
+     * Wartet, bis der Aufruf auf den laufenden Ladevorgang wartet.
+     */
+    private static Call awaitWaiting(final Call call) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (call.thread().getState() != Thread.State.TIMED_WAITING) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+        return call;
+    }
+
+    private static Throwable failure(final Call call) throws Exception {
+        return call.result().handle((value, e) -> e).get(5, TimeUnit.SECONDS);
+    }
+
+    private record Call(Thread thread, CompletableFuture<Object> result) {
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache.ValueRetrievalException;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.ldap.CommunicationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Tests zu {@link StaleFallbackCache}.
+ *
+ * @author michael.prankl
+ */
+class StaleFallbackCacheTest {
+
+    private static final String KEY = "erika.musterfrau";
+
+    private final ConcurrentMapCache target = new ConcurrentMapCache("usersByUid");
+    private final ConcurrentMapCache fallback = new ConcurrentMapCache("usersByUidFallback");
+    private final StaleFallbackCache sut = new StaleFallbackCache(new ForwardingCache(this.target), this.fallback);
+
+    @BeforeEach
+    void beforeEach() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void afterEach() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void serves_last_known_value_when_ldap_unavailable() {
+        assertThat(this.sut.get(KEY, () -> "Erika Musterfrau")).isEqualTo("Erika Musterfrau");
+        assertThat(this.fallback.get(KEY).get()).isEqualTo("Erika Musterfrau");
+        assertThat(StaleFallbackCache.isStaleResponse()).isFalse();
+
+        // entry expired in the regular cache
+        this.target.evict(KEY);
+        assertThat(this.sut.get(KEY, unavailable())).isEqualTo("Erika Musterfrau");
+        assertThat(StaleFallbackCache.isStaleResponse()).isTrue();
+        assertThat(this.target.get(KEY)).isNull();
+    }
+
+    @Test
+    void rethrows_without_last_known_value() {
+        assertThatThrownBy(() -> this.sut.get(KEY, unavailable()))
+                .isInstanceOf(ValueRetrievalException.class)
+                .hasCauseInstanceOf(CommunicationException.class);
+        assertThat(StaleFallbackCache.isStaleResponse()).isFalse();
+    }
+
+    @Test
+    void rethrows_other_failures() {
+        this.fallback.put(KEY, "Erika Musterfrau");
+
+        assertThatThrownBy(() -> this.sut.get(KEY, () -> {
+            throw new IllegalArgumentException("ungültige uid");
+        })).isInstanceOf(ValueRetrievalException.class).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(StaleFallbackCache.isStaleResponse()).isFalse();
+    }
+
+    @Test
+    void evict_removes_last_known_value() {
+        this.sut.put(KEY, "Erika Musterfrau");
+        this.sut.evict(KEY);
+
+        assertThat(this.fallback.get(KEY)).isNull();
+    }
+
+    private static Callable<String> unavailable() {
+        return () -> {
+            throw new CommunicationException(new javax.naming.CommunicationException("Connection refused"));
+        };
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.impl.config.persistence.CacheManagerPersistenceConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.jcache.JCacheCacheManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests zu {@link CacheMetrics}.
+ *
+ * @author michael.prankl
+ */
+class CacheMetricsTest {
+
+    private CacheManager cacheManager;
+
+    @AfterEach
+    void afterEach() {
+        if (this.cacheManager != null) {
+            this.cacheManager.close();
+        }
+    }
+
+    @Test
+    void binds_size_per_tier(@TempDir final Path diskDir) {
+        final org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withService(new CacheManagerPersistenceConfiguration(diskDir.toFile()))
+                .withCache("usersByUid", CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                        ResourcePoolsBuilder.heap(10).disk(1, MemoryUnit.MB)).build())
+                .build();
+        final EhcacheCachingProvider cachingProvider = (EhcacheCachingProvider) Caching
+                .getCachingProvider(EhcacheCachingProvider.class.getName());
+        this.cacheManager = cachingProvider.getCacheManager(URI.create("ezldap:metrics-test"), configuration);
+        final Cache<Object, Object> cache = this.cacheManager.getCache("usersByUid");
+        cache.put("erika.musterfrau", "Erika Musterfrau");
+        cache.put("max.mustermann", "Max Mustermann");
+        final JCacheCacheManager springCacheManager = new JCacheCacheManager(this.cacheManager);
+        springCacheManager.afterPropertiesSet();
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new CacheMetrics(springCacheManager, "cacheManager").bindTo(registry);
+
+        assertThat(registry.get("cache.tier.entries").tags("cache", "usersByUid", "tier", "Disk").gauge().value()).isEqualTo(2.0);
+        assertThat(registry.get("cache.tier.size").tags("cache", "usersByUid", "tier", "Disk").gauge().value()).isPositive();
+        assertThat(registry.get("cache.tier.entries").tags("cache", "usersByUid", "tier", "OnHeap").gauge()).isNotNull();
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ * Copyright © 2023 Landeshauptstadt München | it@M
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.muenchen.oss.ezldap.spring.rest.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import de.muenchen.oss.ezldap.spring.cache.StaleFallbackCache;
+
+/**
+ * Tests zu {@link StaleResponseAdvice}.
+ *
+ * @author michael.prankl
+ */
+class StaleResponseAdviceTest {
+
+    private final StaleResponseAdvice sut = new StaleResponseAdvice();
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void afterEach() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void marks_stale_response() {
+        final ServletRequestAttributes requestAttributes = new ServletRequestAttributes(this.request);
+        requestAttributes.setAttribute(StaleFallbackCache.STALE_RESPONSE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+
+        final ServletServerHttpResponse serverResponse = this.beforeBodyWrite("body");
+        assertThat(serverResponse.getHeaders().get("Warning")).containsExactly(StaleResponseAdvice.STALE_WARNING);
+        assertThat(serverResponse.getHeaders().getCacheControl()).isEqualTo("no-cache");
+    }
+
+    @Test
+    void fresh_response_unchanged() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(this.request));
+
+        final ServletServerHttpResponse serverResponse = this.beforeBodyWrite("body");
+        assertThat(serverResponse.getHeaders().containsKey("Warning")).isFalse();
+        assertThat(serverResponse.getHeaders().getCacheControl()).isNull();
+    }
+
+    private ServletServerHttpResponse beforeBodyWrite(final Object body) {
+        final ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(this.response);
+        final Object written = this.sut.beforeBodyWrite(body, null, MediaType.APPLICATION_JSON, MappingJackson2HttpMessageConverter.class,
+                new ServletServerHttpRequest(this.request), serverResponse);
+        assertThat(written).isSameAs(body);
+        return serverResponse;
+    }
+
+}
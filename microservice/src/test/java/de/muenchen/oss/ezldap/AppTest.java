@@ -22,11 +22,19 @@
  */
 package de.muenchen.oss.ezldap;
 
+import static org.hamcrest.Matchers.matchesRegex;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -34,9 +42,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.ldap.core.LdapTemplate;
 import org.springframework.ldap.core.support.LdapContextSource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import de.muenchen.oss.ezldap.core.LdapBaseUserDTO;
 import de.muenchen.oss.ezldap.core.LdapService;
@@ -80,4 +90,63 @@ public class AppTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    public void find_by_ou_streams_ndjson() throws Exception {
+        final LdapBaseUserDTO person = new LdapBaseUserDTO();
+        person.setUid("erika.musterfrau");
+        Mockito.when(ldapService.existsOuWithShortcode("ITM-KM21")).thenReturn(true);
+        Mockito.when(ldapService.streamPersonsByOuShortcode(Mockito.eq("ITM-KM21"), Mockito.any())).thenAnswer(invocation -> {
+            final Consumer<LdapBaseUserDTO> consumer = invocation.getArgument(1);
+            consumer.accept(person);
+            consumer.accept(person);
+            return 2L;
+        });
+        final MvcResult result = mockMvc.perform(get("/v1/ldap/search/findByOu").param("ou", "ITM-KM21")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(matchesRegex("(\\{.*\"uid\":\"erika.musterfrau\".*\\}\\n){2}")));
+        mockMvc.perform(get("/v1/ldap/search/findByOu").param("ou", "hammaned").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void users_batch_rejects_null_lists_and_elements() throws Exception {
+        Mockito.when(ldapService.getPersons(Mockito.anyCollection()))
+                .thenReturn(Map.of("111140670", new LdapUserDTO(new LdapBaseUserDTO())));
+        mockMvc.perform(post("/v1/ldap/users/batch").contentType(MediaType.APPLICATION_JSON).content("{\"lhmObjectIds\": [\"111140670\"]}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/v1/ldap/users/batch").contentType(MediaType.APPLICATION_JSON).content("{\"lhmObjectIds\": null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/v1/ldap/users/batch").contentType(MediaType.APPLICATION_JSON).content("{\"uids\": null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/v1/ldap/users/batch").contentType(MediaType.APPLICATION_JSON).content("{\"lhmObjectIds\": [null]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/v1/ldap/users/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"uids\": [\"erika.musterfrau\", \" \"]}"))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(ldapService, Mockito.never()).getPersonsWithUID(Mockito.any());
+    }
+
+    @Test
+    public void ou_batches_reject_null_lists_and_elements() throws Exception {
+        Mockito.when(ldapService.findOuTreesByOuShortCode(Mockito.anyCollection()))
+                .thenReturn(Map.of("ITM-KM21", List.of("LHM", "ITM", "ITM-KM21")));
+        mockMvc.perform(post("/v1/ldap/outree/batch").contentType(MediaType.APPLICATION_JSON).content("{\"ouShortcodes\": [\"ITM-KM21\"]}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/v1/ldap/outree/batch").contentType(MediaType.APPLICATION_JSON).content("{\"ouShortcodes\": null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/v1/ldap/outree/batch").contentType(MediaType.APPLICATION_JSON).content("{\"ouShortcodes\": [null]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/v1/ldap/ou/batch").contentType(MediaType.APPLICATION_JSON).content("{\"lhmObjectIds\": null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/v1/ldap/ou/batch").contentType(MediaType.APPLICATION_JSON).content("{\"ouShortcodes\": [\"\"]}"))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(ldapService, Mockito.never()).getOus(Mockito.any());
+        Mockito.verify(ldapService, Mockito.never()).findOusByShortcode(Mockito.anyCollection());
+    }
+
 }